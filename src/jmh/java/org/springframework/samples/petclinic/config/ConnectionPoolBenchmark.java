@@ -0,0 +1,159 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.config;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.samples.petclinic.PetClinicApplication;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.Pet;
+import org.springframework.samples.petclinic.model.Visit;
+import org.springframework.samples.petclinic.service.ClinicService;
+
+/**
+ * Mixed read/write workload on the connection pool, with the pool and driver settings of the
+ * <code>application-&lt;database&gt;.properties</code> presets (<code>preset</code>) and with the pool and driver
+ * defaults (<code>defaults</code>): 3 threads look up owners by last name and the visits of a pet while 1 thread saves
+ * batches of visits, all through <code>ClinicService</code>.
+ * <p>
+ * Run with <code>mvn -Pbenchmark test-compile exec:exec -Djmh.includes=ConnectionPoolBenchmark</code>. HSQLDB runs in
+ * memory, so only the pool settings differ there; for the driver settings run MySQL or PostgreSQL as described in the
+ * readme and add <code>-Djmh.args="-p database=mysql"</code> (or <code>postgresql</code>).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ConnectionPoolBenchmark {
+
+    private static final String[] LAST_NAMES = {"Davis", "Franklin", "Escobito", "Coleman", "Black"};
+
+    private static final int VISITS = 10;
+
+    @Param({"hsqldb"})
+    public String database;
+
+    @Param({"preset", "defaults"})
+    public String settings;
+
+    private ConfigurableApplicationContext context;
+
+    private ClinicService clinicService;
+
+    private Pet pet;
+
+    @Setup
+    public void startApplication() {
+        List<String> args = new ArrayList<>();
+        args.add("--spring.profiles.active=" + this.database + ",jdbc");
+        args.add("--petclinic.security.enable=false");
+        args.add("--server.port=0");
+        args.add("--logging.level.org.springframework=WARN");
+        if (this.settings.equals("defaults")) {
+            args.addAll(defaults(this.database));
+        }
+        this.context = new SpringApplicationBuilder(PetClinicApplication.class).run(args.toArray(new String[0]));
+        this.clinicService = this.context.getBean(ClinicService.class);
+        this.pet = this.clinicService.findPetById(8);
+    }
+
+    @TearDown
+    public void stopApplication() {
+        this.context.close();
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public Collection<Owner> findOwners() {
+        return this.clinicService.findOwnerByLastName(LAST_NAMES[ThreadLocalRandom.current().nextInt(LAST_NAMES.length)]);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public Collection<Visit> findVisits() {
+        return this.clinicService.findVisitsByPetId(ThreadLocalRandom.current().nextInt(1, 14));
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public void saveVisits() {
+        List<Visit> visits = new ArrayList<>(VISITS);
+        for (int i = 0; i < VISITS; i++) {
+            Visit visit = new Visit();
+            visit.setDate(LocalDate.of(2013, 1, 1));
+            visit.setDescription("benchmark");
+            visit.setPet(this.pet);
+            visits.add(visit);
+        }
+        this.clinicService.saveVisits(visits);
+    }
+
+    /**
+     * The Spring Boot pool size, and the driver defaults for the settings of the preset.
+     */
+    private static List<String> defaults(String database) {
+        List<String> args = new ArrayList<>();
+        args.add("--spring.datasource.hikari.maximum-pool-size=10");
+        args.add("--spring.datasource.hikari.minimum-idle=10");
+        String driver = "--spring.datasource.hikari.data-source-properties.";
+        if (database.equals("mysql")) {
+            args.add(driver + "useServerPrepStmts=false");
+            args.add(driver + "cachePrepStmts=false");
+            args.add(driver + "prepStmtCacheSize=25");
+            args.add(driver + "prepStmtCacheSqlLimit=256");
+            args.add(driver + "rewriteBatchedStatements=false");
+            args.add(driver + "useLocalSessionState=false");
+            args.add(driver + "cacheResultSetMetadata=false");
+            args.add(driver + "cacheServerConfiguration=false");
+            args.add(driver + "elideSetAutoCommits=false");
+            args.add(driver + "maintainTimeStats=true");
+        } else if (database.equals("postgresql")) {
+            args.add(driver + "prepareThreshold=5");
+            args.add(driver + "preparedStatementCacheQueries=256");
+            args.add(driver + "preparedStatementCacheSizeMiB=5");
+            args.add(driver + "reWriteBatchedInserts=false");
+        }
+        return args;
+    }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.config;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.samples.petclinic.PetClinicApplication;
+
+/**
+ * Throughput and latency percentiles of a database-bound request (<code>GET /api/owners/{ownerId}</code>) with 400
+ * concurrent clients, served by the Tomcat worker pool or by virtual threads (see {@link VirtualThreadsConfig}).
+ * <p>
+ * The sample time mode reports p99. The virtual thread mode needs Java 21 or later, for example
+ * <code>mvn -Pbenchmark test-compile exec:exec -Djmh.includes=VirtualThreadsBenchmark -Djmh.args="-jvm /path/to/jdk21/bin/java"</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Threads(400)
+@Fork(1)
+public class VirtualThreadsBenchmark {
+
+    @Param({"platform", "virtual"})
+    public String threads;
+
+    @Param({"jdbc"})
+    public String repository;
+
+    private ConfigurableApplicationContext context;
+
+    private HttpClient client;
+
+    private HttpRequest request;
+
+    @Setup
+    public void startApplication() {
+        this.context = new SpringApplicationBuilder(PetClinicApplication.class)
+            .run("--spring.profiles.active=hsqldb," + this.repository, "--server.port=0",
+                "--petclinic.security.enable=false", "--logging.level.org.springframework=WARN",
+                "--petclinic.virtual-threads.enable=" + "virtual".equals(this.threads));
+        String api = "http://localhost:" + this.context.getEnvironment().getProperty("local.server.port") + "/petclinic/api";
+        this.client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        this.request = HttpRequest.newBuilder(URI.create(api + "/owners/6")).GET().build();
+    }
+
+    @TearDown
+    public void stopApplication() {
+        this.context.close();
+    }
+
+    @Benchmark
+    public int getOwner() throws IOException, InterruptedException {
+        HttpResponse<Void> response = this.client.send(this.request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(this.request.uri() + " returned " + response.statusCode());
+        }
+        return response.statusCode();
+    }
+
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.mapper;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.beans.support.MutableSortDefinition;
+import org.springframework.beans.support.PropertyComparator;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.Pet;
+import org.springframework.samples.petclinic.model.PetType;
+import org.springframework.samples.petclinic.model.Visit;
+import org.springframework.samples.petclinic.rest.dto.OwnerDto;
+
+/**
+ * Time to map a page of owners, each with pets and visits, with {@link OwnerMapper#toOwnerDtoCollection}.
+ * <p>
+ * <code>resortingGetters</code> adds the work the association getters of the model used to do on every call (copy the
+ * set into a list, sort it with a reflective <code>PropertyComparator</code>, wrap it), as a baseline for
+ * <code>toOwnerDtoCollection</code>. Run with
+ * <code>mvn -Pbenchmark test-compile exec:exec -Djmh.includes=OwnerMapperBenchmark -Djmh.args="-prof gc"</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OwnerMapperBenchmark {
+
+    @Param({"100", "1000"})
+    public int owners;
+
+    @Param({"4"})
+    public int petsPerOwner;
+
+    @Param({"4"})
+    public int visitsPerPet;
+
+    private AnnotationConfigApplicationContext context;
+
+    private OwnerMapper ownerMapper;
+
+    private List<Owner> ownerList;
+
+    @Setup
+    public void createOwners() {
+        this.context = new AnnotationConfigApplicationContext(OwnerMapper.class.getPackage().getName());
+        this.ownerMapper = this.context.getBean(OwnerMapper.class);
+        Random random = new Random(42);
+        PetType cat = new PetType();
+        cat.setId(1);
+        cat.setName("cat");
+        this.ownerList = new ArrayList<>();
+        int id = 1;
+        for (int o = 0; o < this.owners; o++) {
+            Owner owner = new Owner();
+            owner.setId(id++);
+            owner.setFirstName("George");
+            owner.setLastName("Franklin");
+            owner.setAddress("110 W. Liberty St.");
+            owner.setCity("Madison");
+            owner.setTelephone("6085551023");
+            for (int p = 0; p < this.petsPerOwner; p++) {
+                Pet pet = new Pet();
+                pet.setId(id++);
+                pet.setName("Pet" + random.nextInt(1000));
+                pet.setBirthDate(LocalDate.of(2010, 1, 1).plusDays(random.nextInt(3000)));
+                pet.setType(cat);
+                owner.addPet(pet);
+                for (int v = 0; v < this.visitsPerPet; v++) {
+                    Visit visit = new Visit();
+                    visit.setId(id++);
+                    visit.setDate(LocalDate.of(2013, 1, 1).plusDays(random.nextInt(3000)));
+                    visit.setDescription("rabies shot");
+                    pet.addVisit(visit);
+                }
+            }
+            this.ownerList.add(owner);
+        }
+    }
+
+    @TearDown
+    public void closeContext() {
+        this.context.close();
+    }
+
+    @Benchmark
+    public List<OwnerDto> toOwnerDtoCollection() {
+        return this.ownerMapper.toOwnerDtoCollection(this.ownerList);
+    }
+
+    @Benchmark
+    public List<OwnerDto> resortingGetters(Blackhole blackhole) {
+        for (Owner owner : this.ownerList) {
+            List<Pet> pets = new ArrayList<>(owner.getPets());
+            PropertyComparator.sort(pets, new MutableSortDefinition("name", true, true));
+            blackhole.consume(Collections.unmodifiableList(pets));
+            for (Pet pet : pets) {
+                List<Visit> visits = new ArrayList<>(pet.getVisits());
+                PropertyComparator.sort(visits, new MutableSortDefinition("date", false, false));
+                blackhole.consume(Collections.unmodifiableList(visits));
+            }
+        }
+        return this.ownerMapper.toOwnerDtoCollection(this.ownerList);
+    }
+
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.rest.advice;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.samples.petclinic.PetClinicApplication;
+
+/**
+ * Time per request of the error responses: a bean validation failure, a 404 lookup and an unreadable body handled by
+ * {@link ExceptionControllerAdvice}. Add <code>-prof gc</code> to the JMH arguments to see the allocation rate.
+ * <p>
+ * Run with <code>mvn -Pbenchmark test-compile exec:exec -Djmh.includes=ErrorPathBenchmark</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ErrorPathBenchmark {
+
+    private ConfigurableApplicationContext context;
+
+    private HttpClient client;
+
+    private HttpRequest invalidOwner;
+
+    private HttpRequest missingOwner;
+
+    private HttpRequest unreadableOwner;
+
+    @Setup
+    public void startApplication() {
+        this.context = new SpringApplicationBuilder(PetClinicApplication.class)
+            .run("--spring.profiles.active=hsqldb,jdbc", "--server.port=0",
+                "--petclinic.security.enable=false", "--logging.level.org.springframework=WARN");
+        String api = "http://localhost:" + this.context.getEnvironment().getProperty("local.server.port") + "/petclinic/api";
+        this.client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        this.invalidOwner = post(api + "/owners", "{\"firstName\":\"\",\"lastName\":\"1\",\"address\":\"\",\"city\":\"\",\"telephone\":\"abc\"}");
+        this.missingOwner = HttpRequest.newBuilder(URI.create(api + "/owners/999999")).GET().build();
+        this.unreadableOwner = post(api + "/owners", "{\"firstName\":");
+    }
+
+    @TearDown
+    public void stopApplication() {
+        this.context.close();
+    }
+
+    @Benchmark
+    public int validationError() throws IOException, InterruptedException {
+        return send(this.invalidOwner, 400);
+    }
+
+    @Benchmark
+    public int notFound() throws IOException, InterruptedException {
+        return send(this.missingOwner, 404);
+    }
+
+    @Benchmark
+    public int unreadableBody() throws IOException, InterruptedException {
+        return send(this.unreadableOwner, 400);
+    }
+
+    private int send(HttpRequest request, int expectedStatus) throws IOException, InterruptedException {
+        HttpResponse<Void> response = this.client.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != expectedStatus) {
+            throw new IllegalStateException(request.uri() + " returned " + response.statusCode());
+        }
+        return response.statusCode();
+    }
+
+    private static HttpRequest post(String uri, String json) {
+        return HttpRequest.newBuilder(URI.create(uri))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(json))
+            .build();
+    }
+
+}
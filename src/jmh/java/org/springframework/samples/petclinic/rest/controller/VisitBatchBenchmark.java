@@ -0,0 +1,127 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.rest.controller;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.samples.petclinic.PetClinicApplication;
+
+/**
+ * Visits created per second through the single-item endpoint
+ * (<code>POST /api/owners/{ownerId}/pets/{petId}/visits</code>, one request and one transaction per visit) and
+ * through <code>POST /api/visits/batch</code>, for each repository layer on HSQLDB.
+ * <p>
+ * Run with <code>mvn -Pbenchmark test-compile exec:exec -Djmh.includes=VisitBatchBenchmark</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class VisitBatchBenchmark {
+
+    private static final int VISITS = 100;
+
+    private static final int OWNER_ID = 6;
+
+    private static final int PET_ID = 8;
+
+    @Param({"jdbc", "jpa", "spring-data-jpa"})
+    public String repository;
+
+    private ConfigurableApplicationContext context;
+
+    private HttpClient client;
+
+    private HttpRequest singleRequest;
+
+    private HttpRequest batchRequest;
+
+    @Setup
+    public void startApplication() {
+        this.context = new SpringApplicationBuilder(PetClinicApplication.class)
+            .run("--spring.profiles.active=hsqldb," + this.repository, "--server.port=0",
+                "--petclinic.security.enable=false", "--logging.level.org.springframework=WARN");
+        String api = "http://localhost:" + this.context.getEnvironment().getProperty("local.server.port") + "/petclinic/api";
+        this.client = HttpClient.newHttpClient();
+
+        String visit = "{\"date\":\"2013-01-01\",\"description\":\"benchmark\"}";
+        this.singleRequest = post(api + "/owners/" + OWNER_ID + "/pets/" + PET_ID + "/visits", visit);
+
+        StringJoiner visits = new StringJoiner(",", "[", "]");
+        for (int i = 0; i < VISITS; i++) {
+            visits.add("{\"date\":\"2013-01-01\",\"description\":\"benchmark\",\"petId\":" + PET_ID + "}");
+        }
+        this.batchRequest = post(api + "/visits/batch", visits.toString());
+    }
+
+    @TearDown
+    public void stopApplication() {
+        this.context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VISITS)
+    public void singleItemEndpoint() throws IOException, InterruptedException {
+        for (int i = 0; i < VISITS; i++) {
+            send(this.singleRequest);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VISITS)
+    public void batchEndpoint() throws IOException, InterruptedException {
+        send(this.batchRequest);
+    }
+
+    private void send(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<Void> response = this.client.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 201) {
+            throw new IllegalStateException(request.uri() + " returned " + response.statusCode());
+        }
+    }
+
+    private static HttpRequest post(String uri, String json) {
+        return HttpRequest.newBuilder(URI.create(uri))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(json))
+            .build();
+    }
+
+}
@@ -0,0 +1,418 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import javax.sql.DataSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.PetClinicApplication;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.Pet;
+import org.springframework.samples.petclinic.model.PetType;
+import org.springframework.samples.petclinic.model.Specialty;
+import org.springframework.samples.petclinic.model.Vet;
+import org.springframework.samples.petclinic.model.Visit;
+import org.springframework.samples.petclinic.util.DataGenerator;
+
+/**
+ * Time of each <code>ClinicService</code> operation for each repository layer, on HSQLDB with <code>owners</code>
+ * owners, with their pets and visits, and a vet per 500 owners, added by the {@link DataGenerator} (the sample data
+ * counts in: <code>10</code> is the sample data alone).
+ * <p>
+ * The benchmarks do not fork: the application context of a repository layer and data size is started once, on its own
+ * in-memory database, and shared by all the operations. {@link #main(String[])} runs the operations once per
+ * repository layer, and closes its contexts before the next layer, with a result file per layer.
+ * <p>
+ * The caches of <code>ClinicService</code> are turned off, so that reads reach the repositories. Writes that insert
+ * delete what they inserted in the same operation (<code>saveAndDelete*</code>), so that the data size stays the same
+ * during the run; <code>update*</code> save an existing entity.
+ * <p>
+ * Run with <code>mvn -Pbenchmark test-compile exec:exec
+ * -Djmh.main=org.springframework.samples.petclinic.service.ClinicServiceBenchmark</code> (and
+ * <code>-Djmh.includes="ClinicServiceBenchmark.find.*"</code> for some operations), and with
+ * <code>-Djmh.args="-p owners=10000"</code> for other data sizes, or <code>-p repository=jdbc</code> for one layer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(0)
+public class ClinicServiceBenchmark {
+
+    /**
+     * Common and rare names of the generated data, and names of the sample data.
+     */
+    private static final String[] LAST_NAMES = {"Smith", "Johnson", "Garcia", "Nelson", "Ortega", "Davis", "Franklin",
+        "Black", "Coleman", "Escobito"};
+
+    /**
+     * Holds nothing; the expiry is there for the expire jitter and the refresh ahead of the configuration.
+     */
+    private static final String NO_CACHE = "maximumSize=0,expireAfterWrite=10m";
+
+    private static final int SEED = 42;
+
+    private static final int BATCH = 10;
+
+    private static final String[] REPOSITORIES = {"jdbc", "jpa", "spring-data-jpa"};
+
+    /**
+     * Started application contexts, by repository layer and data size.
+     */
+    private static final Map<String, ConfigurableApplicationContext> CONTEXTS = new ConcurrentHashMap<>();
+
+    @Param({"jdbc", "jpa", "spring-data-jpa"})
+    public String repository;
+
+    @Param({"10", "1000"})
+    public int owners;
+
+    private ConfigurableApplicationContext context;
+
+    private ClinicService clinicService;
+
+    private int[] ownerIds;
+
+    private int[] petIds;
+
+    private int[] visitIds;
+
+    private int[] vetIds;
+
+    private Owner owner;
+
+    private Pet pet;
+
+    private PetType petType;
+
+    @Setup
+    public void startApplication() {
+        this.context = CONTEXTS.computeIfAbsent(this.repository + "-" + this.owners, this::start);
+        this.clinicService = this.context.getBean(ClinicService.class);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(this.context.getBean(DataSource.class));
+        this.ownerIds = ids(jdbcTemplate, "owners");
+        this.petIds = ids(jdbcTemplate, "pets");
+        this.visitIds = ids(jdbcTemplate, "visits");
+        this.vetIds = ids(jdbcTemplate, "vets");
+        this.owner = this.clinicService.findOwnerById(1);
+        this.pet = this.clinicService.findPetById(1);
+        this.petType = this.clinicService.findPetTypeById(1);
+    }
+
+    private ConfigurableApplicationContext start(String name) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(PetClinicApplication.class)
+            .run("--spring.profiles.active=hsqldb," + this.repository, "--server.port=0",
+                "--spring.datasource.url=jdbc:hsqldb:mem:" + name, "--spring.jmx.enabled=false",
+                "--spring.datasource.hikari.register-mbeans=false",
+                "--petclinic.security.enable=false", "--petclinic.warm-up.enable=false",
+                "--petclinic.cache.spec=" + NO_CACHE, "--petclinic.cache.owners.spec=" + NO_CACHE,
+                "--petclinic.cache.missingOwners.spec=" + NO_CACHE, "--petclinic.cache.missingPets.spec=" + NO_CACHE,
+                "--logging.level.org.springframework=WARN");
+        // the sample data has 10 owners and 6 vets
+        new DataGenerator(SEED, Math.max(0, this.owners - 10), this.owners / 500)
+            .insert(context.getBean(DataSource.class));
+        return context;
+    }
+
+    private static int[] ids(JdbcTemplate jdbcTemplate, String table) {
+        return jdbcTemplate.queryForList("SELECT id FROM " + table + " ORDER BY id", Integer.class).stream()
+            .mapToInt(Integer::intValue).toArray();
+    }
+
+    private static int any(int[] ids) {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+
+    private static List<Integer> ids(int[] ids) {
+        int first = ThreadLocalRandom.current().nextInt(ids.length - 2);
+        return Arrays.asList(ids[first], ids[first + 1], ids[first + 2]);
+    }
+
+    // reads
+
+    @Benchmark
+    public Pet findPetById() {
+        return this.clinicService.findPetById(any(this.petIds));
+    }
+
+    @Benchmark
+    public Collection<Pet> findPetsByIds() {
+        return this.clinicService.findPetsByIds(ids(this.petIds));
+    }
+
+    @Benchmark
+    public Collection<Pet> findAllPets() {
+        return this.clinicService.findAllPets();
+    }
+
+    @Benchmark
+    public Collection<Visit> findVisitsByPetId() {
+        return this.clinicService.findVisitsByPetId(any(this.petIds));
+    }
+
+    @Benchmark
+    public Visit findVisitById() {
+        return this.clinicService.findVisitById(any(this.visitIds));
+    }
+
+    @Benchmark
+    public Collection<Visit> findAllVisits() {
+        return this.clinicService.findAllVisits();
+    }
+
+    @Benchmark
+    public Vet findVetById() {
+        return this.clinicService.findVetById(any(this.vetIds));
+    }
+
+    @Benchmark
+    public Collection<Vet> findVets() {
+        return this.clinicService.findVets();
+    }
+
+    @Benchmark
+    public Collection<Vet> findAllVets() {
+        return this.clinicService.findAllVets();
+    }
+
+    @Benchmark
+    public Owner findOwnerById() {
+        return this.clinicService.findOwnerById(any(this.ownerIds));
+    }
+
+    @Benchmark
+    public Collection<Owner> findOwnersByIds() {
+        return this.clinicService.findOwnersByIds(ids(this.ownerIds));
+    }
+
+    @Benchmark
+    public Collection<Owner> findAllOwners() {
+        return this.clinicService.findAllOwners();
+    }
+
+    @Benchmark
+    public Collection<Owner> findOwnerByLastName() {
+        return this.clinicService.findOwnerByLastName(LAST_NAMES[ThreadLocalRandom.current().nextInt(LAST_NAMES.length)]);
+    }
+
+    @Benchmark
+    public PetType findPetTypeById() {
+        return this.clinicService.findPetTypeById(1 + ThreadLocalRandom.current().nextInt(6));
+    }
+
+    @Benchmark
+    public Collection<PetType> findAllPetTypes() {
+        return this.clinicService.findAllPetTypes();
+    }
+
+    @Benchmark
+    public Collection<PetType> findPetTypes() {
+        return this.clinicService.findPetTypes();
+    }
+
+    @Benchmark
+    public Specialty findSpecialtyById() {
+        return this.clinicService.findSpecialtyById(1 + ThreadLocalRandom.current().nextInt(3));
+    }
+
+    @Benchmark
+    public Collection<Specialty> findAllSpecialties() {
+        return this.clinicService.findAllSpecialties();
+    }
+
+    // writes
+
+    @Benchmark
+    public void updateOwner() {
+        this.owner.setTelephone(Integer.toString(ThreadLocalRandom.current().nextInt(1_000_000_000)));
+        this.clinicService.saveOwner(this.owner);
+    }
+
+    @Benchmark
+    public void saveAndDeleteOwner() {
+        Owner owner = newOwner();
+        this.clinicService.saveOwner(owner);
+        this.clinicService.deleteOwner(owner);
+    }
+
+    @Benchmark
+    public void saveAndDeleteOwners() {
+        List<Owner> owners = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            owners.add(newOwner());
+        }
+        this.clinicService.saveOwners(owners);
+        owners.forEach(this.clinicService::deleteOwner);
+    }
+
+    @Benchmark
+    public void updatePet() {
+        this.pet.setBirthDate(LocalDate.of(2010, 1, 1).plusDays(ThreadLocalRandom.current().nextInt(3650)));
+        this.clinicService.savePet(this.pet);
+    }
+
+    @Benchmark
+    public void saveAndDeletePet() {
+        Pet pet = newPet();
+        this.clinicService.savePet(pet);
+        this.clinicService.deletePet(pet);
+    }
+
+    @Benchmark
+    public void saveAndDeletePets() {
+        List<Pet> pets = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            pets.add(newPet());
+        }
+        this.clinicService.savePets(pets);
+        pets.forEach(this.clinicService::deletePet);
+    }
+
+    @Benchmark
+    public void saveAndDeleteVisit() {
+        Visit visit = newVisit();
+        this.clinicService.saveVisit(visit);
+        this.clinicService.deleteVisit(visit);
+    }
+
+    @Benchmark
+    public void saveAndDeleteVisits() {
+        List<Visit> visits = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            visits.add(newVisit());
+        }
+        this.clinicService.saveVisits(visits);
+        visits.forEach(this.clinicService::deleteVisit);
+    }
+
+    @Benchmark
+    public void saveAndDeleteVet() {
+        Vet vet = new Vet();
+        vet.setFirstName("Benchmark");
+        vet.setLastName("Vet");
+        this.clinicService.saveVet(vet);
+        this.clinicService.deleteVet(vet);
+    }
+
+    @Benchmark
+    public void saveAndDeletePetType() {
+        PetType petType = new PetType();
+        petType.setName("benchmark");
+        this.clinicService.savePetType(petType);
+        this.clinicService.deletePetType(petType);
+    }
+
+    @Benchmark
+    public void saveAndDeleteSpecialty() {
+        Specialty specialty = new Specialty();
+        specialty.setName("benchmark");
+        this.clinicService.saveSpecialty(specialty);
+        this.clinicService.deleteSpecialty(specialty);
+    }
+
+    private static Owner newOwner() {
+        Owner owner = new Owner();
+        owner.setFirstName("Benchmark");
+        owner.setLastName("Owner");
+        owner.setAddress("1 Main St.");
+        owner.setCity("Madison");
+        owner.setTelephone("6085550000");
+        return owner;
+    }
+
+    private Pet newPet() {
+        Pet pet = new Pet();
+        pet.setName("benchmark");
+        pet.setBirthDate(LocalDate.of(2020, 1, 1));
+        pet.setType(this.petType);
+        pet.setOwner(this.owner);
+        return pet;
+    }
+
+    private Visit newVisit() {
+        Visit visit = new Visit();
+        visit.setDate(LocalDate.of(2020, 1, 1));
+        visit.setDescription("benchmark");
+        visit.setPet(this.pet);
+        return visit;
+    }
+
+    /**
+     * Runs the benchmarks of this class with the JMH command line options, once per repository layer (all of them, or
+     * those of <code>-p repository=...</code>), each layer with its own result file.
+     */
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions options = new CommandLineOptions(args);
+        String benchmarks = Pattern.quote(ClinicServiceBenchmark.class.getName() + ".");
+        for (String repository : options.getParameter("repository").orElse(Arrays.asList(REPOSITORIES))) {
+            ChainedOptionsBuilder builder = new OptionsBuilder().parent(options)
+                .exclude("^(?!" + benchmarks + ")")
+                .param("repository", repository)
+                .forks(0);
+            if (options.getIncludes().isEmpty()) {
+                builder.include(benchmarks);
+            }
+            if (options.getResult().hasValue()) {
+                String result = options.getResult().get();
+                int extension = result.lastIndexOf('.');
+                builder.result(extension < 0 ? result + "-" + repository
+                    : result.substring(0, extension) + "-" + repository + result.substring(extension));
+            }
+            try {
+                new Runner(builder.build()).run();
+            } finally {
+                CONTEXTS.entrySet().removeIf(entry -> {
+                    if (entry.getKey().startsWith(repository + "-")) {
+                        entry.getValue().close();
+                        return true;
+                    }
+                    return false;
+                });
+            }
+        }
+    }
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.service;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.samples.petclinic.PetClinicApplication;
+
+/**
+ * Time per request of crawler-like traffic on <code>GET /api/owners/{ownerId}</code> and <code>GET /api/pets/{petId}</code>:
+ * a <code>hitRatio</code> share of the requests ask for existing ids, the rest for ids that do not exist.
+ * <p>
+ * Run with <code>mvn -Pbenchmark test-compile exec:exec -Djmh.includes=LookupMissBenchmark</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class LookupMissBenchmark {
+
+    private static final int REQUESTS = 1024;
+
+    @Param({"jdbc", "jpa", "spring-data-jpa"})
+    public String repository;
+
+    @Param({"0.1", "0.5", "0.9"})
+    public double hitRatio;
+
+    private ConfigurableApplicationContext context;
+
+    private HttpClient client;
+
+    private HttpRequest[] requests;
+
+    private int next;
+
+    @Setup
+    public void startApplication() {
+        this.context = new SpringApplicationBuilder(PetClinicApplication.class)
+            .run("--spring.profiles.active=hsqldb," + this.repository, "--server.port=0",
+                "--petclinic.security.enable=false", "--logging.level.org.springframework=WARN");
+        String api = "http://localhost:" + this.context.getEnvironment().getProperty("local.server.port") + "/petclinic/api";
+        this.client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        // the sample data has owners 1-10 and pets 1-13
+        Random random = new Random(42);
+        this.requests = new HttpRequest[REQUESTS];
+        for (int i = 0; i < REQUESTS; i++) {
+            boolean hit = random.nextDouble() < this.hitRatio;
+            String uri = i % 2 == 0
+                ? api + "/owners/" + (hit ? 1 + random.nextInt(10) : 1000 + random.nextInt(1000000))
+                : api + "/pets/" + (hit ? 1 + random.nextInt(13) : 1000 + random.nextInt(1000000));
+            this.requests[i] = HttpRequest.newBuilder(URI.create(uri)).GET().build();
+        }
+    }
+
+    @TearDown
+    public void stopApplication() {
+        this.context.close();
+    }
+
+    @Benchmark
+    public int crawl() throws IOException, InterruptedException {
+        HttpRequest request = this.requests[this.next++ & (REQUESTS - 1)];
+        HttpResponse<Void> response = this.client.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200 && response.statusCode() != 404) {
+            throw new IllegalStateException(request.uri() + " returned " + response.statusCode());
+        }
+        return response.statusCode();
+    }
+
+}
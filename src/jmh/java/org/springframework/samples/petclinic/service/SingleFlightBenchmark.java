@@ -0,0 +1,113 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.samples.petclinic.PetClinicApplication;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.util.SingleFlightAspect;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Throughput of 32 threads reading the same owner through {@link ClinicService}, with and without
+ * {@link SingleFlightAspect}. The caches are turned off so that every call is a miss. After each iteration the number
+ * of database connections taken per call (from the <code>hikaricp.connections.usage</code> metric) is printed; it
+ * drops well below 1 with single-flight.
+ * <p>
+ * Run with <code>mvn -Pbenchmark test-compile exec:exec -Djmh.includes=SingleFlightBenchmark</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(32)
+@Fork(1)
+public class SingleFlightBenchmark {
+
+    @Param({"true", "false"})
+    public boolean singleFlight;
+
+    @Param({"jdbc", "jpa"})
+    public String repository;
+
+    private ConfigurableApplicationContext context;
+
+    private ClinicService clinicService;
+
+    private Timer connectionUsage;
+
+    private final AtomicLong calls = new AtomicLong();
+
+    private long connectionsBefore;
+
+    @Setup
+    public void startApplication() {
+        this.context = new SpringApplicationBuilder(PetClinicApplication.class)
+            .run("--spring.profiles.active=hsqldb," + this.repository, "--server.port=0",
+                "--petclinic.security.enable=false", "--logging.level.org.springframework=WARN",
+                "--petclinic.cache.spec=expireAfterWrite=0s", "--petclinic.cache.owners.spec=expireAfterWrite=0s",
+                "--petclinic.single-flight.enable=" + this.singleFlight);
+        this.clinicService = this.context.getBean(ClinicService.class);
+        this.connectionUsage = this.context.getBean(MeterRegistry.class).get("hikaricp.connections.usage").timer();
+    }
+
+    @Setup(Level.Iteration)
+    public void resetCounts() {
+        this.calls.set(0);
+        this.connectionsBefore = this.connectionUsage.count();
+    }
+
+    @TearDown(Level.Iteration)
+    public void printConnectionsPerCall() {
+        long connections = this.connectionUsage.count() - this.connectionsBefore;
+        System.out.printf("%n%d calls, %d connections, %.3f connections per call%n",
+            this.calls.get(), connections, (double) connections / Math.max(1, this.calls.get()));
+    }
+
+    @TearDown
+    public void stopApplication() {
+        this.context.close();
+    }
+
+    @Benchmark
+    public Owner findOwnerById() {
+        this.calls.incrementAndGet();
+        return this.clinicService.findOwnerById(6);
+    }
+
+}
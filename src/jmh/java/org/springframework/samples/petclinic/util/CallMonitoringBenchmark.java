@@ -0,0 +1,143 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.repository.OwnerRepository;
+import org.springframework.util.StopWatch;
+
+/**
+ * Cost of monitoring a call to a repository that does nothing, from 4 threads: through a proxy without advice
+ * (<code>none</code>), with {@link CallMonitoringAspect} (<code>histogram</code>), and with the former implementation
+ * of the monitor, which summed a <code>StopWatch</code> time in a <code>synchronized</code> block
+ * (<code>synchronized</code>). Run with
+ * <code>mvn -Pbenchmark test-compile exec:exec -Djmh.includes=CallMonitoringBenchmark</code>, and with
+ * <code>-Djmh.args="-t 1"</code> for the uncontended cost.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class CallMonitoringBenchmark {
+
+    @Param({"none", "histogram", "synchronized"})
+    public String monitor;
+
+    private OwnerRepository ownerRepository;
+
+    @Setup
+    public void createProxy() {
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(new NoOpOwnerRepository());
+        proxyFactory.addInterface(OwnerRepository.class);
+        if (this.monitor.equals("histogram")) {
+            proxyFactory.addAspect(new CallMonitoringAspect());
+        } else if (this.monitor.equals("synchronized")) {
+            proxyFactory.addAspect(new SynchronizedCallMonitor());
+        }
+        this.ownerRepository = proxyFactory.getProxy();
+    }
+
+    @Benchmark
+    public Optional<Owner> findById() {
+        return this.ownerRepository.findById(1);
+    }
+
+    @Aspect
+    public static class SynchronizedCallMonitor {
+
+        private int callCount = 0;
+
+        private long accumulatedCallTime = 0;
+
+        @Around("execution(public * org.springframework.samples.petclinic.repository.*Repository.*(..))")
+        public Object invoke(ProceedingJoinPoint joinPoint) throws Throwable {
+            StopWatch sw = new StopWatch(joinPoint.toShortString());
+            sw.start("invoke");
+            try {
+                return joinPoint.proceed();
+            } finally {
+                sw.stop();
+                synchronized (this) {
+                    this.callCount++;
+                    this.accumulatedCallTime += sw.getTotalTimeMillis();
+                }
+            }
+        }
+    }
+
+    private static class NoOpOwnerRepository implements OwnerRepository {
+
+        private final Optional<Owner> owner = Optional.of(new Owner());
+
+        @Override
+        public Collection<Owner> findByLastName(String lastName) {
+            return new ArrayList<>();
+        }
+
+        @Override
+        public Optional<Owner> findById(int id) {
+            return this.owner;
+        }
+
+        @Override
+        public Collection<Owner> findByIds(Collection<Integer> ids) {
+            return new ArrayList<>();
+        }
+
+        @Override
+        public void save(Owner owner) {
+        }
+
+        @Override
+        public void saveAll(Collection<Owner> owners) {
+        }
+
+        @Override
+        public Collection<Owner> findAll() {
+            return new ArrayList<>();
+        }
+
+        @Override
+        public void delete(Owner owner) {
+        }
+    }
+
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.load;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.HdrHistogram.Histogram;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * The results of a {@link LoadTest} run, as JSON: the options of the run, and for every endpoint the requests, the
+ * errors, the throughput, the latency and service time percentiles in milliseconds, and the whole latency histogram
+ * (compressed HdrHistogram, Base64), to be merged or plotted later. Reports of two runs can be compared.
+ */
+final class LoadReport {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private final ObjectNode json;
+
+    private LoadReport(ObjectNode json) {
+        this.json = json;
+    }
+
+    LoadReport(Map<String, String> options, Collection<LoadTest.EndpointResult> results, Duration duration) {
+        this.json = MAPPER.createObjectNode();
+        this.json.put("time", Instant.now().toString());
+        ObjectNode optionsNode = this.json.putObject("options");
+        options.forEach(optionsNode::put);
+        ObjectNode endpoints = this.json.putObject("endpoints");
+        Histogram all = null;
+        long errors = 0;
+        for (LoadTest.EndpointResult result : results) {
+            endpoints.set(result.getName(), endpoint(result.getLatency(), result.getServiceTime(), result.getErrors(), duration));
+            if (all == null) {
+                all = result.getLatency().copy();
+            } else {
+                all.add(result.getLatency());
+            }
+            errors += result.getErrors();
+        }
+        if (all != null) {
+            this.json.set("total", endpoint(all, null, errors, duration));
+        }
+    }
+
+    private static ObjectNode endpoint(Histogram latency, Histogram serviceTime, long errors, Duration duration) {
+        ObjectNode node = MAPPER.createObjectNode();
+        node.put("requests", latency.getTotalCount());
+        node.put("errors", errors);
+        node.put("throughput", latency.getTotalCount() / (duration.toMillis() / 1000.0));
+        node.set("latency", percentiles(latency));
+        if (serviceTime != null) {
+            node.set("serviceTime", percentiles(serviceTime));
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(latency.getNeededByteBufferCapacity());
+        int length = latency.encodeIntoCompressedByteBuffer(buffer);
+        node.put("histogram", Base64.getEncoder().encodeToString(Arrays.copyOf(buffer.array(), length)));
+        return node;
+    }
+
+    private static ObjectNode percentiles(Histogram histogram) {
+        ObjectNode node = MAPPER.createObjectNode();
+        node.put("mean", millis(histogram.getMean()));
+        for (double percentile : PERCENTILES) {
+            node.put("p" + (percentile % 1 == 0 ? String.valueOf((int) percentile) : String.valueOf(percentile)),
+                millis(histogram.getValueAtPercentile(percentile)));
+        }
+        node.put("max", millis(histogram.getMaxValue()));
+        return node;
+    }
+
+    private static double millis(double micros) {
+        return Math.round(micros) / 1000.0;
+    }
+
+    static LoadReport read(Path path) throws IOException {
+        return new LoadReport((ObjectNode) MAPPER.readTree(path.toFile()));
+    }
+
+    void write(Path path) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        MAPPER.writeValue(path.toFile(), this.json);
+    }
+
+    void print(PrintStream out) {
+        out.printf("%-48s %9s %7s %9s %9s %9s %9s %9s %9s%n", "endpoint", "requests", "errors", "req/s", "p50 ms",
+            "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        Iterator<Map.Entry<String, JsonNode>> endpoints = this.json.get("endpoints").fields();
+        while (endpoints.hasNext()) {
+            Map.Entry<String, JsonNode> endpoint = endpoints.next();
+            print(out, endpoint.getKey(), endpoint.getValue());
+        }
+        if (this.json.has("total")) {
+            print(out, "total", this.json.get("total"));
+        }
+    }
+
+    private static void print(PrintStream out, String name, JsonNode endpoint) {
+        JsonNode latency = endpoint.get("latency");
+        out.printf("%-48s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n", name, endpoint.get("requests").asLong(),
+            endpoint.get("errors").asLong(), endpoint.get("throughput").asDouble(), latency.get("p50").asDouble(),
+            latency.get("p90").asDouble(), latency.get("p99").asDouble(), latency.get("p99.9").asDouble(),
+            latency.get("max").asDouble());
+    }
+
+    /**
+     * Prints the change of the median and 99th percentile latencies, and of the errors, from a former run.
+     */
+    void compare(LoadReport baseline, PrintStream out) {
+        out.printf("%nCompared with the run of %s%n", baseline.json.path("time").asText("?"));
+        out.printf("%-48s %9s %9s %8s %9s %9s %8s %7s%n", "endpoint", "p50 was", "p50 ms", "change", "p99 was",
+            "p99 ms", "change", "errors");
+        Iterator<Map.Entry<String, JsonNode>> endpoints = this.json.get("endpoints").fields();
+        while (endpoints.hasNext()) {
+            Map.Entry<String, JsonNode> endpoint = endpoints.next();
+            compare(out, endpoint.getKey(), endpoint.getValue(), baseline.json.path("endpoints").path(endpoint.getKey()));
+        }
+        compare(out, "total", this.json.path("total"), baseline.json.path("total"));
+    }
+
+    private static void compare(PrintStream out, String name, JsonNode endpoint, JsonNode baseline) {
+        if (endpoint.isMissingNode() || baseline.isMissingNode()) {
+            out.printf("%-48s %s%n", name, "not in both runs");
+            return;
+        }
+        double p50Was = baseline.path("latency").path("p50").asDouble();
+        double p50 = endpoint.path("latency").path("p50").asDouble();
+        double p99Was = baseline.path("latency").path("p99").asDouble();
+        double p99 = endpoint.path("latency").path("p99").asDouble();
+        out.printf("%-48s %9.2f %9.2f %8s %9.2f %9.2f %8s %+7d%n", name, p50Was, p50, change(p50Was, p50), p99Was, p99,
+            change(p99Was, p99), endpoint.path("errors").asLong() - baseline.path("errors").asLong());
+    }
+
+    private static String change(double was, double now) {
+        return was > 0 ? String.format("%+.1f%%", (now - was) * 100 / was) : "-";
+    }
+
+}
@@ -0,0 +1,245 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.load;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.sql.DataSource;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.PetClinicApplication;
+import org.springframework.samples.petclinic.util.DataGenerator;
+
+/**
+ * Load test of the REST API: starts the application on a random port, adds owners with the {@link DataGenerator}, and
+ * sends the requests of a {@link Scenario} at a fixed rate, then prints the latency percentiles and throughput of each
+ * endpoint and writes them to a JSON {@link LoadReport}.
+ * <p>
+ * Requests are scheduled at fixed times, <code>rate</code> per second, whether the earlier ones have completed or not,
+ * and their latency is measured from their scheduled time. A request that waits for a free sender, because the
+ * application has stalled, counts its wait, so a stall shows in the percentiles instead of being hidden by the
+ * requests it kept from being sent (coordinated omission). The service time, from the actual send, is reported
+ * too. Requests scheduled during the warm-up are not recorded.
+ * <p>
+ * Run with <code>mvn -Pload-test test-compile exec:exec -Dload.args="rate=200 duration=60s"</code>. Options, as
+ * <code>name=value</code>, with their defaults: <code>scenario=browse</code> (or <code>mixed</code>, with writes),
+ * <code>rate=100</code>, <code>duration=30s</code>, <code>warmup=10s</code>, <code>senders=64</code>,
+ * <code>database=hsqldb</code>, <code>repository=jdbc</code>, <code>owners=1000</code>, <code>seed=1</code>,
+ * <code>report=target/load-test/report.json</code> and <code>baseline=</code>, a former report to compare with.
+ * Arguments starting with <code>--</code> are passed to the application.
+ */
+public final class LoadTest {
+
+    private final Scenario scenario;
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    private final Map<Scenario.Endpoint, EndpointResult> results = new LinkedHashMap<>();
+
+    private LoadTest(Scenario scenario) {
+        this.scenario = scenario;
+        for (Scenario.Endpoint endpoint : scenario.getEndpoints()) {
+            this.results.put(endpoint, new EndpointResult(endpoint));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        options.put("scenario", "browse");
+        options.put("rate", "100");
+        options.put("duration", "30s");
+        options.put("warmup", "10s");
+        options.put("senders", "64");
+        options.put("database", "hsqldb");
+        options.put("repository", "jdbc");
+        options.put("owners", "1000");
+        options.put("seed", "1");
+        options.put("report", "target/load-test/report.json");
+        options.put("baseline", "");
+        List<String> applicationArgs = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--")) {
+                applicationArgs.add(arg);
+            } else if (arg.contains("=") && options.containsKey(arg.substring(0, arg.indexOf('=')))) {
+                options.put(arg.substring(0, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            } else {
+                throw new IllegalArgumentException("Unknown option " + arg + ", the options are " + options.keySet());
+            }
+        }
+        applicationArgs.add(0, "--spring.profiles.active=" + options.get("database") + "," + options.get("repository"));
+        applicationArgs.add(1, "--server.port=0");
+        applicationArgs.add(2, "--petclinic.security.enable=false");
+        applicationArgs.add(3, "--logging.level.org.springframework=WARN");
+
+        long seed = Long.parseLong(options.get("seed"));
+        int owners = Integer.parseInt(options.get("owners"));
+        double rate = Double.parseDouble(options.get("rate"));
+        Duration warmup = DurationStyle.detectAndParse(options.get("warmup"));
+        Duration duration = DurationStyle.detectAndParse(options.get("duration"));
+
+        // devtools would restart this main method with the arguments of the application
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(PetClinicApplication.class)
+            .run(applicationArgs.toArray(new String[0]))) {
+            DataSource dataSource = context.getBean(DataSource.class);
+            new DataGenerator(seed, owners, Math.max(1, owners / 500)).insert(dataSource);
+            String api = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/petclinic/api";
+            Scenario scenario = Scenario.named(options.get("scenario"), api, data(new JdbcTemplate(dataSource)));
+
+            System.out.printf("%s at %.0f requests/s for %s after a %s warm-up, %d senders%n", scenario.getName(), rate,
+                duration, warmup, Integer.parseInt(options.get("senders")));
+            LoadTest loadTest = new LoadTest(scenario);
+            loadTest.run(seed, rate, warmup, duration, Integer.parseInt(options.get("senders")));
+
+            LoadReport report = new LoadReport(options, loadTest.results.values(), duration);
+            report.print(System.out);
+            Path path = Paths.get(options.get("report"));
+            report.write(path);
+            System.out.println("Report written to " + path.toAbsolutePath());
+            if (!options.get("baseline").isEmpty()) {
+                report.compare(LoadReport.read(Paths.get(options.get("baseline"))), System.out);
+            }
+        }
+    }
+
+    private static Scenario.Data data(JdbcTemplate jdbcTemplate) {
+        int[] ownerIds = jdbcTemplate.queryForList("SELECT id FROM owners ORDER BY id", Integer.class).stream()
+            .mapToInt(Integer::intValue).toArray();
+        int[][] pets = jdbcTemplate.query("SELECT id, owner_id FROM pets ORDER BY id",
+            (rs, row) -> new int[]{rs.getInt(1), rs.getInt(2)}).toArray(new int[0][]);
+        int[] visitIds = jdbcTemplate.queryForList("SELECT id FROM visits ORDER BY id", Integer.class).stream()
+            .mapToInt(Integer::intValue).toArray();
+        String[][] owners = jdbcTemplate.query("SELECT first_name, last_name, address, city FROM owners ORDER BY id",
+            (rs, row) -> new String[]{rs.getString(1), rs.getString(2), rs.getString(3), rs.getString(4)})
+            .toArray(new String[0][]);
+        return new Scenario.Data(ownerIds, pets, visitIds, owners);
+    }
+
+    private void run(long seed, double rate, Duration warmup, Duration duration, int senders) throws InterruptedException {
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+        long measuredFrom = start + warmup.toNanos();
+        long end = measuredFrom + duration.toNanos();
+        AtomicLong next = new AtomicLong();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < senders; i++) {
+            Thread thread = new Thread(() -> {
+                while (true) {
+                    long index = next.getAndIncrement();
+                    long scheduled = start + index * interval;
+                    if (scheduled >= end) {
+                        return;
+                    }
+                    long wait;
+                    while ((wait = scheduled - System.nanoTime()) > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                    Scenario.Request request = this.scenario.request(seed, index);
+                    send(request, scheduled, scheduled >= measuredFrom ? this.results.get(request.endpoint) : null);
+                }
+            }, "load-test-sender-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    private void send(Scenario.Request request, long scheduled, EndpointResult result) {
+        long sent = System.nanoTime();
+        int status;
+        try {
+            status = this.client.send(request.httpRequest, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (IOException ex) {
+            status = -1;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        long done = System.nanoTime();
+        if (result != null) {
+            result.record(status, done - scheduled, done - sent);
+        }
+    }
+
+    /**
+     * The latencies and errors of one endpoint, in microseconds.
+     */
+    static final class EndpointResult {
+
+        private static final long HIGHEST = TimeUnit.MINUTES.toMicros(10);
+
+        private final Scenario.Endpoint endpoint;
+
+        private final Histogram latency = new ConcurrentHistogram(HIGHEST, 3);
+
+        private final Histogram serviceTime = new ConcurrentHistogram(HIGHEST, 3);
+
+        private final LongAdder errors = new LongAdder();
+
+        EndpointResult(Scenario.Endpoint endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        void record(int status, long latencyNanos, long serviceTimeNanos) {
+            if (status < 200 || status >= 300) {
+                this.errors.increment();
+            }
+            if (status > 0) {
+                this.latency.recordValue(Math.min(HIGHEST, TimeUnit.NANOSECONDS.toMicros(latencyNanos)));
+                this.serviceTime.recordValue(Math.min(HIGHEST, TimeUnit.NANOSECONDS.toMicros(serviceTimeNanos)));
+            }
+        }
+
+        String getName() {
+            return this.endpoint.getName();
+        }
+
+        Histogram getLatency() {
+            return this.latency;
+        }
+
+        Histogram getServiceTime() {
+            return this.serviceTime;
+        }
+
+        long getErrors() {
+            return this.errors.sum();
+        }
+    }
+
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.load;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * A weighted mix of REST requests. Each request is built from its index in the run and the seed, so that a scenario
+ * sends the same sequence of requests on every run with the same data, whatever the timing.
+ */
+final class Scenario {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final String VISIT = "{\"date\":\"2023-06-01\",\"description\":\"load test\"}";
+
+    private final String name;
+
+    private final List<Endpoint> endpoints = new ArrayList<>();
+
+    private int totalWeight;
+
+    private Scenario(String name) {
+        this.name = name;
+    }
+
+    String getName() {
+        return this.name;
+    }
+
+    List<Endpoint> getEndpoints() {
+        return Collections.unmodifiableList(this.endpoints);
+    }
+
+    /**
+     * @return the endpoint and request to send as the <code>index</code>th request of the run
+     */
+    Request request(long seed, long index) {
+        Random random = new Random(seed * 1_000_003 + index);
+        int value = random.nextInt(this.totalWeight);
+        for (Endpoint endpoint : this.endpoints) {
+            value -= endpoint.weight;
+            if (value < 0) {
+                return new Request(endpoint, endpoint.request.apply(random));
+            }
+        }
+        throw new IllegalStateException("no endpoint");
+    }
+
+    private Scenario add(String method, String route, int weight, Function<Random, HttpRequest> request) {
+        this.endpoints.add(new Endpoint(method + " " + route, weight, request));
+        this.totalWeight += weight;
+        return this;
+    }
+
+    /**
+     * @param name <code>browse</code>, reads only, or <code>mixed</code>, with a write for about every 6 reads
+     */
+    static Scenario named(String name, String api, Data data) {
+        Scenario scenario = new Scenario(name);
+        scenario.add("GET", "/api/owners?lastName={lastName}", 20, random ->
+                get(api, "/owners?lastName=" + URLEncoder.encode(data.anyLastName(random), StandardCharsets.UTF_8)))
+            .add("GET", "/api/owners/{ownerId}", 25, random ->
+                get(api, "/owners/" + data.anyOwnerId(random)))
+            // GET /api/owners/{ownerId}/pets/{petId} is not implemented (501)
+            .add("GET", "/api/pets/{petId}", 25, random ->
+                get(api, "/pets/" + data.anyPet(random)[0]))
+            .add("GET", "/api/visits/{visitId}", 5, random ->
+                get(api, "/visits/" + data.anyVisitId(random)))
+            .add("GET", "/api/vets", 10, random -> get(api, "/vets"))
+            .add("GET", "/api/owners", 2, random -> get(api, "/owners"))
+            .add("GET", "/api/pets", 2, random -> get(api, "/pets"))
+            .add("GET", "/api/visits", 2, random -> get(api, "/visits"));
+        if (name.equals("mixed")) {
+            scenario.add("POST", "/api/owners/{ownerId}/pets/{petId}/visits", 10, random -> {
+                    int[] pet = data.anyPet(random);
+                    return send(api, "POST", "/owners/" + pet[1] + "/pets/" + pet[0] + "/visits", VISIT);
+                })
+                .add("PUT", "/api/owners/{ownerId}", 5, random ->
+                    send(api, "PUT", "/owners/" + data.anyOwnerId(random), owner(data, random)))
+                .add("POST", "/api/owners", 3, random -> send(api, "POST", "/owners", owner(data, random)));
+        } else if (!name.equals("browse")) {
+            throw new IllegalArgumentException("Unknown scenario " + name + ", use browse or mixed");
+        }
+        return scenario;
+    }
+
+    /**
+     * @return an owner with each field taken from a random owner of the data, so that owner writes keep the
+     * distribution of last names and cities searched by the scenario
+     */
+    private static String owner(Data data, Random random) {
+        return MAPPER.createObjectNode()
+            .put("firstName", data.anyOwner(random)[0])
+            .put("lastName", data.anyLastName(random))
+            .put("address", data.anyOwner(random)[2])
+            .put("city", data.anyOwner(random)[3])
+            .put("telephone", String.format("608555%04d", random.nextInt(10_000)))
+            .toString();
+    }
+
+    private static HttpRequest get(String api, String path) {
+        return HttpRequest.newBuilder(URI.create(api + path)).header("Accept", "application/json").GET().build();
+    }
+
+    private static HttpRequest send(String api, String method, String path, String json) {
+        return HttpRequest.newBuilder(URI.create(api + path))
+            .header("Content-Type", "application/json")
+            .method(method, HttpRequest.BodyPublishers.ofString(json))
+            .build();
+    }
+
+    static final class Endpoint {
+
+        private final String name;
+
+        private final int weight;
+
+        private final Function<Random, HttpRequest> request;
+
+        Endpoint(String name, int weight, Function<Random, HttpRequest> request) {
+            this.name = name;
+            this.weight = weight;
+            this.request = request;
+        }
+
+        String getName() {
+            return this.name;
+        }
+
+        int getWeight() {
+            return this.weight;
+        }
+    }
+
+    static final class Request {
+
+        final Endpoint endpoint;
+
+        final HttpRequest httpRequest;
+
+        Request(Endpoint endpoint, HttpRequest httpRequest) {
+            this.endpoint = endpoint;
+            this.httpRequest = httpRequest;
+        }
+    }
+
+    /**
+     * The ids of the rows in the database when the run starts, and the names and addresses of the owners.
+     */
+    static final class Data {
+
+        private final int[] ownerIds;
+
+        /**
+         * Pet id and owner id pairs.
+         */
+        private final int[][] pets;
+
+        private final int[] visitIds;
+
+        /**
+         * First name, last name, address and city of each owner, so that common names are searched and written more
+         * often.
+         */
+        private final String[][] owners;
+
+        Data(int[] ownerIds, int[][] pets, int[] visitIds, String[][] owners) {
+            this.ownerIds = ownerIds;
+            this.pets = pets;
+            this.visitIds = visitIds;
+            this.owners = owners;
+        }
+
+        int anyOwnerId(Random random) {
+            return this.ownerIds[random.nextInt(this.ownerIds.length)];
+        }
+
+        int[] anyPet(Random random) {
+            return this.pets[random.nextInt(this.pets.length)];
+        }
+
+        int anyVisitId(Random random) {
+            return this.visitIds[random.nextInt(this.visitIds.length)];
+        }
+
+        String[] anyOwner(Random random) {
+            return this.owners[random.nextInt(this.owners.length)];
+        }
+
+        String anyLastName(Random random) {
+            return anyOwner(random)[1];
+        }
+    }
+
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.samples.petclinic.util.AllocationMetrics;
+
+/**
+ * Records the heap allocated by each REST request, per route, as the <code>petclinic.request.allocated</code> metric,
+ * and with <code>petclinic.allocation-metrics.header=true</code> in an <code>X-Allocated-Bytes</code> response header;
+ * see {@link AllocationMetrics}. The filter runs first, so the bytes include the security filters and the
+ * <code>Server-Timing</code> header. Turned off with <code>petclinic.allocation-metrics.enable=false</code>.
+ */
+@Configuration
+@ConditionalOnProperty(name = "petclinic.allocation-metrics.enable", havingValue = "true", matchIfMissing = true)
+public class AllocationMetricsConfig {
+
+    @Bean
+    public AllocationMetrics allocationMetrics(@Value("${petclinic.allocation-metrics.header:false}") boolean header) {
+        return new AllocationMetrics(header);
+    }
+
+    @Bean
+    public FilterRegistrationBean<AllocationMetrics> allocationMetricsRegistration(AllocationMetrics allocationMetrics) {
+        FilterRegistrationBean<AllocationMetrics> registration = new FilterRegistrationBean<>(allocationMetrics);
+        registration.addUrlPatterns("/api/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 5);
+        return registration;
+    }
+
+}
@@ -0,0 +1,402 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.samples.petclinic.service.ClinicService;
+import org.springframework.samples.petclinic.util.CacheInvalidationLog;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Policy;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Local, bounded caches for the data read through <code>ClinicService</code>: all vets, all pet types and all
+ * specialties, with size bound and time to live from <code>petclinic.cache.spec</code>, and owners with their pets and
+ * visits by owner id, from <code>petclinic.cache.owners.spec</code>. The ids of owners and pets that were not found are
+ * cached too, so that repeated lookups of missing ids do not reach the database, in <code>missingOwners</code> and
+ * <code>missingPets</code>. The specifications are in the
+ * <a href="https://github.com/ben-manes/caffeine/wiki/Specification">Caffeine specification</a> format. Besides the
+ * actuator's cache metrics, the <code>cache.hit.ratio</code> gauge reports the hit ratio of each cache.
+ * <p>
+ * Each cache can be tuned by name: <code>petclinic.cache.&lt;name&gt;.spec</code> replaces the specification,
+ * <code>petclinic.cache.&lt;name&gt;.expire-jitter</code> (or <code>petclinic.cache.expire-jitter</code> for all of
+ * them) shortens the time to live of each entry by a random fraction up to the given one, and
+ * <code>petclinic.cache.&lt;name&gt;.refresh-ahead</code> reloads an entry in the background when it is read within
+ * that duration of its expiry, so that a frequently read entry never expires. Reloads run on the
+ * <code>cacheRefreshExecutor</code>, <code>petclinic.cache.refresh-threads</code> threads (2 by default) with a bounded
+ * queue; a reload that does not fit is skipped, and the entry expires as usual.
+ * <p>
+ * Reads inside a read-write transaction go to the database and are not cached, so that they see the transaction's
+ * own writes and can change what they read (as the update endpoints do) without changing the cached instances that
+ * concurrent requests are serving. Evictions happen right away and again after the commit, so reads that start after
+ * the commit see the new data. A concurrent read that loaded the old data before the
+ * commit can still store it after the second eviction: such a stale entry lasts until it expires, so the time to live
+ * bounds how long the caches can lag behind the database.
+ * <p>
+ * With <code>petclinic.cache.invalidation.enable=true</code>, evictions are also sent to the other instances that
+ * share the database, see {@link CacheInvalidationLog}.
+ */
+@Configuration
+// outside the transaction advice and the single-flight aspect, so cache hits skip both
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 2)
+public class CacheConfig {
+
+    private static final Log logger = LogFactory.getLog(CacheConfig.class);
+
+    public static final String VETS = "vets";
+
+    public static final String PET_TYPES = "petTypes";
+
+    public static final String SPECIALTIES = "specialties";
+
+    public static final String OWNERS = "owners";
+
+    public static final String MISSING_OWNERS = "missingOwners";
+
+    public static final String MISSING_PETS = "missingPets";
+
+    @Bean
+    public CacheManager cacheManager(Environment environment, ObjectProvider<CacheInvalidationLog> invalidationLog,
+                                     ObjectProvider<ClinicService> clinicService,
+                                     @Qualifier("cacheRefreshExecutor") Executor cacheRefreshExecutor) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager() {
+            @Override
+            protected Cache adaptCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+                Duration refreshAhead = environment.getProperty("petclinic.cache." + name + ".refresh-ahead", Duration.class);
+                return new EvictEagerlyCacheDecorator(super.adaptCaffeineCache(name, cache), invalidationLog,
+                    refreshAhead != null ? new RefreshAhead(name, cache, refreshAhead,
+                        reloader(name, clinicService), cacheRefreshExecutor) : null);
+            }
+        };
+        // no caches besides the ones registered below
+        cacheManager.setCacheNames(Collections.emptyList());
+        String spec = environment.getProperty("petclinic.cache.spec", "maximumSize=1000,expireAfterWrite=10m,recordStats");
+        double jitter = environment.getProperty("petclinic.cache.expire-jitter", Double.class, 0.0);
+        for (String name : Arrays.asList(VETS, PET_TYPES, SPECIALTIES, OWNERS, MISSING_OWNERS, MISSING_PETS)) {
+            cacheManager.registerCustomCache(name, buildCache(
+                environment.getProperty("petclinic.cache." + name + ".spec", spec),
+                environment.getProperty("petclinic.cache." + name + ".expire-jitter", Double.class, jitter)));
+        }
+        return cacheManager;
+    }
+
+    /**
+     * Runs the refresh-ahead reloads, which block on the database, apart from the common fork join pool.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor cacheRefreshExecutor(@Value("${petclinic.cache.refresh-threads:2}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("cache-refresh-");
+        executor.setDaemon(true);
+        return executor;
+    }
+
+    /**
+     * Builds a cache from a Caffeine specification. With a jitter, the <code>expireAfterWrite</code> of the
+     * specification is replaced by a time to live that is shortened by a random fraction, up to the jitter, per entry.
+     */
+    private static com.github.benmanes.caffeine.cache.Cache<Object, Object> buildCache(String spec, double jitter) {
+        if (jitter <= 0) {
+            return Caffeine.from(spec).build();
+        }
+        Duration timeToLive = null;
+        List<String> otherOptions = new ArrayList<>();
+        for (String option : spec.split(",")) {
+            option = option.trim();
+            if (option.startsWith("expireAfterWrite=")) {
+                timeToLive = DurationStyle.detectAndParse(option.substring("expireAfterWrite=".length()).trim());
+            } else if (!option.isEmpty()) {
+                otherOptions.add(option);
+            }
+        }
+        if (timeToLive == null) {
+            throw new IllegalStateException("An expire jitter needs expireAfterWrite in the cache specification '" + spec + "'");
+        }
+        return Caffeine.from(String.join(",", otherOptions))
+            .expireAfter(new JitteredExpiry(timeToLive.toNanos(), jitter))
+            .build();
+    }
+
+    /**
+     * Runs the <code>ClinicService</code> method whose result is cached under a key of the given cache.
+     */
+    private static Function<Object, Object> reloader(String name, ObjectProvider<ClinicService> clinicService) {
+        switch (name) {
+            case VETS:
+                return key -> clinicService.getObject().findVets();
+            case PET_TYPES:
+                return key -> clinicService.getObject().findAllPetTypes();
+            case SPECIALTIES:
+                return key -> clinicService.getObject().findAllSpecialties();
+            case OWNERS:
+                return key -> clinicService.getObject().findOwnerById((Integer) key);
+            default:
+                throw new IllegalStateException("Cannot refresh the cache " + name);
+        }
+    }
+
+    /**
+     * Shares evictions with the other instances that use the same database; see {@link CacheInvalidationLog}.
+     */
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    @ConditionalOnProperty(name = "petclinic.cache.invalidation.enable", havingValue = "true")
+    public CacheInvalidationLog cacheInvalidationLog(DataSource dataSource, CacheManager cacheManager,
+                                                     @Value("${petclinic.cache.invalidation.node-id:}") String nodeId,
+                                                     @Value("${petclinic.cache.invalidation.poll-interval:1000}") long pollIntervalMillis,
+                                                     @Value("${petclinic.cache.invalidation.gap-timeout:60000}") long gapTimeoutMillis,
+                                                     @Value("${petclinic.cache.invalidation.retention:3600000}") long retentionMillis) {
+        if (nodeId.isEmpty()) {
+            nodeId = UUID.randomUUID().toString();
+        }
+        return new CacheInvalidationLog(dataSource, cacheManager, nodeId, pollIntervalMillis, gapTimeoutMillis, retentionMillis);
+    }
+
+    @Bean
+    public MeterBinder cacheHitRatioMetrics(CacheManager cacheManager) {
+        return registry -> {
+            for (String name : cacheManager.getCacheNames()) {
+                Cache cache = cacheManager.getCache(name);
+                if (cache instanceof TransactionAwareCacheDecorator) {
+                    cache = ((TransactionAwareCacheDecorator) cache).getTargetCache();
+                }
+                if (cache instanceof CaffeineCache) {
+                    Gauge.builder("cache.hit.ratio", ((CaffeineCache) cache).getNativeCache(), nativeCache -> nativeCache.stats().hitRate())
+                        .tag("cache", name)
+                        .description("The ratio of cache requests which were hits")
+                        .register(registry);
+                }
+            }
+        };
+    }
+
+    /**
+     * Defers puts to the end of the transaction, like its superclass, but evicts both right away and after the commit,
+     * and publishes evictions to the {@link CacheInvalidationLog} if there is one. Extending
+     * {@link TransactionAwareCacheDecorator} also lets the actuator cache metrics find the target cache.
+     */
+    private static class EvictEagerlyCacheDecorator extends TransactionAwareCacheDecorator {
+
+        private final ObjectProvider<CacheInvalidationLog> invalidationLog;
+
+        private final RefreshAhead refreshAhead;
+
+        EvictEagerlyCacheDecorator(Cache targetCache, ObjectProvider<CacheInvalidationLog> invalidationLog, RefreshAhead refreshAhead) {
+            super(targetCache);
+            this.invalidationLog = invalidationLog;
+            this.refreshAhead = refreshAhead;
+        }
+
+        @Override
+        public ValueWrapper get(Object key) {
+            if (isReadWriteTransaction()) {
+                return null;
+            }
+            if (this.refreshAhead == null) {
+                return super.get(key);
+            }
+            if (this.refreshAhead.isReloading()) {
+                // a reload must run the method instead of returning the entry it replaces
+                return null;
+            }
+            ValueWrapper value = super.get(key);
+            if (value != null) {
+                this.refreshAhead.refreshIfExpiringSoon(key, value.get());
+            }
+            return value;
+        }
+
+        @Override
+        public void put(Object key, Object value) {
+            // a reload stores its value itself, unless the entry was evicted in the meantime
+            if (!isReadWriteTransaction() && (this.refreshAhead == null || !this.refreshAhead.isReloading())) {
+                super.put(key, value);
+            }
+        }
+
+        private static boolean isReadWriteTransaction() {
+            return TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        }
+
+        @Override
+        public void evict(Object key) {
+            getTargetCache().evict(key);
+            super.evict(key);
+            publish(key);
+        }
+
+        @Override
+        public void clear() {
+            getTargetCache().clear();
+            super.clear();
+            publish(null);
+        }
+
+        private void publish(Object key) {
+            CacheInvalidationLog log = this.invalidationLog.getIfAvailable();
+            if (log != null) {
+                log.publish(getName(), key);
+            }
+        }
+    }
+
+    /**
+     * Reloads an entry in the background when it is read during the last <code>window</code> of its time to live,
+     * while the current value keeps being served. There is at most one reload per key at a time, and its result only
+     * replaces the value it was started for, so an entry evicted or replaced during the reload is left alone.
+     */
+    private static class RefreshAhead {
+
+        private final String name;
+
+        private final com.github.benmanes.caffeine.cache.Cache<Object, Object> cache;
+
+        private final long windowNanos;
+
+        private final Function<Object, Object> reloader;
+
+        private final Set<Object> reloadingKeys = ConcurrentHashMap.newKeySet();
+
+        private final ThreadLocal<Boolean> reloading = new ThreadLocal<>();
+
+        private final Executor executor;
+
+        RefreshAhead(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache, Duration window,
+                     Function<Object, Object> reloader, Executor executor) {
+            if (!cache.policy().expireVariably().isPresent() && !cache.policy().expireAfterWrite().isPresent()) {
+                throw new IllegalStateException("Refresh ahead needs expireAfterWrite in the specification of the cache " + name);
+            }
+            this.name = name;
+            this.cache = cache;
+            this.windowNanos = window.toNanos();
+            this.reloader = reloader;
+            this.executor = executor;
+        }
+
+        boolean isReloading() {
+            return this.reloading.get() != null;
+        }
+
+        void refreshIfExpiringSoon(Object key, Object value) {
+            if (value == null || timeToLiveNanos(key) > this.windowNanos || !this.reloadingKeys.add(key)) {
+                return;
+            }
+            try {
+                this.executor.execute(() -> reload(key, value));
+            } catch (RejectedExecutionException ex) {
+                this.reloadingKeys.remove(key);
+            }
+        }
+
+        private void reload(Object key, Object value) {
+            this.reloading.set(Boolean.TRUE);
+            try {
+                Object reloaded = this.reloader.apply(key);
+                if (reloaded != null) {
+                    this.cache.asMap().computeIfPresent(key, (k, current) -> current == value ? reloaded : current);
+                }
+            } catch (RuntimeException ex) {
+                logger.warn("Could not reload the entry " + key + " of the cache " + this.name, ex);
+            } finally {
+                this.reloading.remove();
+                this.reloadingKeys.remove(key);
+            }
+        }
+
+        private long timeToLiveNanos(Object key) {
+            Policy<Object, Object> policy = this.cache.policy();
+            if (policy.expireVariably().isPresent()) {
+                return policy.expireVariably().get().getExpiresAfter(key, TimeUnit.NANOSECONDS).orElse(0L);
+            }
+            Policy.Expiration<Object, Object> expiration = policy.expireAfterWrite().get();
+            return expiration.getExpiresAfter(TimeUnit.NANOSECONDS) - expiration.ageOf(key, TimeUnit.NANOSECONDS).orElse(0L);
+        }
+    }
+
+    /**
+     * Expires each entry after the time to live, shortened by a random fraction up to the jitter, so that entries
+     * written together do not all expire, and get reloaded, at the same time.
+     */
+    private static class JitteredExpiry implements Expiry<Object, Object> {
+
+        private final long timeToLiveNanos;
+
+        private final double jitter;
+
+        JitteredExpiry(long timeToLiveNanos, double jitter) {
+            this.timeToLiveNanos = timeToLiveNanos;
+            this.jitter = Math.min(jitter, 1.0);
+        }
+
+        @Override
+        public long expireAfterCreate(Object key, Object value, long currentTime) {
+            return this.timeToLiveNanos - (long) (this.timeToLiveNanos * this.jitter * ThreadLocalRandom.current().nextDouble());
+        }
+
+        @Override
+        public long expireAfterUpdate(Object key, Object value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(Object key, Object value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.samples.petclinic.util.ConnectionPoolMetrics;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Exports the saturation of the Hikari connection pool; see {@link ConnectionPoolMetrics}. The pool itself is tuned
+ * per database in the <code>application-&lt;database&gt;.properties</code> files.
+ */
+@Configuration
+@ConditionalOnClass(HikariDataSource.class)
+public class ConnectionPoolConfig {
+
+    @Bean
+    public MeterBinder connectionPoolMetrics(DataSource dataSource) {
+        HikariDataSource pool = DataSourceUnwrapper.unwrap(dataSource, HikariDataSource.class);
+        return pool != null ? new ConnectionPoolMetrics(pool) : registry -> { };
+    }
+
+}
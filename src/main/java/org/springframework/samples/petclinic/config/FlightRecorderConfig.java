@@ -0,0 +1,40 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.samples.petclinic.util.jfr.FlightRecorderAspect;
+
+/**
+ * Emits Java Flight Recorder events for requests, service calls and repository calls; see
+ * {@link FlightRecorderAspect}. Needs a JDK with the <code>jdk.jfr</code> module (11, or 8u262 and later). Turned off
+ * with <code>petclinic.jfr.enable=false</code>.
+ */
+@Configuration
+@ConditionalOnClass(name = "jdk.jfr.Event")
+@ConditionalOnProperty(name = "petclinic.jfr.enable", havingValue = "true", matchIfMissing = true)
+public class FlightRecorderConfig {
+
+    @Bean
+    public FlightRecorderAspect flightRecorderAspect() {
+        return new FlightRecorderAspect();
+    }
+
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.samples.petclinic.util.CallMonitoringAspect;
+
+/**
+ * Records the latency of every repository and service method; see {@link CallMonitoringAspect}. Turned off with
+ * <code>petclinic.monitoring.enable=false</code>.
+ */
+@Configuration
+@ConditionalOnProperty(name = "petclinic.monitoring.enable", havingValue = "true", matchIfMissing = true)
+public class MonitoringConfig {
+
+    @Bean
+    public CallMonitoringAspect callMonitoringAspect() {
+        return new CallMonitoringAspect();
+    }
+
+}
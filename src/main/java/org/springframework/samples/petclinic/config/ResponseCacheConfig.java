@@ -0,0 +1,57 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.samples.petclinic.rest.cache.ReferenceDataResponseCacheFilter;
+
+/**
+ * Serves the listings of vets, pet types and specialties from stored response bodies while the matching
+ * {@link CacheConfig caches} are unchanged; see {@link ReferenceDataResponseCacheFilter}. The filter runs after the
+ * Spring Security filters. Turned off with <code>petclinic.response-cache.enable=false</code>.
+ */
+@Configuration
+@ConditionalOnProperty(name = "petclinic.response-cache.enable", havingValue = "true", matchIfMissing = true)
+public class ResponseCacheConfig {
+
+    @Bean
+    public ReferenceDataResponseCacheFilter referenceDataResponseCacheFilter(CacheManager cacheManager,
+                                                                             @Value("${petclinic.response-cache.maximum-size:1000}") long maximumSize) {
+        Map<String, String> cacheNamesByPath = new LinkedHashMap<>();
+        cacheNamesByPath.put("/api/vets", CacheConfig.VETS);
+        cacheNamesByPath.put("/api/pettypes", CacheConfig.PET_TYPES);
+        cacheNamesByPath.put("/api/specialties", CacheConfig.SPECIALTIES);
+        return new ReferenceDataResponseCacheFilter(cacheManager, cacheNamesByPath, maximumSize);
+    }
+
+    @Bean
+    public FilterRegistrationBean<ReferenceDataResponseCacheFilter> referenceDataResponseCacheFilterRegistration(
+        ReferenceDataResponseCacheFilter filter) {
+        FilterRegistrationBean<ReferenceDataResponseCacheFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.addUrlPatterns("/api/vets", "/api/pettypes", "/api/specialties");
+        return registration;
+    }
+
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.samples.petclinic.util.ServerTiming;
+import org.springframework.samples.petclinic.util.ServerTimingFilter;
+import org.springframework.samples.petclinic.util.ServerTimingMessageConverter;
+import org.springframework.samples.petclinic.util.StatementMetrics;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Adds a <code>Server-Timing</code> header with the database, service, mapping and serialization time to the REST
+ * responses of a sample of the requests (<code>petclinic.server-timing.sample-rate</code>, 5% by default); see
+ * {@link ServerTiming}.
+ * The filter runs before the Spring Security filters, so the total includes the authentication. Turned off with
+ * <code>petclinic.server-timing.enable=false</code>.
+ */
+@Configuration
+@ConditionalOnProperty(name = "petclinic.server-timing.enable", havingValue = "true", matchIfMissing = true)
+public class ServerTimingConfig implements WebMvcConfigurer {
+
+    private final ObjectProvider<ServerTiming> serverTiming;
+
+    public ServerTimingConfig(ObjectProvider<ServerTiming> serverTiming) {
+        this.serverTiming = serverTiming;
+    }
+
+    @Bean
+    public ServerTiming serverTiming(ObjectProvider<StatementMetrics> statementMetrics,
+                                     @Value("${petclinic.server-timing.sample-rate:0.05}") double sampleRate) {
+        return new ServerTiming(statementMetrics.getIfAvailable(), sampleRate);
+    }
+
+    /**
+     * Replaces the JSON converter of Spring Boot.
+     */
+    @Bean
+    public ServerTimingMessageConverter serverTimingMessageConverter(ObjectMapper objectMapper, ServerTiming serverTiming) {
+        return new ServerTimingMessageConverter(objectMapper, serverTiming);
+    }
+
+    @Bean
+    public FilterRegistrationBean<ServerTimingFilter> serverTimingFilterRegistration(ServerTiming serverTiming) {
+        FilterRegistrationBean<ServerTimingFilter> registration = new FilterRegistrationBean<>(new ServerTimingFilter(serverTiming));
+        registration.addUrlPatterns("/api/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // after StatementMetrics, so that it completes first
+        registry.addInterceptor(this.serverTiming.getObject()).order(Ordered.LOWEST_PRECEDENCE);
+    }
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.config;
+
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.samples.petclinic.util.NPlusOneDetector;
+import org.springframework.samples.petclinic.util.NPlusOneDetectorEndpoint;
+import org.springframework.samples.petclinic.util.SlowStatementLog;
+import org.springframework.samples.petclinic.util.SlowStatementLogEndpoint;
+import org.springframework.samples.petclinic.util.StatementMetrics;
+import org.springframework.samples.petclinic.util.StatementMetricsDataSource;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Attributes every SQL statement to the HTTP route and the <code>ClinicService</code> method it ran for (see
+ * {@link StatementMetrics}), and keeps the statements slower than <code>petclinic.slow-statement-log.threshold</code>
+ * in a {@link SlowStatementLog}, and looks for N+1 query patterns in a sample of the requests (see
+ * {@link NPlusOneDetector}). The data source is wrapped in a {@link StatementMetricsDataSource}. Turned off with
+ * <code>petclinic.statement-metrics.enable=false</code>.
+ */
+@Configuration
+@ConditionalOnProperty(name = "petclinic.statement-metrics.enable", havingValue = "true", matchIfMissing = true)
+public class StatementMetricsConfig implements WebMvcConfigurer {
+
+    private final ObjectProvider<StatementMetrics> statementMetrics;
+
+    public StatementMetricsConfig(ObjectProvider<StatementMetrics> statementMetrics) {
+        this.statementMetrics = statementMetrics;
+    }
+
+    @Bean
+    public StatementMetrics statementMetrics(NPlusOneDetector nPlusOneDetector) {
+        return new StatementMetrics(nPlusOneDetector);
+    }
+
+    @Bean
+    public NPlusOneDetector nPlusOneDetector(@Value("${petclinic.n-plus-one.sample-rate:0}") double sampleRate,
+                                             @Value("${petclinic.n-plus-one.threshold:3}") int threshold,
+                                             @Value("${petclinic.n-plus-one.maximum-findings:1000}") long maximumFindings) {
+        return new NPlusOneDetector(sampleRate, threshold, maximumFindings);
+    }
+
+    @Bean
+    public NPlusOneDetectorEndpoint nPlusOneDetectorEndpoint(NPlusOneDetector nPlusOneDetector) {
+        return new NPlusOneDetectorEndpoint(nPlusOneDetector);
+    }
+
+    @Bean
+    public SlowStatementLog slowStatementLog(@Value("${petclinic.slow-statement-log.threshold:0}") Duration threshold,
+                                             @Value("${petclinic.slow-statement-log.size:256}") int size,
+                                             @Value("${petclinic.slow-statement-log.redact-parameters:true}") boolean redactParameters) {
+        return new SlowStatementLog(size, threshold, redactParameters);
+    }
+
+    @Bean
+    public SlowStatementLogEndpoint slowStatementLogEndpoint(SlowStatementLog slowStatementLog) {
+        return new SlowStatementLogEndpoint(slowStatementLog);
+    }
+
+    /**
+     * Static, and resolving {@link StatementMetrics} only when the data source is created, so that neither is created
+     * before the other post processors.
+     */
+    @Bean
+    public static BeanPostProcessor statementMetricsDataSourcePostProcessor(ObjectProvider<StatementMetrics> statementMetrics,
+                                                                            ObjectProvider<SlowStatementLog> slowStatementLog) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource && !(bean instanceof StatementMetricsDataSource)) {
+                    return new StatementMetricsDataSource((DataSource) bean, statementMetrics.getObject(), slowStatementLog.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(this.statementMetrics.getObject());
+    }
+
+}
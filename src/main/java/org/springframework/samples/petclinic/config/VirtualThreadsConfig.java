@@ -0,0 +1,75 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.samples.petclinic.util.ConcurrencyLimitingAspect;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Runs every request, and so every blocking repository call, on its own virtual thread instead of the Tomcat worker
+ * pool. Requires Java 21 or later; the application fails to start on older runtimes when this mode is enabled.
+ * <p>
+ * Concurrent service calls are limited to the size of the connection pool (or to
+ * <code>petclinic.virtual-threads.max-concurrent-db-calls</code>), so a burst of requests waits in a fair queue
+ * instead of piling up on the pool.
+ */
+@Configuration
+@ConditionalOnProperty(name = "petclinic.virtual-threads.enable", havingValue = "true")
+public class VirtualThreadsConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService virtualThreadExecutor() {
+        try {
+            // looked up reflectively because the application is compiled for Java 8
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException ex) {
+            throw new IllegalStateException("petclinic.virtual-threads.enable=true requires Java 21 or later, but this is Java "
+                + System.getProperty("java.version"));
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException("Could not create the virtual thread executor", ex);
+        }
+    }
+
+    @Bean
+    public WebServerFactoryCustomizer<TomcatServletWebServerFactory> virtualThreadsTomcatCustomizer(ExecutorService virtualThreadExecutor) {
+        return factory -> factory.addProtocolHandlerCustomizers(protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor));
+    }
+
+    @Bean
+    public ConcurrencyLimitingAspect concurrencyLimitingAspect(DataSource dataSource,
+                                                               @Value("${petclinic.virtual-threads.max-concurrent-db-calls:0}") int maxConcurrentDbCalls) {
+        if (maxConcurrentDbCalls <= 0) {
+            HikariDataSource pool = DataSourceUnwrapper.unwrap(dataSource, HikariDataSource.class);
+            maxConcurrentDbCalls = pool != null ? pool.getMaximumPoolSize() : 10;
+        }
+        return new ConcurrencyLimitingAspect(maxConcurrentDbCalls);
+    }
+
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.samples.petclinic.service.ClinicService;
+import org.springframework.samples.petclinic.util.StartupWarmUp;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Warms the caches, the connection pool and the data access code up before the application reports ready; see
+ * {@link StartupWarmUp}. Turned on with <code>petclinic.warm-up.enable=true</code>.
+ */
+@Configuration
+@ConditionalOnProperty(name = "petclinic.warm-up.enable", havingValue = "true")
+public class WarmUpConfig {
+
+    @Bean
+    public StartupWarmUp startupWarmUp(ClinicService clinicService, TransactionTemplate transactionTemplate,
+                                       DataSource dataSource, MeterRegistry meterRegistry,
+                                       @Value("${petclinic.warm-up.connections:0}") int connections,
+                                       @Value("${petclinic.warm-up.sample-size:10}") int sampleSize,
+                                       @Value("${petclinic.warm-up.iterations:10}") int iterations,
+                                       @Value("${petclinic.warm-up.writes:false}") boolean writes) {
+        if (connections <= 0) {
+            // the connections the pool keeps open anyway
+            connections = 1;
+            HikariDataSource pool = DataSourceUnwrapper.unwrap(dataSource, HikariDataSource.class);
+            if (pool != null) {
+                connections = pool.getMinimumIdle() > 0 ? pool.getMinimumIdle() : pool.getMaximumPoolSize();
+            }
+        }
+        return new StartupWarmUp(clinicService, transactionTemplate, dataSource, meterRegistry, connections, sampleSize,
+            iterations, writes);
+    }
+
+}
@@ -20,6 +20,8 @@ public interface OwnerMapper {
 
     Owner toOwner(OwnerFieldsDto ownerDto);
 
+    List<Owner> toOwnersFromFields(List<OwnerFieldsDto> ownerFieldsDtos);
+
     List<OwnerDto> toOwnerDtoCollection(Collection<Owner> ownerCollection);
 
     Collection<Owner> toOwners(Collection<OwnerDto> ownerDtos);
@@ -2,6 +2,7 @@ package org.springframework.samples.petclinic.mapper;
 
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
+import org.springframework.samples.petclinic.rest.dto.PetBatchItemDto;
 import org.springframework.samples.petclinic.rest.dto.PetDto;
 import org.springframework.samples.petclinic.rest.dto.PetFieldsDto;
 import org.springframework.samples.petclinic.rest.dto.PetTypeDto;
@@ -9,6 +10,7 @@ import org.springframework.samples.petclinic.model.Pet;
 import org.springframework.samples.petclinic.model.PetType;
 
 import java.util.Collection;
+import java.util.List;
 
 /**
  * Map Pet & PetDto using mapstruct
@@ -27,6 +29,11 @@ public interface PetMapper {
 
     Pet toPet(PetFieldsDto petFieldsDto);
 
+    @Mapping(source = "ownerId", target = "owner.id")
+    Pet toPet(PetBatchItemDto petBatchItemDto);
+
+    List<Pet> toPetsFromBatch(List<PetBatchItemDto> petBatchItemDtos);
+
     PetTypeDto toPetTypeDto(PetType petType);
 
     PetType toPetType(PetTypeDto petTypeDto);
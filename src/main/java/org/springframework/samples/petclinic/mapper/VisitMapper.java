@@ -2,11 +2,13 @@ package org.springframework.samples.petclinic.mapper;
 
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
+import org.springframework.samples.petclinic.rest.dto.VisitBatchItemDto;
 import org.springframework.samples.petclinic.rest.dto.VisitDto;
 import org.springframework.samples.petclinic.model.Visit;
 import org.springframework.samples.petclinic.rest.dto.VisitFieldsDto;
 
 import java.util.Collection;
+import java.util.List;
 
 /**
  * Map Visit & VisitDto using mapstruct
@@ -17,6 +19,11 @@ public interface VisitMapper {
 
     Visit toVisit(VisitFieldsDto visitFieldsDto);
 
+    @Mapping(source = "petId", target = "pet.id")
+    Visit toVisit(VisitBatchItemDto visitBatchItemDto);
+
+    List<Visit> toVisitsFromBatch(List<VisitBatchItemDto> visitBatchItemDtos);
+
     @Mapping(source = "pet.id", target = "petId")
     VisitDto toVisitDto(Visit visit);
 
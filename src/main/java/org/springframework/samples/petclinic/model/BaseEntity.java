@@ -15,10 +15,14 @@
  */
 package org.springframework.samples.petclinic.model;
 
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicLong;
+
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.MappedSuperclass;
+import javax.persistence.Transient;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
@@ -30,6 +34,30 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
  */
 @MappedSuperclass
 public class BaseEntity {
+
+    /**
+     * Orders entities by an instance number given when they are created, which never changes, unlike the id that is
+     * set when an entity is saved. Breaks the ties of the comparators of sorted associations, so that distinct entities
+     * never compare as equal and an entity stays where it was sorted.
+     */
+    static final Comparator<BaseEntity> BY_INSTANCE = Comparator.comparingLong(BaseEntity::getInstance);
+
+    /**
+     * Instance numbers are handed out to each thread in blocks of this size, so that creating an entity does not
+     * update a shared counter.
+     */
+    private static final int INSTANCE_BLOCK = 1024;
+
+    private static final AtomicLong INSTANCE_BLOCKS = new AtomicLong();
+
+    /**
+     * The next instance number of the thread, and the end of its block.
+     */
+    private static final ThreadLocal<long[]> INSTANCES = ThreadLocal.withInitial(() -> new long[2]);
+
+    @Transient
+    private final long instance = nextInstance();
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     protected Integer id;
@@ -46,4 +74,17 @@ public class BaseEntity {
         return this.id == null;
     }
 
+    long getInstance() {
+        return this.instance;
+    }
+
+    private static long nextInstance() {
+        long[] instances = INSTANCES.get();
+        if (instances[0] == instances[1]) {
+            instances[0] = INSTANCE_BLOCKS.getAndIncrement() * INSTANCE_BLOCK;
+            instances[1] = instances[0] + INSTANCE_BLOCK;
+        }
+        return instances[0]++;
+    }
+
 }
@@ -15,6 +15,8 @@
  */
 package org.springframework.samples.petclinic.model;
 
+import java.util.Comparator;
+
 import javax.persistence.Column;
 import javax.persistence.MappedSuperclass;
 
@@ -48,4 +50,20 @@ public class NamedEntity extends BaseEntity {
         return this.getName();
     }
 
+    /**
+     * Orders named entities by name, ignoring case. Entities with the same name are ordered by instance, which does not
+     * change when they are saved, so that a sorted set can hold them both.
+     */
+    public static class NameComparator implements Comparator<NamedEntity> {
+
+        private static final Comparator<NamedEntity> ORDER = Comparator
+            .comparing(NamedEntity::getName, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER))
+            .thenComparing(BY_INSTANCE);
+
+        @Override
+        public int compare(NamedEntity left, NamedEntity right) {
+            return ORDER.compare(left, right);
+        }
+    }
+
 }
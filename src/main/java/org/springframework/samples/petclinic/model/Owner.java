@@ -15,8 +15,7 @@
  */
 package org.springframework.samples.petclinic.model;
 
-import org.springframework.beans.support.MutableSortDefinition;
-import org.springframework.beans.support.PropertyComparator;
+import org.hibernate.annotations.SortComparator;
 import org.springframework.core.style.ToStringCreator;
 
 import javax.persistence.*;
@@ -50,7 +49,8 @@ public class Owner extends Person {
     private String telephone;
 
     @OneToMany(cascade = CascadeType.ALL, mappedBy = "owner", fetch = FetchType.EAGER)
-    private Set<Pet> pets;
+    @SortComparator(NamedEntity.NameComparator.class)
+    private SortedSet<Pet> pets;
 
 
     public String getAddress() {
@@ -77,25 +77,27 @@ public class Owner extends Person {
         this.telephone = telephone;
     }
 
-    protected Set<Pet> getPetsInternal() {
+    protected SortedSet<Pet> getPetsInternal() {
         if (this.pets == null) {
-            this.pets = new HashSet<>();
+            this.pets = new TreeSet<>(new NamedEntity.NameComparator());
         }
         return this.pets;
     }
 
-    protected void setPetsInternal(Set<Pet> pets) {
+    protected void setPetsInternal(SortedSet<Pet> pets) {
         this.pets = pets;
     }
 
+    /**
+     * Return the pets of this owner sorted by name, as a read-only view that is neither copied nor re-sorted.
+     */
     public List<Pet> getPets() {
-        List<Pet> sortedPets = new ArrayList<>(getPetsInternal());
-        PropertyComparator.sort(sortedPets, new MutableSortDefinition("name", true, true));
-        return Collections.unmodifiableList(sortedPets);
+        return new SortedSetListView<>(getPetsInternal());
     }
 
     public void setPets(List<Pet> pets) {
-        this.pets = new HashSet<>(pets);
+        this.pets = new TreeSet<>(new NamedEntity.NameComparator());
+        this.pets.addAll(pets);
     }
 
     public void addPet(Pet pet) {
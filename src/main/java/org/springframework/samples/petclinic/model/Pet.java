@@ -15,8 +15,7 @@
  */
 package org.springframework.samples.petclinic.model;
 
-import org.springframework.beans.support.MutableSortDefinition;
-import org.springframework.beans.support.PropertyComparator;
+import org.hibernate.annotations.SortComparator;
 import org.springframework.format.annotation.DateTimeFormat;
 
 import javax.persistence.*;
@@ -47,7 +46,18 @@ public class Pet extends NamedEntity {
     private Owner owner;
 
     @OneToMany(cascade = CascadeType.ALL, mappedBy = "pet", fetch = FetchType.EAGER)
-    private Set<Visit> visits;
+    @SortComparator(Visit.DateComparator.class)
+    private SortedSet<Visit> visits;
+
+    @Override
+    public void setName(String name) {
+        // the owner keeps its pets sorted by name, so take this pet out while the name changes
+        boolean sorted = this.owner != null && this.owner.getPetsInternal().remove(this);
+        super.setName(name);
+        if (sorted) {
+            this.owner.getPetsInternal().add(this);
+        }
+    }
 
     public LocalDate getBirthDate() {
         return this.birthDate;
@@ -73,25 +83,27 @@ public class Pet extends NamedEntity {
         this.owner = owner;
     }
 
-    protected Set<Visit> getVisitsInternal() {
+    protected SortedSet<Visit> getVisitsInternal() {
         if (this.visits == null) {
-            this.visits = new HashSet<>();
+            this.visits = new TreeSet<>(new Visit.DateComparator());
         }
         return this.visits;
     }
 
-    protected void setVisitsInternal(Set<Visit> visits) {
+    protected void setVisitsInternal(SortedSet<Visit> visits) {
         this.visits = visits;
     }
 
+    /**
+     * Return the visits of this pet, most recent first, as a read-only view that is neither copied nor re-sorted.
+     */
     public List<Visit> getVisits() {
-        List<Visit> sortedVisits = new ArrayList<>(getVisitsInternal());
-        PropertyComparator.sort(sortedVisits, new MutableSortDefinition("date", false, false));
-        return Collections.unmodifiableList(sortedVisits);
+        return new SortedSetListView<>(getVisitsInternal());
     }
 
     public void setVisits(List<Visit> visits) {
-        this.visits = new HashSet<>(visits);
+        this.visits = new TreeSet<>(new Visit.DateComparator());
+        this.visits.addAll(visits);
     }
 
     public void addVisit(Visit visit) {
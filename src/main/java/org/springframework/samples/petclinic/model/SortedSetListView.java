@@ -0,0 +1,59 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.model;
+
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.SortedSet;
+
+/**
+ * Read-only <code>List</code> view of a sorted set, in the order of the set. Nothing is copied: the view reflects later
+ * changes to the set. Iterating is as cheap as iterating the set; <code>get(int)</code> walks the set from the start.
+ *
+ * @param <E> the type of the elements
+ */
+final class SortedSetListView<E> extends AbstractList<E> {
+
+    private final SortedSet<E> set;
+
+    SortedSetListView(SortedSet<E> set) {
+        this.set = set;
+    }
+
+    @Override
+    public E get(int index) {
+        if (index < 0 || index >= this.set.size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.set.size());
+        }
+        Iterator<E> iterator = this.set.iterator();
+        for (int i = 0; i < index; i++) {
+            iterator.next();
+        }
+        return iterator.next();
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return Collections.unmodifiableSortedSet(this.set).iterator();
+    }
+
+    @Override
+    public int size() {
+        return this.set.size();
+    }
+
+}
@@ -16,8 +16,7 @@
 package org.springframework.samples.petclinic.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
-import org.springframework.beans.support.MutableSortDefinition;
-import org.springframework.beans.support.PropertyComparator;
+import org.hibernate.annotations.SortComparator;
 
 import javax.persistence.*;
 import javax.xml.bind.annotation.XmlElement;
@@ -38,29 +37,32 @@ public class Vet extends Person {
     @ManyToMany(fetch = FetchType.EAGER)
     @JoinTable(name = "vet_specialties", joinColumns = @JoinColumn(name = "vet_id"),
         inverseJoinColumns = @JoinColumn(name = "specialty_id"))
-    private Set<Specialty> specialties;
+    @SortComparator(NamedEntity.NameComparator.class)
+    private SortedSet<Specialty> specialties;
 
     @JsonIgnore
-    protected Set<Specialty> getSpecialtiesInternal() {
+    protected SortedSet<Specialty> getSpecialtiesInternal() {
         if (this.specialties == null) {
-            this.specialties = new HashSet<>();
+            this.specialties = new TreeSet<>(new NamedEntity.NameComparator());
         }
         return this.specialties;
     }
 
-    protected void setSpecialtiesInternal(Set<Specialty> specialties) {
+    protected void setSpecialtiesInternal(SortedSet<Specialty> specialties) {
         this.specialties = specialties;
     }
 
+    /**
+     * Return the specialties of this vet sorted by name, as a read-only view that is neither copied nor re-sorted.
+     */
     @XmlElement
     public List<Specialty> getSpecialties() {
-        List<Specialty> sortedSpecs = new ArrayList<>(getSpecialtiesInternal());
-        PropertyComparator.sort(sortedSpecs, new MutableSortDefinition("name", true, true));
-        return Collections.unmodifiableList(sortedSpecs);
+        return new SortedSetListView<>(getSpecialtiesInternal());
     }
 
     public void setSpecialties(List<Specialty> specialties) {
-        this.specialties = new HashSet<>(specialties);
+        this.specialties = new TreeSet<>(new NamedEntity.NameComparator());
+        this.specialties.addAll(specialties);
     }
 
     @JsonIgnore
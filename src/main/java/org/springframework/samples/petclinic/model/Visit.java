@@ -20,6 +20,7 @@ import org.springframework.format.annotation.DateTimeFormat;
 import javax.persistence.*;
 import javax.validation.constraints.NotEmpty;
 import java.time.LocalDate;
+import java.util.Comparator;
 
 /**
  * Simple JavaBean domain object representing a visit.
@@ -74,7 +75,12 @@ public class Visit extends BaseEntity {
      * @param date New value of property date.
      */
     public void setDate(LocalDate date) {
+        // the pet keeps its visits sorted by date, so take this visit out while the date changes
+        boolean sorted = this.pet != null && this.pet.getVisitsInternal().remove(this);
         this.date = date;
+        if (sorted) {
+            this.pet.getVisitsInternal().add(this);
+        }
     }
 
     /**
@@ -113,4 +119,20 @@ public class Visit extends BaseEntity {
         this.pet = pet;
     }
 
+    /**
+     * Orders visits by date, most recent first. Visits on the same date are ordered by instance, which does not change
+     * when they are saved, so that a sorted set can hold them all.
+     */
+    public static class DateComparator implements Comparator<Visit> {
+
+        private static final Comparator<Visit> ORDER = Comparator
+            .comparing(Visit::getDate, Comparator.nullsLast(Comparator.<LocalDate>reverseOrder()))
+            .thenComparing(BY_INSTANCE);
+
+        @Override
+        public int compare(Visit left, Visit right) {
+            return ORDER.compare(left, right);
+        }
+    }
+
 }
@@ -16,6 +16,7 @@
 package org.springframework.samples.petclinic.repository;
 
 import java.util.Collection;
+import java.util.Optional;
 
 import org.springframework.dao.DataAccessException;
 import org.springframework.samples.petclinic.model.BaseEntity;
@@ -47,10 +48,18 @@ public interface OwnerRepository {
      * Retrieve an <code>Owner</code> from the data store by id.
      *
      * @param id the id to search for
-     * @return the <code>Owner</code> if found
-     * @throws org.springframework.dao.DataRetrievalFailureException if not found
+     * @return the <code>Owner</code>, or an empty <code>Optional</code> if not found
      */
-    Owner findById(int id) throws DataAccessException;
+    Optional<Owner> findById(int id) throws DataAccessException;
+
+    /**
+     * Retrieve <code>Owner</code>s from the data store by id, with a single query for all of them.
+     *
+     * @param ids the ids to search for
+     * @return a <code>Collection</code> of the <code>Owner</code>s found, ordered by id (ids that are not found are
+     * skipped)
+     */
+    Collection<Owner> findByIds(Collection<Integer> ids) throws DataAccessException;
 
 
     /**
@@ -60,6 +69,15 @@ public interface OwnerRepository {
      * @see BaseEntity#isNew
      */
     void save(Owner owner) throws DataAccessException;
+
+    /**
+     * Save a <code>Collection</code> of <code>Owner</code>s to the data store, inserting new owners as a batch where
+     * the implementation supports it.
+     *
+     * @param owners the <code>Owner</code>s to save
+     * @see BaseEntity#isNew
+     */
+    void saveAll(Collection<Owner> owners) throws DataAccessException;
     
     /**
      * Retrieve <code>Owner</code>s from the data store, returning all owners 
@@ -17,6 +17,7 @@ package org.springframework.samples.petclinic.repository;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.dao.DataAccessException;
 import org.springframework.samples.petclinic.model.BaseEntity;
@@ -46,10 +47,27 @@ public interface PetRepository {
      * Retrieve a <code>Pet</code> from the data store by id.
      *
      * @param id the id to search for
-     * @return the <code>Pet</code> if found
-     * @throws org.springframework.dao.DataRetrievalFailureException if not found
+     * @return the <code>Pet</code>, or an empty <code>Optional</code> if not found
      */
-    Pet findById(int id) throws DataAccessException;
+    Optional<Pet> findById(int id) throws DataAccessException;
+
+    /**
+     * Retrieve <code>Pet</code>s from the data store by id, with a single query for all of them.
+     *
+     * @param ids the ids to search for
+     * @return a <code>Collection</code> of the <code>Pet</code>s found, ordered by id (ids that are not found are
+     * skipped)
+     */
+    Collection<Pet> findByIds(Collection<Integer> ids) throws DataAccessException;
+
+    /**
+     * Retrieve the ids of the owners of <code>Pet</code>s from the data store, with a single query that loads no pet
+     * or owner.
+     *
+     * @param ids the pet ids to search for
+     * @return the ids of the owners of the <code>Pet</code>s found, without duplicates
+     */
+    Collection<Integer> findOwnerIds(Collection<Integer> ids) throws DataAccessException;
 
     /**
      * Save a <code>Pet</code> to the data store, either inserting or updating it.
@@ -58,6 +76,15 @@ public interface PetRepository {
      * @see BaseEntity#isNew
      */
     void save(Pet pet) throws DataAccessException;
+
+    /**
+     * Save a <code>Collection</code> of <code>Pet</code>s to the data store, inserting new pets as a batch where
+     * the implementation supports it.
+     *
+     * @param pets the <code>Pet</code>s to save
+     * @see BaseEntity#isNew
+     */
+    void saveAll(Collection<Pet> pets) throws DataAccessException;
     
     /**
      * Retrieve <code>Pet</code>s from the data store, returning all owners 
@@ -17,6 +17,7 @@
 package org.springframework.samples.petclinic.repository;
 
 import java.util.Collection;
+import java.util.Optional;
 
 import org.springframework.dao.DataAccessException;
 import org.springframework.samples.petclinic.model.PetType;
@@ -28,7 +29,7 @@ import org.springframework.samples.petclinic.model.PetType;
 
 public interface PetTypeRepository {
 	
-	PetType findById(int id) throws DataAccessException;
+	Optional<PetType> findById(int id) throws DataAccessException;
 	
 	Collection<PetType> findAll() throws DataAccessException;
 
@@ -17,6 +17,7 @@
 package org.springframework.samples.petclinic.repository;
 
 import java.util.Collection;
+import java.util.Optional;
 
 import org.springframework.dao.DataAccessException;
 import org.springframework.samples.petclinic.model.Specialty;
@@ -28,7 +29,7 @@ import org.springframework.samples.petclinic.model.Specialty;
 
 public interface SpecialtyRepository {
 	
-	Specialty findById(int id) throws DataAccessException;
+	Optional<Specialty> findById(int id) throws DataAccessException;
 	
 	Collection<Specialty> findAll() throws DataAccessException;
 	
@@ -16,6 +16,7 @@
 package org.springframework.samples.petclinic.repository;
 
 import java.util.Collection;
+import java.util.Optional;
 
 import org.springframework.dao.DataAccessException;
 import org.springframework.samples.petclinic.model.Vet;
@@ -39,7 +40,13 @@ public interface VetRepository {
      */
     Collection<Vet> findAll() throws DataAccessException;
     
-	Vet findById(int id) throws DataAccessException;
+    /**
+     * Retrieve a <code>Vet</code> from the data store by id.
+     *
+     * @param id the id to search for
+     * @return the <code>Vet</code>, or an empty <code>Optional</code> if not found
+     */
+    Optional<Vet> findById(int id) throws DataAccessException;
 
 	void save(Vet vet) throws DataAccessException;
 	
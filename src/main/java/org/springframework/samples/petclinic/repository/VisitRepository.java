@@ -17,6 +17,7 @@ package org.springframework.samples.petclinic.repository;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.dao.DataAccessException;
 import org.springframework.samples.petclinic.model.BaseEntity;
@@ -42,9 +43,24 @@ public interface VisitRepository {
      */
     void save(Visit visit) throws DataAccessException;
 
+    /**
+     * Save a <code>Collection</code> of <code>Visit</code>s to the data store, inserting new visits as a batch where
+     * the implementation supports it.
+     *
+     * @param visits the <code>Visit</code>s to save
+     * @see BaseEntity#isNew
+     */
+    void saveAll(Collection<Visit> visits) throws DataAccessException;
+
     List<Visit> findByPetId(Integer petId);
     
-	Visit findById(int id) throws DataAccessException;
+    /**
+     * Retrieve a <code>Visit</code> from the data store by id.
+     *
+     * @param id the id to search for
+     * @return the <code>Visit</code>, or an empty <code>Optional</code> if not found
+     */
+    Optional<Visit> findById(int id) throws DataAccessException;
 	
 	Collection<Visit> findAll() throws DataAccessException;
 
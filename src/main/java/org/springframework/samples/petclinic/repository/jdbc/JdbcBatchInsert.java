@@ -0,0 +1,86 @@
+/*
+ * Copyright 2002-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.repository.jdbc;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.SqlTypeValue;
+import org.springframework.jdbc.core.StatementCreatorUtils;
+import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+
+/**
+ * Batch counterpart of {@link SimpleJdbcInsert#executeAndReturnKey}: inserts many rows into one table with a single
+ * JDBC batch and returns the generated keys in row order.
+ */
+class JdbcBatchInsert {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final String sql;
+
+    private final String generatedKeyColumn;
+
+    JdbcBatchInsert(DataSource dataSource, String tableName, String generatedKeyColumn, String... columnNames) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.generatedKeyColumn = generatedKeyColumn;
+        this.sql = "INSERT INTO " + tableName + " (" + String.join(", ", columnNames) + ") VALUES ("
+            + String.join(", ", Collections.nCopies(columnNames.length, "?")) + ")";
+    }
+
+    /**
+     * Insert the given rows and return the generated keys.
+     *
+     * @param rows the column values of each row, in the column order given to the constructor
+     * @return the generated key of each row, in the order of <code>rows</code>
+     */
+    List<Number> executeAndReturnKeys(List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return this.jdbcTemplate.execute((ConnectionCallback<List<Number>>) con -> {
+            try (PreparedStatement ps = con.prepareStatement(this.sql, new String[]{this.generatedKeyColumn})) {
+                for (Object[] row : rows) {
+                    for (int i = 0; i < row.length; i++) {
+                        StatementCreatorUtils.setParameterValue(ps, i + 1, SqlTypeValue.TYPE_UNKNOWN, row[i]);
+                    }
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                List<Number> keys = new ArrayList<>(rows.size());
+                try (ResultSet generatedKeys = ps.getGeneratedKeys()) {
+                    while (generatedKeys.next()) {
+                        keys.add((Number) generatedKeys.getObject(1));
+                    }
+                }
+                if (keys.size() != rows.size()) {
+                    throw new DataRetrievalFailureException(
+                        "Batch insert into '" + this.sql + "' returned " + keys.size() + " keys for " + rows.size() + " rows");
+                }
+                return keys;
+            }
+        });
+    }
+
+}
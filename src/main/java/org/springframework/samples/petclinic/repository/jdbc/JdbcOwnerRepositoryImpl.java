@@ -18,12 +18,11 @@ package org.springframework.samples.petclinic.repository.jdbc;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataAccessException;
-import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.support.DataAccessUtils;
 import org.springframework.jdbc.core.BeanPropertyRowMapper;
 import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
-import org.springframework.orm.ObjectRetrievalFailureException;
 import org.springframework.samples.petclinic.model.Owner;
 import org.springframework.samples.petclinic.model.Pet;
 import org.springframework.samples.petclinic.model.PetType;
@@ -34,10 +33,12 @@ import org.springframework.stereotype.Repository;
 
 import javax.sql.DataSource;
 import javax.transaction.Transactional;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * A simple JDBC-based implementation of the {@link OwnerRepository} interface.
@@ -59,6 +60,8 @@ public class JdbcOwnerRepositoryImpl implements OwnerRepository {
 
     private SimpleJdbcInsert insertOwner;
 
+    private JdbcBatchInsert batchInsertOwners;
+
     @Autowired
     public JdbcOwnerRepositoryImpl(DataSource dataSource) {
 
@@ -66,6 +69,9 @@ public class JdbcOwnerRepositoryImpl implements OwnerRepository {
             .withTableName("owners")
             .usingGeneratedKeyColumns("id");
 
+        this.batchInsertOwners = new JdbcBatchInsert(dataSource, "owners", "id",
+            "first_name", "last_name", "address", "city", "telephone");
+
         this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
 
     }
@@ -94,21 +100,39 @@ public class JdbcOwnerRepositoryImpl implements OwnerRepository {
      * for the corresponding owner, if not already loaded.
      */
     @Override
-    public Owner findById(int id) throws DataAccessException {
-        Owner owner;
-        try {
-            Map<String, Object> params = new HashMap<>();
-            params.put("id", id);
-            owner = this.namedParameterJdbcTemplate.queryForObject(
-                "SELECT id, first_name, last_name, address, city, telephone FROM owners WHERE id= :id",
-                params,
-                BeanPropertyRowMapper.newInstance(Owner.class)
-            );
-        } catch (EmptyResultDataAccessException ex) {
-            throw new ObjectRetrievalFailureException(Owner.class, id);
+    public Optional<Owner> findById(int id) throws DataAccessException {
+        Map<String, Object> params = new HashMap<>();
+        params.put("id", id);
+        Owner owner = DataAccessUtils.singleResult(this.namedParameterJdbcTemplate.query(
+            "SELECT id, first_name, last_name, address, city, telephone FROM owners WHERE id= :id",
+            params,
+            BeanPropertyRowMapper.newInstance(Owner.class)
+        ));
+        if (owner == null) {
+            return Optional.empty();
         }
         loadPetsAndVisits(owner);
-        return owner;
+        return Optional.of(owner);
+    }
+
+    /**
+     * Loads the {@link Owner Owners} with the supplied <code>ids</code>; also loads the {@link Pet Pets} and
+     * {@link Visit Visits} for the corresponding owners, if not already loaded.
+     */
+    @Override
+    public Collection<Owner> findByIds(Collection<Integer> ids) throws DataAccessException {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<String, Object> params = new HashMap<>();
+        params.put("ids", ids);
+        List<Owner> owners = this.namedParameterJdbcTemplate.query(
+            "SELECT id, first_name, last_name, address, city, telephone FROM owners WHERE id IN (:ids) ORDER BY id",
+            params,
+            BeanPropertyRowMapper.newInstance(Owner.class)
+        );
+        loadOwnersPetsAndVisits(owners);
+        return owners;
     }
 
     public void loadPetsAndVisits(final Owner owner) {
@@ -140,6 +164,25 @@ public class JdbcOwnerRepositoryImpl implements OwnerRepository {
         }
     }
 
+    @Override
+    public void saveAll(Collection<Owner> owners) throws DataAccessException {
+        List<Owner> newOwners = new ArrayList<>();
+        List<Object[]> rows = new ArrayList<>();
+        for (Owner owner : owners) {
+            if (owner.isNew()) {
+                newOwners.add(owner);
+                rows.add(new Object[]{owner.getFirstName(), owner.getLastName(), owner.getAddress(),
+                    owner.getCity(), owner.getTelephone()});
+            } else {
+                save(owner);
+            }
+        }
+        List<Number> newKeys = this.batchInsertOwners.executeAndReturnKeys(rows);
+        for (int i = 0; i < newOwners.size(); i++) {
+            newOwners.get(i).setId(newKeys.get(i).intValue());
+        }
+    }
+
     public Collection<PetType> getPetTypes() throws DataAccessException {
         return this.namedParameterJdbcTemplate.query(
             "SELECT id, name FROM types ORDER BY name", new HashMap<String, Object>(),
@@ -147,14 +190,31 @@ public class JdbcOwnerRepositoryImpl implements OwnerRepository {
     }
 
     /**
-     * Loads the {@link Pet} and {@link Visit} data for the supplied {@link List} of {@link Owner Owners}.
+     * Loads the {@link Pet} and {@link Visit} data for the supplied {@link List} of {@link Owner Owners}, with one
+     * query for all of them.
      *
      * @param owners the list of owners for whom the pet and visit data should be loaded
      * @see #loadPetsAndVisits(Owner)
      */
     private void loadOwnersPetsAndVisits(List<Owner> owners) {
+        if (owners.isEmpty()) {
+            return;
+        }
+        Map<Integer, Owner> ownersById = new HashMap<>();
         for (Owner owner : owners) {
-            loadPetsAndVisits(owner);
+            ownersById.put(owner.getId(), owner);
+        }
+        Map<String, Object> params = new HashMap<>();
+        params.put("ids", ownersById.keySet());
+        final List<JdbcPet> pets = this.namedParameterJdbcTemplate.query(
+            "SELECT pets.id as pets_id, name, birth_date, type_id, owner_id, visits.id as visit_id, visit_date, description, visits.pet_id as visits_pet_id FROM pets LEFT OUTER JOIN visits ON pets.id = visits.pet_id WHERE owner_id IN (:ids) ORDER BY pets.id",
+            params,
+            new JdbcPetVisitExtractor()
+        );
+        Collection<PetType> petTypes = getPetTypes();
+        for (JdbcPet pet : pets) {
+            pet.setType(EntityUtils.getById(petTypes, PetType.class, pet.getTypeId()));
+            ownersById.get(pet.getOwnerId()).addPet(pet);
         }
     }
     
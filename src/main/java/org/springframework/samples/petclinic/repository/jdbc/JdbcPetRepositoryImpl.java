@@ -17,21 +17,24 @@ package org.springframework.samples.petclinic.repository.jdbc;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 import javax.sql.DataSource;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataAccessException;
-import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.support.DataAccessUtils;
 import org.springframework.jdbc.core.BeanPropertyRowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
-import org.springframework.orm.ObjectRetrievalFailureException;
 import org.springframework.samples.petclinic.model.Owner;
 import org.springframework.samples.petclinic.model.Pet;
 import org.springframework.samples.petclinic.model.PetType;
@@ -59,6 +62,8 @@ public class JdbcPetRepositoryImpl implements PetRepository {
 
     private SimpleJdbcInsert insertPet;
 
+    private JdbcBatchInsert batchInsertPets;
+
     private OwnerRepository ownerRepository;
 
     private VisitRepository visitRepository;
@@ -74,6 +79,9 @@ public class JdbcPetRepositoryImpl implements PetRepository {
             .withTableName("pets")
             .usingGeneratedKeyColumns("id");
 
+        this.batchInsertPets = new JdbcBatchInsert(dataSource, "pets", "id",
+            "name", "birth_date", "type_id", "owner_id");
+
         this.ownerRepository = ownerRepository;
         this.visitRepository = visitRepository;
     }
@@ -88,17 +96,49 @@ public class JdbcPetRepositoryImpl implements PetRepository {
     }
 
     @Override
-    public Pet findById(int id) throws DataAccessException {
-        Integer ownerId;
-        try {
-            Map<String, Object> params = new HashMap<>();
-            params.put("id", id);
-            ownerId = this.namedParameterJdbcTemplate.queryForObject("SELECT owner_id FROM pets WHERE id=:id", params, Integer.class);
-        } catch (EmptyResultDataAccessException ex) {
-            throw new ObjectRetrievalFailureException(Pet.class, id);
+    public Optional<Pet> findById(int id) throws DataAccessException {
+        Map<String, Object> params = new HashMap<>();
+        params.put("id", id);
+        Integer ownerId = DataAccessUtils.singleResult(
+            this.namedParameterJdbcTemplate.queryForList("SELECT owner_id FROM pets WHERE id=:id", params, Integer.class));
+        if (ownerId == null) {
+            return Optional.empty();
+        }
+        return this.ownerRepository.findById(ownerId)
+            .map(owner -> EntityUtils.getById(owner.getPets(), Pet.class, id));
+    }
+
+    @Override
+    public Collection<Pet> findByIds(Collection<Integer> ids) throws DataAccessException {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
         }
-        Owner owner = this.ownerRepository.findById(ownerId);
-        return EntityUtils.getById(owner.getPets(), Pet.class, id);
+        Map<String, Object> params = new HashMap<>();
+        params.put("ids", ids);
+        List<Integer> ownerIds = this.namedParameterJdbcTemplate.queryForList(
+            "SELECT DISTINCT owner_id FROM pets WHERE id IN (:ids)", params, Integer.class);
+        Set<Integer> petIds = new HashSet<>(ids);
+        List<Pet> pets = new ArrayList<>();
+        for (Owner owner : this.ownerRepository.findByIds(ownerIds)) {
+            for (Pet pet : owner.getPets()) {
+                if (petIds.contains(pet.getId())) {
+                    pets.add(pet);
+                }
+            }
+        }
+        pets.sort(Comparator.comparing(Pet::getId));
+        return pets;
+    }
+
+    @Override
+    public Collection<Integer> findOwnerIds(Collection<Integer> ids) throws DataAccessException {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<String, Object> params = new HashMap<>();
+        params.put("ids", ids);
+        return this.namedParameterJdbcTemplate.queryForList(
+            "SELECT DISTINCT owner_id FROM pets WHERE id IN (:ids)", params, Integer.class);
     }
 
     @Override
@@ -115,6 +155,24 @@ public class JdbcPetRepositoryImpl implements PetRepository {
         }
     }
 
+    @Override
+    public void saveAll(Collection<Pet> pets) throws DataAccessException {
+        List<Pet> newPets = new ArrayList<>();
+        List<Object[]> rows = new ArrayList<>();
+        for (Pet pet : pets) {
+            if (pet.isNew()) {
+                newPets.add(pet);
+                rows.add(new Object[]{pet.getName(), pet.getBirthDate(), pet.getType().getId(), pet.getOwner().getId()});
+            } else {
+                save(pet);
+            }
+        }
+        List<Number> newKeys = this.batchInsertPets.executeAndReturnKeys(rows);
+        for (int i = 0; i < newPets.size(); i++) {
+            newPets.get(i).setId(newKeys.get(i).intValue());
+        }
+    }
+
     /**
      * Creates a {@link MapSqlParameterSource} based on data values from the supplied {@link Pet} instance.
      */
@@ -21,18 +21,18 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 import javax.sql.DataSource;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataAccessException;
-import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.support.DataAccessUtils;
 import org.springframework.jdbc.core.BeanPropertyRowMapper;
 import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
-import org.springframework.orm.ObjectRetrievalFailureException;
 import org.springframework.samples.petclinic.model.Pet;
 import org.springframework.samples.petclinic.model.PetType;
 import org.springframework.samples.petclinic.model.Visit;
@@ -61,19 +61,13 @@ public class JdbcPetTypeRepositoryImpl implements PetTypeRepository {
 	}
 
 	@Override
-	public PetType findById(int id) {
-		PetType petType;
-        try {
-            Map<String, Object> params = new HashMap<>();
-            params.put("id", id);
-            petType = this.namedParameterJdbcTemplate.queryForObject(
-                "SELECT id, name FROM types WHERE id= :id",
-                params,
-                BeanPropertyRowMapper.newInstance(PetType.class));
-        } catch (EmptyResultDataAccessException ex) {
-            throw new ObjectRetrievalFailureException(PetType.class, id);
-        }
-        return petType;
+	public Optional<PetType> findById(int id) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("id", id);
+        return Optional.ofNullable(DataAccessUtils.singleResult(this.namedParameterJdbcTemplate.query(
+            "SELECT id, name FROM types WHERE id= :id",
+            params,
+            BeanPropertyRowMapper.newInstance(PetType.class))));
 	}
 
 	@Override
@@ -19,18 +19,18 @@ package org.springframework.samples.petclinic.repository.jdbc;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 
 import javax.sql.DataSource;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataAccessException;
-import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.support.DataAccessUtils;
 import org.springframework.jdbc.core.BeanPropertyRowMapper;
 import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
-import org.springframework.orm.ObjectRetrievalFailureException;
 import org.springframework.samples.petclinic.model.Specialty;
 import org.springframework.samples.petclinic.repository.SpecialtyRepository;
 import org.springframework.stereotype.Repository;
@@ -57,19 +57,13 @@ public class JdbcSpecialtyRepositoryImpl implements SpecialtyRepository {
 	}
 
 	@Override
-	public Specialty findById(int id) {
-		Specialty specialty;
-        try {
-            Map<String, Object> params = new HashMap<>();
-            params.put("id", id);
-            specialty = this.namedParameterJdbcTemplate.queryForObject(
-                "SELECT id, name FROM specialties WHERE id= :id",
-                params,
-                BeanPropertyRowMapper.newInstance(Specialty.class));
-        } catch (EmptyResultDataAccessException ex) {
-            throw new ObjectRetrievalFailureException(Specialty.class, id);
-        }
-        return specialty;
+	public Optional<Specialty> findById(int id) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("id", id);
+        return Optional.ofNullable(DataAccessUtils.singleResult(this.namedParameterJdbcTemplate.query(
+            "SELECT id, name FROM specialties WHERE id= :id",
+            params,
+            BeanPropertyRowMapper.newInstance(Specialty.class))));
 	}
 
 	@Override
@@ -2,13 +2,14 @@ package org.springframework.samples.petclinic.repository.jdbc;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 
 import javax.sql.DataSource;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataAccessException;
-import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.support.DataAccessUtils;
 import org.springframework.jdbc.core.BeanPropertyRowMapper;
 import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
@@ -36,22 +37,20 @@ public class JdbcUserRepositoryImpl implements UserRepository {
 
         BeanPropertySqlParameterSource parameterSource = new BeanPropertySqlParameterSource(user);
 
-        try {
-            getByUsername(user.getUsername());
+        if (getByUsername(user.getUsername()).isPresent()) {
             this.namedParameterJdbcTemplate.update("UPDATE users SET password=:password, enabled=:enabled WHERE username=:username", parameterSource);
-        } catch (EmptyResultDataAccessException e) {
+        } else {
             this.insertUser.execute(parameterSource);
-        } finally {
-            updateUserRoles(user);
         }
+        updateUserRoles(user);
     }
 
-    private User getByUsername(String username) {
+    private Optional<User> getByUsername(String username) {
 
         Map<String, Object> params = new HashMap<>();
         params.put("username", username);
-        return this.namedParameterJdbcTemplate.queryForObject("SELECT * FROM users WHERE username=:username",
-            params, BeanPropertyRowMapper.newInstance(User.class));
+        return Optional.ofNullable(DataAccessUtils.singleResult(this.namedParameterJdbcTemplate.query("SELECT * FROM users WHERE username=:username",
+            params, BeanPropertyRowMapper.newInstance(User.class))));
     }
 
     private void updateUserRoles(User user) {
@@ -22,19 +22,19 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 import javax.sql.DataSource;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataAccessException;
-import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.support.DataAccessUtils;
 import org.springframework.jdbc.core.BeanPropertyRowMapper;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
-import org.springframework.orm.ObjectRetrievalFailureException;
 import org.springframework.samples.petclinic.model.Specialty;
 import org.springframework.samples.petclinic.model.Vet;
 import org.springframework.samples.petclinic.repository.VetRepository;
@@ -104,37 +104,34 @@ public class JdbcVetRepositoryImpl implements VetRepository {
     }
     
 	@Override
-	public Vet findById(int id) throws DataAccessException {
-		Vet vet;
-		try {
-			Map<String, Object> vet_params = new HashMap<>();
-			vet_params.put("id", id);
-			vet = this.namedParameterJdbcTemplate.queryForObject(
-					"SELECT id, first_name, last_name FROM vets WHERE id= :id",
-					vet_params,
-					BeanPropertyRowMapper.newInstance(Vet.class));
-
-			final List<Specialty> specialties = this.namedParameterJdbcTemplate.query(
-					"SELECT id, name FROM specialties", vet_params, BeanPropertyRowMapper.newInstance(Specialty.class));
+	public Optional<Vet> findById(int id) throws DataAccessException {
+		Map<String, Object> vet_params = new HashMap<>();
+		vet_params.put("id", id);
+		Vet vet = DataAccessUtils.singleResult(this.namedParameterJdbcTemplate.query(
+				"SELECT id, first_name, last_name FROM vets WHERE id= :id",
+				vet_params,
+				BeanPropertyRowMapper.newInstance(Vet.class)));
+		if (vet == null) {
+			return Optional.empty();
+		}
 
-			final List<Integer> vetSpecialtiesIds = this.namedParameterJdbcTemplate.query(
-					"SELECT specialty_id FROM vet_specialties WHERE vet_id=:id",
-					vet_params,
-					new BeanPropertyRowMapper<Integer>() {
-						@Override
-						public Integer mapRow(ResultSet rs, int row) throws SQLException {
-							return rs.getInt(1);
-						}
-					});
-			for (int specialtyId : vetSpecialtiesIds) {
-				Specialty specialty = EntityUtils.getById(specialties, Specialty.class, specialtyId);
-				vet.addSpecialty(specialty);
-			}
+		final List<Specialty> specialties = this.namedParameterJdbcTemplate.query(
+				"SELECT id, name FROM specialties", vet_params, BeanPropertyRowMapper.newInstance(Specialty.class));
 
-		} catch (EmptyResultDataAccessException ex) {
-			throw new ObjectRetrievalFailureException(Vet.class, id);
+		final List<Integer> vetSpecialtiesIds = this.namedParameterJdbcTemplate.query(
+				"SELECT specialty_id FROM vet_specialties WHERE vet_id=:id",
+				vet_params,
+				new BeanPropertyRowMapper<Integer>() {
+					@Override
+					public Integer mapRow(ResultSet rs, int row) throws SQLException {
+						return rs.getInt(1);
+					}
+				});
+		for (int specialtyId : vetSpecialtiesIds) {
+			Specialty specialty = EntityUtils.getById(specialties, Specialty.class, specialtyId);
+			vet.addSpecialty(specialty);
 		}
-		return vet;
+		return Optional.of(vet);
 	}
 
 	@Override
@@ -18,13 +18,12 @@ package org.springframework.samples.petclinic.repository.jdbc;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataAccessException;
-import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.support.DataAccessUtils;
 import org.springframework.jdbc.core.BeanPropertyRowMapper;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
-import org.springframework.orm.ObjectRetrievalFailureException;
 import org.springframework.samples.petclinic.model.Owner;
 import org.springframework.samples.petclinic.model.PetType;
 import org.springframework.samples.petclinic.model.Visit;
@@ -53,6 +52,7 @@ import java.util.*;
 public class JdbcVisitRepositoryImpl implements VisitRepository {
 
     protected SimpleJdbcInsert insertVisit;
+    private JdbcBatchInsert batchInsertVisits;
     private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
 
     @Autowired
@@ -62,6 +62,9 @@ public class JdbcVisitRepositoryImpl implements VisitRepository {
         this.insertVisit = new SimpleJdbcInsert(dataSource)
             .withTableName("visits")
             .usingGeneratedKeyColumns("id");
+
+        this.batchInsertVisits = new JdbcBatchInsert(dataSource, "visits", "id",
+            "visit_date", "description", "pet_id");
     }
 
 
@@ -97,19 +100,13 @@ public class JdbcVisitRepositoryImpl implements VisitRepository {
     }
 
     @Override
-    public Visit findById(int id) throws DataAccessException {
-        Visit visit;
-        try {
-            Map<String, Object> params = new HashMap<>();
-            params.put("id", id);
-            visit = this.namedParameterJdbcTemplate.queryForObject(
-                "SELECT id as visit_id, visits.pet_id as pets_id, visit_date, description FROM visits WHERE id= :id",
-                params,
-                new JdbcVisitRowMapperExt());
-        } catch (EmptyResultDataAccessException ex) {
-            throw new ObjectRetrievalFailureException(Visit.class, id);
-        }
-        return visit;
+    public Optional<Visit> findById(int id) throws DataAccessException {
+        Map<String, Object> params = new HashMap<>();
+        params.put("id", id);
+        return Optional.ofNullable(DataAccessUtils.singleResult(this.namedParameterJdbcTemplate.query(
+            "SELECT id as visit_id, visits.pet_id as pets_id, visit_date, description FROM visits WHERE id= :id",
+            params,
+            new JdbcVisitRowMapperExt())));
     }
 
     @Override
@@ -132,6 +129,24 @@ public class JdbcVisitRepositoryImpl implements VisitRepository {
         }
     }
 
+    @Override
+    public void saveAll(Collection<Visit> visits) throws DataAccessException {
+        List<Visit> newVisits = new ArrayList<>();
+        List<Object[]> rows = new ArrayList<>();
+        for (Visit visit : visits) {
+            if (visit.isNew()) {
+                newVisits.add(visit);
+                rows.add(new Object[]{visit.getDate(), visit.getDescription(), visit.getPet().getId()});
+            } else {
+                save(visit);
+            }
+        }
+        List<Number> newKeys = this.batchInsertVisits.executeAndReturnKeys(rows);
+        for (int i = 0; i < newVisits.size(); i++) {
+            newVisits.get(i).setId(newKeys.get(i).intValue());
+        }
+    }
+
     @Override
     public void delete(Visit visit) throws DataAccessException {
         Map<String, Object> params = new HashMap<>();
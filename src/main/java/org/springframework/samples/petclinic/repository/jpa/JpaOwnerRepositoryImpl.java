@@ -15,7 +15,9 @@
  */
 package org.springframework.samples.petclinic.repository.jpa;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Optional;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
@@ -62,12 +64,26 @@ public class JpaOwnerRepositoryImpl implements OwnerRepository {
     }
 
     @Override
-    public Owner findById(int id) {
+    @SuppressWarnings("unchecked")
+    public Optional<Owner> findById(int id) {
         // using 'join fetch' because a single query should load both owners and pets
         // using 'left join fetch' because it might happen that an owner does not have pets yet
         Query query = this.em.createQuery("SELECT owner FROM Owner owner left join fetch owner.pets WHERE owner.id =:id");
         query.setParameter("id", id);
-        return (Owner) query.getSingleResult();
+        // getResultList rather than getSingleResult, so that a missing owner does not cost an exception
+        return query.getResultList().stream().findFirst();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Collection<Owner> findByIds(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        // fetching the visits as well, so that loading them eagerly does not issue one query per pet
+        Query query = this.em.createQuery("SELECT DISTINCT owner FROM Owner owner left join fetch owner.pets pet left join fetch pet.visits WHERE owner.id IN :ids ORDER BY owner.id");
+        query.setParameter("ids", ids);
+        return query.getResultList();
     }
 
 
@@ -81,6 +97,13 @@ public class JpaOwnerRepositoryImpl implements OwnerRepository {
 
     }
 
+    @Override
+    public void saveAll(Collection<Owner> owners) {
+        for (Owner owner : owners) {
+            save(owner);
+        }
+    }
+
 	@SuppressWarnings("unchecked")
 	@Override
 	public Collection<Owner> findAll() throws DataAccessException {
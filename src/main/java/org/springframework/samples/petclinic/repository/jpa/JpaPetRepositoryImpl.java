@@ -15,8 +15,10 @@
  */
 package org.springframework.samples.petclinic.repository.jpa;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
@@ -51,8 +53,31 @@ public class JpaPetRepositoryImpl implements PetRepository {
     }
 
     @Override
-    public Pet findById(int id) {
-        return this.em.find(Pet.class, id);
+    public Optional<Pet> findById(int id) {
+        return Optional.ofNullable(this.em.find(Pet.class, id));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Collection<Pet> findByIds(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        // the owner is loaded with all its pets and their visits, as em.find does, but in the same query
+        return this.em.createQuery("SELECT DISTINCT pet FROM Pet pet join fetch pet.owner owner left join fetch owner.pets ownerPet left join fetch ownerPet.visits WHERE pet.id IN :ids ORDER BY pet.id")
+            .setParameter("ids", ids)
+            .getResultList();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Collection<Integer> findOwnerIds(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return this.em.createQuery("SELECT DISTINCT pet.owner.id FROM Pet pet WHERE pet.id IN :ids")
+            .setParameter("ids", ids)
+            .getResultList();
     }
 
     @Override
@@ -63,6 +88,13 @@ public class JpaPetRepositoryImpl implements PetRepository {
             this.em.merge(pet);
         }
     }
+
+    @Override
+    public void saveAll(Collection<Pet> pets) {
+        for (Pet pet : pets) {
+            save(pet);
+        }
+    }
     
 	@SuppressWarnings("unchecked")
 	@Override
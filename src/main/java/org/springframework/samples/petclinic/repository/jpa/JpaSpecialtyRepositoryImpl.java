@@ -17,6 +17,7 @@
 package org.springframework.samples.petclinic.repository.jpa;
 
 import java.util.Collection;
+import java.util.Optional;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
@@ -40,8 +41,8 @@ public class JpaSpecialtyRepositoryImpl implements SpecialtyRepository {
     private EntityManager em;
 
 	@Override
-	public Specialty findById(int id) {
-		return this.em.find(Specialty.class, id);
+	public Optional<Specialty> findById(int id) {
+		return Optional.ofNullable(this.em.find(Specialty.class, id));
 	}
 
 	@SuppressWarnings("unchecked")
@@ -17,6 +17,7 @@ package org.springframework.samples.petclinic.repository.jpa;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
@@ -56,6 +57,13 @@ public class JpaVisitRepositoryImpl implements VisitRepository {
         }
     }
 
+    @Override
+    public void saveAll(Collection<Visit> visits) {
+        for (Visit visit : visits) {
+            save(visit);
+        }
+    }
+
 
     @Override
     @SuppressWarnings("unchecked")
@@ -66,8 +74,8 @@ public class JpaVisitRepositoryImpl implements VisitRepository {
     }
     
 	@Override
-	public Visit findById(int id) throws DataAccessException {
-		return this.em.find(Visit.class, id);
+	public Optional<Visit> findById(int id) throws DataAccessException {
+		return Optional.ofNullable(this.em.find(Visit.class, id));
 	}
 
 	@SuppressWarnings("unchecked")
@@ -16,6 +16,9 @@
 
 package org.springframework.samples.petclinic.repository.springdatajpa;
 
+import java.util.Collection;
+import java.util.Optional;
+
 import org.springframework.context.annotation.Profile;
 import org.springframework.samples.petclinic.model.Pet;
 
@@ -27,6 +30,10 @@ import org.springframework.samples.petclinic.model.Pet;
 @Profile("spring-data-jpa")
 public interface PetRepositoryOverride {
 	
+	Optional<Pet> findById(int id);
+
 	void delete(Pet pet);
 
+	void saveAll(Collection<Pet> pets);
+
 }
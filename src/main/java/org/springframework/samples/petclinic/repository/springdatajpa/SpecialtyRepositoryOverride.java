@@ -16,6 +16,8 @@
 
 package org.springframework.samples.petclinic.repository.springdatajpa;
 
+import java.util.Optional;
+
 import org.springframework.context.annotation.Profile;
 import org.springframework.samples.petclinic.model.Specialty;
 
@@ -27,6 +29,8 @@ import org.springframework.samples.petclinic.model.Specialty;
 @Profile("spring-data-jpa")
 public interface SpecialtyRepositoryOverride {
 	
+	Optional<Specialty> findById(int id);
+
 	void delete(Specialty specialty);
 
 }
@@ -32,13 +32,13 @@ import org.springframework.samples.petclinic.repository.OwnerRepository;
  */
 
 @Profile("spring-data-jpa")
-public interface SpringDataOwnerRepository extends OwnerRepository, Repository<Owner, Integer> {
+public interface SpringDataOwnerRepository extends OwnerRepository, Repository<Owner, Integer>, OwnerRepositoryOverride {
 
     @Override
     @Query("SELECT DISTINCT owner FROM Owner owner left join fetch owner.pets WHERE owner.lastName LIKE :lastName%")
     Collection<Owner> findByLastName(@Param("lastName") String lastName);
 
     @Override
-    @Query("SELECT owner FROM Owner owner left join fetch owner.pets WHERE owner.id =:id")
-    Owner findById(@Param("id") int id);
+    @Query("SELECT DISTINCT owner FROM Owner owner left join fetch owner.pets pet left join fetch pet.visits WHERE owner.id IN :ids ORDER BY owner.id")
+    Collection<Owner> findByIds(@Param("ids") Collection<Integer> ids);
 }
@@ -15,12 +15,14 @@
  */
 package org.springframework.samples.petclinic.repository.springdatajpa;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataAccessException;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.samples.petclinic.model.Pet;
 import org.springframework.samples.petclinic.model.PetType;
 import org.springframework.samples.petclinic.repository.PetRepository;
@@ -38,4 +40,12 @@ public interface SpringDataPetRepository extends PetRepository, Repository<Pet,
     @Override
     @Query("SELECT ptype FROM PetType ptype ORDER BY ptype.name")
     List<PetType> findPetTypes() throws DataAccessException;
+
+    @Override
+    @Query("SELECT DISTINCT pet FROM Pet pet join fetch pet.owner owner left join fetch owner.pets ownerPet left join fetch ownerPet.visits WHERE pet.id IN :ids ORDER BY pet.id")
+    Collection<Pet> findByIds(@Param("ids") Collection<Integer> ids);
+
+    @Override
+    @Query("SELECT DISTINCT pet.owner.id FROM Pet pet WHERE pet.id IN :ids")
+    Collection<Integer> findOwnerIds(@Param("ids") Collection<Integer> ids);
 }
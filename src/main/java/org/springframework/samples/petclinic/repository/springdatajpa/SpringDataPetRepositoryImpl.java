@@ -16,6 +16,9 @@
 
 package org.springframework.samples.petclinic.repository.springdatajpa;
 
+import java.util.Collection;
+import java.util.Optional;
+
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 
@@ -33,6 +36,11 @@ public class SpringDataPetRepositoryImpl implements PetRepositoryOverride {
 	@PersistenceContext
     private EntityManager em;
 
+	@Override
+	public Optional<Pet> findById(int id) {
+		return Optional.ofNullable(this.em.find(Pet.class, id));
+	}
+
 	@Override
 	public void delete(Pet pet) {
 		String petId = pet.getId().toString();
@@ -43,4 +51,15 @@ public class SpringDataPetRepositoryImpl implements PetRepositoryOverride {
         }
 	}
 
+	@Override
+	public void saveAll(Collection<Pet> pets) {
+		for (Pet pet : pets) {
+			if (pet.isNew()) {
+				this.em.persist(pet);
+			} else {
+				this.em.merge(pet);
+			}
+		}
+	}
+
 }
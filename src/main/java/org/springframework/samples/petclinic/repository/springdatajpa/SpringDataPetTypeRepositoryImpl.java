@@ -24,6 +24,7 @@ import org.springframework.samples.petclinic.model.Visit;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * @author Vitaliy Fedoriv
@@ -36,6 +37,11 @@ public class SpringDataPetTypeRepositoryImpl implements PetTypeRepositoryOverrid
 	@PersistenceContext
     private EntityManager em;
 
+	@Override
+	public Optional<PetType> findById(int id) {
+		return Optional.ofNullable(this.em.find(PetType.class, id));
+	}
+
 	@SuppressWarnings("unchecked")
 	@Override
 	public void delete(PetType petType) {
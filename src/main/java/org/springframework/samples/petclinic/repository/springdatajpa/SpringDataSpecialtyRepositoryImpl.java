@@ -16,6 +16,8 @@
 
 package org.springframework.samples.petclinic.repository.springdatajpa;
 
+import java.util.Optional;
+
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 
@@ -33,6 +35,11 @@ public class SpringDataSpecialtyRepositoryImpl implements SpecialtyRepositoryOve
 	@PersistenceContext
     private EntityManager em;
 
+	@Override
+	public Optional<Specialty> findById(int id) {
+		return Optional.ofNullable(this.em.find(Specialty.class, id));
+	}
+
 	@Override
 	public void delete(Specialty specialty) {
         this.em.remove(this.em.contains(specialty) ? specialty : this.em.merge(specialty));
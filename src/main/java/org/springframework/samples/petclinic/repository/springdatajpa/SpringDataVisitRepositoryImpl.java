@@ -16,6 +16,9 @@
 
 package org.springframework.samples.petclinic.repository.springdatajpa;
 
+import java.util.Collection;
+import java.util.Optional;
+
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 
@@ -34,6 +37,11 @@ public class SpringDataVisitRepositoryImpl implements VisitRepositoryOverride {
 	@PersistenceContext
     private EntityManager em;
 
+	@Override
+	public Optional<Visit> findById(int id) {
+		return Optional.ofNullable(this.em.find(Visit.class, id));
+	}
+
 	@Override
 	public void delete(Visit visit) throws DataAccessException {
 		String visitId = visit.getId().toString();
@@ -43,5 +51,16 @@ public class SpringDataVisitRepositoryImpl implements VisitRepositoryOverride {
         }
 	}
 
+	@Override
+	public void saveAll(Collection<Visit> visits) {
+		for (Visit visit : visits) {
+			if (visit.isNew()) {
+				this.em.persist(visit);
+			} else {
+				this.em.merge(visit);
+			}
+		}
+	}
+
 
 }
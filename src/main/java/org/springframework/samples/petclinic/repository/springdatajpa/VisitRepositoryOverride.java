@@ -16,6 +16,9 @@
 
 package org.springframework.samples.petclinic.repository.springdatajpa;
 
+import java.util.Collection;
+import java.util.Optional;
+
 import org.springframework.context.annotation.Profile;
 import org.springframework.samples.petclinic.model.Visit;
 
@@ -27,6 +30,10 @@ import org.springframework.samples.petclinic.model.Visit;
 @Profile("spring-data-jpa")
 public interface VisitRepositoryOverride {
 	
+	Optional<Visit> findById(int id);
+
 	void delete(Visit visit);
 
+	void saveAll(Collection<Visit> visits);
+
 }
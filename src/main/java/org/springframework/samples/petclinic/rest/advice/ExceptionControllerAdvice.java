@@ -18,10 +18,13 @@ package org.springframework.samples.petclinic.rest.advice;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.samples.petclinic.rest.controller.BatchItemResults;
 import org.springframework.samples.petclinic.rest.controller.BindingErrorsResponse;
+import org.springframework.samples.petclinic.rest.dto.BatchItemResultDto;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -30,6 +33,9 @@ import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.context.request.WebRequest;
 
+import javax.validation.ConstraintViolationException;
+import java.util.List;
+
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
 
 /**
@@ -39,13 +45,25 @@ import static org.springframework.http.HttpStatus.BAD_REQUEST;
 @ControllerAdvice
 public class ExceptionControllerAdvice {
 
+    private final ObjectWriter errorInfoWriter;
+
+    private final ObjectWriter bindingErrorsWriter;
+
+    /**
+     * @param objectMapper the application's mapper; the writers derived from it are built once and shared by all
+     *                     error responses
+     */
+    public ExceptionControllerAdvice(ObjectMapper objectMapper) {
+        this.errorInfoWriter = objectMapper.writerFor(ErrorInfo.class);
+        this.bindingErrorsWriter = BindingErrorsResponse.writer(objectMapper);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<String> exception(Exception e) {
-        ObjectMapper mapper = new ObjectMapper();
         ErrorInfo errorInfo = new ErrorInfo(e);
         String respJSONstring = "{}";
         try {
-            respJSONstring = mapper.writeValueAsString(errorInfo);
+            respJSONstring = errorInfoWriter.writeValueAsString(errorInfo);
         } catch (JsonProcessingException e1) {
             e1.printStackTrace();
         }
@@ -68,12 +86,27 @@ public class ExceptionControllerAdvice {
         HttpHeaders headers = new HttpHeaders();
         if (bindingResult.hasErrors()) {
             errors.addAllErrors(bindingResult);
-            headers.add("errors", errors.toJSON());
+            headers.add("errors", errors.toJSON(bindingErrorsWriter));
         }
         return new ResponseEntity<>(headers, HttpStatus.BAD_REQUEST);
     }
 
-    private class ErrorInfo {
+    /**
+     * Handles exception thrown by Bean Validation on the items of a batch request body
+     *
+     * @param ex the thrown exception
+     * @return one result per invalid item, or the generic error response if the violations are not about batch items
+     */
+    @ExceptionHandler(ConstraintViolationException.class)
+    public ResponseEntity<?> handleConstraintViolationException(ConstraintViolationException ex) {
+        List<BatchItemResultDto> invalidItems = BatchItemResults.invalidItems(ex);
+        if (invalidItems.isEmpty()) {
+            return exception(ex);
+        }
+        return new ResponseEntity<>(invalidItems, HttpStatus.BAD_REQUEST);
+    }
+
+    private static class ErrorInfo {
         public final String className;
         public final String exMessage;
 
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.rest.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.UrlPathHelper;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Stores the encoded bodies of the reference data listings (all vets, pet types or specialties) and writes them
+ * directly on later requests, without mapping or serializing the data again.
+ * <p/>
+ * A stored response belongs to the value of the <code>ClinicService</code> cache it was rendered from. It is served
+ * only while that cache still holds the same value, so every write that evicts the service cache also invalidates the
+ * stored responses. Responses are stored per path, <code>Accept</code> header, gzip or identity encoding and set of
+ * granted authorities: the controllers check roles, which this filter skips, so a response is only served to callers
+ * with the same authorities as a caller that was allowed to see it. Cross-origin requests always reach the controllers,
+ * which add the CORS headers.
+ * <p/>
+ * Stored responses carry a strong <code>ETag</code>, and a matching <code>If-None-Match</code> gets a 304.
+ */
+@ManagedResource("petclinic:type=ReferenceDataResponseCache")
+public class ReferenceDataResponseCacheFilter extends OncePerRequestFilter {
+
+    private final CacheManager cacheManager;
+
+    private final Map<String, String> cacheNamesByPath;
+
+    private final com.github.benmanes.caffeine.cache.Cache<List<Object>, StoredResponse> responses;
+
+    private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+
+    /**
+     * @param cacheNamesByPath the cache of the service method behind each path, relative to the context path
+     */
+    public ReferenceDataResponseCacheFilter(CacheManager cacheManager, Map<String, String> cacheNamesByPath, long maximumSize) {
+        this.cacheManager = cacheManager;
+        this.cacheNamesByPath = cacheNamesByPath;
+        this.responses = Caffeine.newBuilder().maximumSize(maximumSize).recordStats().build();
+    }
+
+    @ManagedAttribute
+    public long getHits() {
+        return this.responses.stats().hitCount();
+    }
+
+    @ManagedAttribute
+    public long getSize() {
+        return this.responses.estimatedSize();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"GET".equals(request.getMethod()) || request.getHeader(HttpHeaders.ORIGIN) != null
+            || !this.cacheNamesByPath.containsKey(this.urlPathHelper.getPathWithinApplication(request));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        String path = this.urlPathHelper.getPathWithinApplication(request);
+        Cache source = this.cacheManager.getCache(this.cacheNamesByPath.get(path));
+        boolean gzip = acceptsGzip(request);
+        List<Object> key = Arrays.asList(path, request.getHeader(HttpHeaders.ACCEPT), gzip, authorities());
+
+        Cache.ValueWrapper before = source.get(SimpleKey.EMPTY);
+        StoredResponse stored = this.responses.getIfPresent(key);
+        if (stored != null && before != null && stored.source == before.get()) {
+            write(stored, request, response);
+            return;
+        }
+
+        ContentCachingResponseWrapper rendered = new ContentCachingResponseWrapper(response);
+        filterChain.doFilter(request, rendered);
+        Cache.ValueWrapper after = source.get(SimpleKey.EMPTY);
+        // store only what was rendered from a value that was cached all along, so never from a value evicted meanwhile
+        if (rendered.getStatus() == HttpStatus.OK.value() && rendered.getContentType() != null
+            && before != null && after != null && before.get() == after.get()) {
+            byte[] body = rendered.getContentAsByteArray();
+            String etag = "\"" + DigestUtils.md5DigestAsHex(body) + (gzip ? "-gzip" : "") + "\"";
+            stored = new StoredResponse(before.get(), rendered.getContentType(), gzip ? gzip(body) : body, gzip, etag);
+            this.responses.put(key, stored);
+            write(stored, request, response);
+        } else {
+            rendered.copyBodyToResponse();
+        }
+    }
+
+    private static void write(StoredResponse stored, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setHeader(HttpHeaders.ETAG, stored.etag);
+        response.setHeader(HttpHeaders.VARY, "Accept, Accept-Encoding");
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), stored.etag)) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(stored.contentType);
+        if (stored.gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        response.setContentLength(stored.body.length);
+        response.getOutputStream().write(stored.body);
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.equals("*") || candidate.equals(etag) || candidate.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        return acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+    }
+
+    private static Set<String> authorities() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null) {
+            return Collections.emptySet();
+        }
+        Set<String> authorities = new TreeSet<>();
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            authorities.add(authority.getAuthority());
+        }
+        return authorities;
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4 + 32);
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(body);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static final class StoredResponse {
+
+        private final Object source;
+
+        private final String contentType;
+
+        private final byte[] body;
+
+        private final boolean gzip;
+
+        private final String etag;
+
+        StoredResponse(Object source, String contentType, byte[] body, boolean gzip, String etag) {
+            this.source = source;
+            this.contentType = contentType;
+            this.body = body;
+            this.gzip = gzip;
+            this.etag = etag;
+        }
+    }
+
+}
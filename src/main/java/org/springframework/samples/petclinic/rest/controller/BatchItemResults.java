@@ -0,0 +1,111 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.rest.controller;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.ConstraintViolationException;
+import javax.validation.Path;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.samples.petclinic.model.BaseEntity;
+import org.springframework.samples.petclinic.rest.dto.BatchItemErrorDto;
+import org.springframework.samples.petclinic.rest.dto.BatchItemResultDto;
+
+/**
+ * Builds the per-item results returned by the batch endpoints.
+ * <p>
+ * Method validation of the generated API interfaces cascades into the items of a <code>List</code> request body and
+ * reports the item index in the violation path; {@link #invalidItems} turns those violations back into one result
+ * per invalid item.
+ */
+public final class BatchItemResults {
+
+	private BatchItemResults() {
+	}
+
+	/**
+	 * Null items are skipped by cascaded validation, so they are reported here.
+	 *
+	 * @return one result per null item, or an empty list if there is none
+	 */
+	static List<BatchItemResultDto> nullItems(final List<?> items) {
+		final List<BatchItemResultDto> results = new ArrayList<>();
+		for (int index = 0; index < items.size(); index++) {
+			if (items.get(index) == null) {
+				final List<BatchItemErrorDto> errors = new ArrayList<>();
+				errors.add(new BatchItemErrorDto().field("").message("must not be null"));
+				results.add(invalid(index, errors));
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * @return one result per invalid item in index order, or an empty list if a violation does not belong to an item
+	 * of a batch
+	 */
+	public static List<BatchItemResultDto> invalidItems(final ConstraintViolationException ex) {
+		final Map<Integer, List<BatchItemErrorDto>> errorsByIndex = new TreeMap<>();
+		for (final ConstraintViolation<?> violation : ex.getConstraintViolations()) {
+			Integer index = null;
+			final StringBuilder field = new StringBuilder();
+			for (final Path.Node node : violation.getPropertyPath()) {
+				if (index == null) {
+					index = node.getIndex();
+				}
+				if (index != null && node.getName() != null) {
+					field.append(field.length() == 0 ? "" : ".").append(node.getName());
+				}
+			}
+			if (index == null) {
+				return new ArrayList<>();
+			}
+			errorsByIndex.computeIfAbsent(index, i -> new ArrayList<>())
+				.add(new BatchItemErrorDto().field(field.toString()).message(violation.getMessage()));
+		}
+		final List<BatchItemResultDto> results = new ArrayList<>(errorsByIndex.size());
+		errorsByIndex.forEach((index, errors) -> results.add(invalid(index, errors)));
+		return results;
+	}
+
+	/**
+	 * @return one result per saved entity, carrying its generated id
+	 */
+	static List<BatchItemResultDto> created(final List<? extends BaseEntity> entities) {
+		final List<BatchItemResultDto> results = new ArrayList<>(entities.size());
+		for (int index = 0; index < entities.size(); index++) {
+			results.add(new BatchItemResultDto()
+				.index(index)
+				.status(HttpStatus.CREATED.value())
+				.id(entities.get(index).getId()));
+		}
+		return results;
+	}
+
+	private static BatchItemResultDto invalid(final int index, final List<BatchItemErrorDto> errors) {
+		return new BatchItemResultDto()
+			.index(index)
+			.status(HttpStatus.BAD_REQUEST.value())
+			.errors(errors);
+	}
+
+}
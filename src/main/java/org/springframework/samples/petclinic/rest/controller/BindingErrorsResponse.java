@@ -22,10 +22,12 @@ import java.util.List;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
-import com.fasterxml.jackson.annotation.PropertyAccessor;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 
 /**
  * @author Vitaliy Fedoriv
@@ -79,12 +81,19 @@ public class BindingErrorsResponse {
 		}
 	}
 
-	public String toJSON() {
-		ObjectMapper mapper = new ObjectMapper();
-		mapper.setVisibility(PropertyAccessor.FIELD, Visibility.ANY);
+	/**
+	 * @return a writer for the errors of any <code>BindingErrorsResponse</code>, to build once and pass to
+	 * {@link #toJSON(ObjectWriter)}
+	 */
+	public static ObjectWriter writer(ObjectMapper mapper) {
+		return mapper.writerFor(new TypeReference<List<BindingError>>() {
+		});
+	}
+
+	public String toJSON(ObjectWriter writer) {
 		String errorsAsJSON = "";
 		try {
-			errorsAsJSON = mapper.writeValueAsString(bindingErrors);
+			errorsAsJSON = writer.writeValueAsString(bindingErrors);
 		} catch (JsonProcessingException e) {
 			e.printStackTrace();
 		}
@@ -96,6 +105,7 @@ public class BindingErrorsResponse {
 		return "BindingErrorsResponse [bindingErrors=" + bindingErrors + "]";
 	}
 
+	@JsonAutoDetect(fieldVisibility = Visibility.ANY)
 	protected static class BindingError {
 
 		private String objectName;
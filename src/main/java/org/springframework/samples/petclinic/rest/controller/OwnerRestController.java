@@ -31,6 +31,7 @@ import org.springframework.samples.petclinic.model.Owner;
 import org.springframework.samples.petclinic.model.Pet;
 import org.springframework.samples.petclinic.model.Visit;
 import org.springframework.samples.petclinic.rest.api.OwnersApi;
+import org.springframework.samples.petclinic.rest.dto.BatchItemResultDto;
 import org.springframework.samples.petclinic.rest.dto.OwnerDto;
 import org.springframework.samples.petclinic.rest.dto.OwnerFieldsDto;
 import org.springframework.samples.petclinic.rest.dto.PetDto;
@@ -73,9 +74,11 @@ public class OwnerRestController implements OwnersApi {
 
 	@PreAuthorize("hasRole(@roles.OWNER_ADMIN)")
 	@Override
-	public ResponseEntity<List<OwnerDto>> listOwners(final String lastName) {
+	public ResponseEntity<List<OwnerDto>> listOwners(final String lastName, final List<Integer> ids) {
 		Collection<Owner> owners;
-		if (lastName != null) {
+		if (ids != null) {
+			owners = clinicService.findOwnersByIds(ids);
+		} else if (lastName != null) {
 			owners = clinicService.findOwnerByLastName(lastName);
 		} else {
 			owners = clinicService.findAllOwners();
@@ -110,6 +113,19 @@ public class OwnerRestController implements OwnersApi {
 
 	@PreAuthorize("hasRole(@roles.OWNER_ADMIN)")
 	@Override
+	public ResponseEntity<List<BatchItemResultDto>> addOwners(final List<OwnerFieldsDto> ownerFieldsDtos) {
+		final List<BatchItemResultDto> nullItems = BatchItemResults.nullItems(ownerFieldsDtos);
+		if (!nullItems.isEmpty()) {
+			return new ResponseEntity<>(nullItems, HttpStatus.BAD_REQUEST);
+		}
+		final List<Owner> owners = ownerMapper.toOwnersFromFields(ownerFieldsDtos);
+		clinicService.saveOwners(owners);
+		return new ResponseEntity<>(BatchItemResults.created(owners), HttpStatus.CREATED);
+	}
+
+	@PreAuthorize("hasRole(@roles.OWNER_ADMIN)")
+	@Transactional
+	@Override
 	public ResponseEntity<OwnerDto> updateOwner(final Integer ownerId, final OwnerFieldsDto ownerFieldsDto) {
 		final Owner currentOwner = clinicService.findOwnerById(ownerId);
 		if (currentOwner == null) {
@@ -156,8 +172,11 @@ public class OwnerRestController implements OwnersApi {
 	public ResponseEntity<VisitDto> addVisitToOwner(final Integer ownerId, final Integer petId, final VisitFieldsDto visitFieldsDto) {
 		final HttpHeaders headers = new HttpHeaders();
 		final Visit visit = visitMapper.toVisit(visitFieldsDto);
+		final Owner owner = new Owner();
+		owner.setId(ownerId);
 		final Pet pet = new Pet();
 		pet.setId(petId);
+		pet.setOwner(owner);
 		visit.setPet(pet);
 		clinicService.saveVisit(visit);
 		final VisitDto visitDto = visitMapper.toVisitDto(visit);
@@ -17,6 +17,7 @@
 package org.springframework.samples.petclinic.rest.controller;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import javax.transaction.Transactional;
@@ -26,6 +27,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.samples.petclinic.mapper.PetMapper;
 import org.springframework.samples.petclinic.model.Pet;
 import org.springframework.samples.petclinic.rest.api.PetsApi;
+import org.springframework.samples.petclinic.rest.dto.BatchItemResultDto;
+import org.springframework.samples.petclinic.rest.dto.PetBatchItemDto;
 import org.springframework.samples.petclinic.rest.dto.PetDto;
 import org.springframework.samples.petclinic.service.ClinicService;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -63,16 +66,29 @@ public class PetRestController implements PetsApi {
 
 	@PreAuthorize("hasRole(@roles.OWNER_ADMIN)")
 	@Override
-	public ResponseEntity<List<PetDto>> listPets() {
-		final List<PetDto> pets = new ArrayList<>(petMapper.toPetsDto(clinicService.findAllPets()));
+	public ResponseEntity<List<PetDto>> listPets(final List<Integer> ids) {
+		final Collection<Pet> found = ids != null ? clinicService.findPetsByIds(ids) : clinicService.findAllPets();
+		final List<PetDto> pets = new ArrayList<>(petMapper.toPetsDto(found));
 		if (pets.isEmpty()) {
 			return new ResponseEntity<>(HttpStatus.NOT_FOUND);
 		}
 		return new ResponseEntity<>(pets, HttpStatus.OK);
 	}
 
+	@PreAuthorize("hasRole(@roles.OWNER_ADMIN)")
+	@Override
+	public ResponseEntity<List<BatchItemResultDto>> addPets(final List<PetBatchItemDto> petBatchItemDtos) {
+		final List<BatchItemResultDto> nullItems = BatchItemResults.nullItems(petBatchItemDtos);
+		if (!nullItems.isEmpty()) {
+			return new ResponseEntity<>(nullItems, HttpStatus.BAD_REQUEST);
+		}
+		final List<Pet> pets = petMapper.toPetsFromBatch(petBatchItemDtos);
+		clinicService.savePets(pets);
+		return new ResponseEntity<>(BatchItemResults.created(pets), HttpStatus.CREATED);
+	}
 
 	@PreAuthorize("hasRole(@roles.OWNER_ADMIN)")
+	@Transactional
 	@Override
 	public ResponseEntity<PetDto> updatePet(final Integer petId, final PetDto petDto) {
 		final Pet currentPet = clinicService.findPetById(petId);
@@ -27,6 +27,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.samples.petclinic.mapper.VisitMapper;
 import org.springframework.samples.petclinic.model.Visit;
 import org.springframework.samples.petclinic.rest.api.VisitsApi;
+import org.springframework.samples.petclinic.rest.dto.BatchItemResultDto;
+import org.springframework.samples.petclinic.rest.dto.VisitBatchItemDto;
 import org.springframework.samples.petclinic.rest.dto.VisitDto;
 import org.springframework.samples.petclinic.service.ClinicService;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -85,6 +87,18 @@ public class VisitRestController implements VisitsApi {
 		return new ResponseEntity<>(visitDto, headers, HttpStatus.CREATED);
 	}
 
+	@PreAuthorize("hasRole(@roles.OWNER_ADMIN)")
+	@Override
+	public ResponseEntity<List<BatchItemResultDto>> addVisits(final List<VisitBatchItemDto> visitBatchItemDtos) {
+		final List<BatchItemResultDto> nullItems = BatchItemResults.nullItems(visitBatchItemDtos);
+		if (!nullItems.isEmpty()) {
+			return new ResponseEntity<>(nullItems, HttpStatus.BAD_REQUEST);
+		}
+		final List<Visit> visits = visitMapper.toVisitsFromBatch(visitBatchItemDtos);
+		clinicService.saveVisits(visits);
+		return new ResponseEntity<>(BatchItemResults.created(visits), HttpStatus.CREATED);
+	}
+
 	@PreAuthorize("hasRole(@roles.OWNER_ADMIN)")
 	@Override
 	public ResponseEntity<VisitDto> updateVisit(final Integer visitId, final VisitDto visitDto) {
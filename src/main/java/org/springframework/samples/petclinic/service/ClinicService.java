@@ -35,14 +35,17 @@ import org.springframework.samples.petclinic.model.Visit;
 public interface ClinicService {
 
 	Pet findPetById(int id) throws DataAccessException;
+	Collection<Pet> findPetsByIds(Collection<Integer> ids) throws DataAccessException;
 	Collection<Pet> findAllPets() throws DataAccessException;
 	void savePet(Pet pet) throws DataAccessException;
+	void savePets(Collection<Pet> pets) throws DataAccessException;
 	void deletePet(Pet pet) throws DataAccessException;
 
 	Collection<Visit> findVisitsByPetId(int petId);
 	Visit findVisitById(int visitId) throws DataAccessException;
 	Collection<Visit> findAllVisits() throws DataAccessException;
 	void saveVisit(Visit visit) throws DataAccessException;
+	void saveVisits(Collection<Visit> visits) throws DataAccessException;
 	void deleteVisit(Visit visit) throws DataAccessException;
 	
 	Vet findVetById(int id) throws DataAccessException;
@@ -52,8 +55,10 @@ public interface ClinicService {
 	void deleteVet(Vet vet) throws DataAccessException;
 	
 	Owner findOwnerById(int id) throws DataAccessException;
+	Collection<Owner> findOwnersByIds(Collection<Integer> ids) throws DataAccessException;
 	Collection<Owner> findAllOwners() throws DataAccessException;
 	void saveOwner(Owner owner) throws DataAccessException;
+	void saveOwners(Collection<Owner> owners) throws DataAccessException;
 	void deleteOwner(Owner owner) throws DataAccessException;
 	Collection<Owner> findOwnerByLastName(String lastName) throws DataAccessException;
 
@@ -15,13 +15,20 @@
  */
 package org.springframework.samples.petclinic.service;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.dao.DataAccessException;
-import org.springframework.dao.EmptyResultDataAccessException;
-import org.springframework.orm.ObjectRetrievalFailureException;
+import org.springframework.samples.petclinic.config.CacheConfig;
 import org.springframework.samples.petclinic.model.Owner;
 import org.springframework.samples.petclinic.model.Pet;
 import org.springframework.samples.petclinic.model.PetType;
@@ -53,6 +60,11 @@ public class ClinicServiceImpl implements ClinicService {
     private VisitRepository visitRepository;
     private SpecialtyRepository specialtyRepository;
 	private PetTypeRepository petTypeRepository;
+	private Cache ownerCache;
+
+	private Cache missingOwnerCache;
+
+	private Cache missingPetCache;
 
     @Autowired
      public ClinicServiceImpl(
@@ -61,13 +73,17 @@ public class ClinicServiceImpl implements ClinicService {
     		 OwnerRepository ownerRepository,
     		 VisitRepository visitRepository,
     		 SpecialtyRepository specialtyRepository,
-			 PetTypeRepository petTypeRepository) {
+			 PetTypeRepository petTypeRepository,
+			 CacheManager cacheManager) {
         this.petRepository = petRepository;
         this.vetRepository = vetRepository;
         this.ownerRepository = ownerRepository;
         this.visitRepository = visitRepository;
         this.specialtyRepository = specialtyRepository;
 		this.petTypeRepository = petTypeRepository;
+		this.ownerCache = cacheManager.getCache(CacheConfig.OWNERS);
+		this.missingOwnerCache = cacheManager.getCache(CacheConfig.MISSING_OWNERS);
+		this.missingPetCache = cacheManager.getCache(CacheConfig.MISSING_PETS);
     }
 
 	@Override
@@ -79,20 +95,14 @@ public class ClinicServiceImpl implements ClinicService {
 	@Override
 	@Transactional
 	public void deletePet(Pet pet) throws DataAccessException {
+		evictOwnersOf(Collections.singletonList(pet));
 		petRepository.delete(pet);
 	}
 
 	@Override
 	@Transactional(readOnly = true)
 	public Visit findVisitById(int visitId) throws DataAccessException {
-		Visit visit = null;
-		try {
-			visit = visitRepository.findById(visitId);
-		} catch (ObjectRetrievalFailureException|EmptyResultDataAccessException e) {
-		// just ignore not found exceptions for Jdbc/Jpa realization
-			return null;
-		}
-		return visit;
+		return visitRepository.findById(visitId).orElse(null);
 	}
 
 	@Override
@@ -104,36 +114,33 @@ public class ClinicServiceImpl implements ClinicService {
 	@Override
 	@Transactional
 	public void deleteVisit(Visit visit) throws DataAccessException {
+		evictOwnersOf(Collections.singletonList(visit.getPet()));
 		visitRepository.delete(visit);
 	}
 
 	@Override
 	@Transactional(readOnly = true)
 	public Vet findVetById(int id) throws DataAccessException {
-		Vet vet = null;
-		try {
-			vet = vetRepository.findById(id);
-		} catch (ObjectRetrievalFailureException|EmptyResultDataAccessException e) {
-		// just ignore not found exceptions for Jdbc/Jpa realization
-			return null;
-		}
-		return vet;
+		return vetRepository.findById(id).orElse(null);
 	}
 
 	@Override
 	@Transactional(readOnly = true)
+	@Cacheable(CacheConfig.VETS)
 	public Collection<Vet> findAllVets() throws DataAccessException {
 		return vetRepository.findAll();
 	}
 
 	@Override
 	@Transactional
+	@CacheEvict(cacheNames = CacheConfig.VETS, allEntries = true)
 	public void saveVet(Vet vet) throws DataAccessException {
 		vetRepository.save(vet);
 	}
 
 	@Override
 	@Transactional
+	@CacheEvict(cacheNames = CacheConfig.VETS, allEntries = true)
 	public void deleteVet(Vet vet) throws DataAccessException {
 		vetRepository.delete(vet);
 	}
@@ -147,36 +154,33 @@ public class ClinicServiceImpl implements ClinicService {
 	@Override
 	@Transactional
 	public void deleteOwner(Owner owner) throws DataAccessException {
+		evictOwner(owner.getId());
 		ownerRepository.delete(owner);
 	}
 
 	@Override
 	@Transactional(readOnly = true)
 	public PetType findPetTypeById(int petTypeId) {
-		PetType petType = null;
-		try {
-			petType = petTypeRepository.findById(petTypeId);
-		} catch (ObjectRetrievalFailureException|EmptyResultDataAccessException e) {
-		// just ignore not found exceptions for Jdbc/Jpa realization
-			return null;
-		}
-		return petType;
+		return petTypeRepository.findById(petTypeId).orElse(null);
 	}
 
 	@Override
 	@Transactional(readOnly = true)
+	@Cacheable(CacheConfig.PET_TYPES)
 	public Collection<PetType> findAllPetTypes() throws DataAccessException {
 		return petTypeRepository.findAll();
 	}
 
 	@Override
 	@Transactional
+	@CacheEvict(cacheNames = {CacheConfig.PET_TYPES, CacheConfig.OWNERS}, allEntries = true)
 	public void savePetType(PetType petType) throws DataAccessException {
 		petTypeRepository.save(petType);
 	}
 
 	@Override
 	@Transactional
+	@CacheEvict(cacheNames = {CacheConfig.PET_TYPES, CacheConfig.OWNERS}, allEntries = true)
 	public void deletePetType(PetType petType) throws DataAccessException {
 		petTypeRepository.delete(petType);
 	}
@@ -184,30 +188,26 @@ public class ClinicServiceImpl implements ClinicService {
 	@Override
 	@Transactional(readOnly = true)
 	public Specialty findSpecialtyById(int specialtyId) {
-		Specialty specialty = null;
-		try {
-			specialty = specialtyRepository.findById(specialtyId);
-		} catch (ObjectRetrievalFailureException|EmptyResultDataAccessException e) {
-		// just ignore not found exceptions for Jdbc/Jpa realization
-			return null;
-		}
-		return specialty;
+		return specialtyRepository.findById(specialtyId).orElse(null);
 	}
 
 	@Override
 	@Transactional(readOnly = true)
+	@Cacheable(CacheConfig.SPECIALTIES)
 	public Collection<Specialty> findAllSpecialties() throws DataAccessException {
 		return specialtyRepository.findAll();
 	}
 
 	@Override
 	@Transactional
+	@CacheEvict(cacheNames = {CacheConfig.SPECIALTIES, CacheConfig.VETS}, allEntries = true)
 	public void saveSpecialty(Specialty specialty) throws DataAccessException {
 		specialtyRepository.save(specialty);
 	}
 
 	@Override
 	@Transactional
+	@CacheEvict(cacheNames = {CacheConfig.SPECIALTIES, CacheConfig.VETS}, allEntries = true)
 	public void deleteSpecialty(Specialty specialty) throws DataAccessException {
 		specialtyRepository.delete(specialty);
 	}
@@ -220,47 +220,67 @@ public class ClinicServiceImpl implements ClinicService {
 
 	@Override
 	@Transactional(readOnly = true)
+	@Caching(cacheable = {
+		@Cacheable(cacheNames = CacheConfig.OWNERS, key = "#id", unless = "#result == null"),
+		@Cacheable(cacheNames = CacheConfig.MISSING_OWNERS, key = "#id", unless = "#result != null")})
 	public Owner findOwnerById(int id) throws DataAccessException {
-		Owner owner = null;
-		try {
-			owner = ownerRepository.findById(id);
-		} catch (ObjectRetrievalFailureException|EmptyResultDataAccessException e) {
-		// just ignore not found exceptions for Jdbc/Jpa realization
-			return null;
-		}
-		return owner;
+		return ownerRepository.findById(id).orElse(null);
 	}
 
 	@Override
 	@Transactional(readOnly = true)
+	public Collection<Owner> findOwnersByIds(Collection<Integer> ids) throws DataAccessException {
+		return ownerRepository.findByIds(ids);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	@Cacheable(cacheNames = CacheConfig.MISSING_PETS, key = "#id", unless = "#result != null")
 	public Pet findPetById(int id) throws DataAccessException {
-		Pet pet = null;
-		try {
-			pet = petRepository.findById(id);
-		} catch (ObjectRetrievalFailureException|EmptyResultDataAccessException e) {
-		// just ignore not found exceptions for Jdbc/Jpa realization
-			return null;
-		}
-		return pet;
+		return petRepository.findById(id).orElse(null);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public Collection<Pet> findPetsByIds(Collection<Integer> ids) throws DataAccessException {
+		return petRepository.findByIds(ids);
 	}
 
 	@Override
 	@Transactional
 	public void savePet(Pet pet) throws DataAccessException {
+		evictOwnersOf(Collections.singletonList(pet));
 		petRepository.save(pet);
+		evictMissing(missingPetCache, pet.getId());
 
 	}
 
+	@Override
+	@Transactional
+	public void savePets(Collection<Pet> pets) throws DataAccessException {
+		evictOwnersOf(pets);
+		petRepository.saveAll(pets);
+		pets.forEach(pet -> evictMissing(missingPetCache, pet.getId()));
+	}
+
 	@Override
 	@Transactional
 	public void saveVisit(Visit visit) throws DataAccessException {
+		evictOwnersOf(Collections.singletonList(visit.getPet()));
 		visitRepository.save(visit);
 
 	}
 
+	@Override
+	@Transactional
+	public void saveVisits(Collection<Visit> visits) throws DataAccessException {
+		evictOwnersOf(visits.stream().map(Visit::getPet).collect(Collectors.toList()));
+		visitRepository.saveAll(visits);
+	}
+
 	@Override
 	@Transactional(readOnly = true)
-    @Cacheable(value = "vets")
+    @Cacheable(CacheConfig.VETS)
 	public Collection<Vet> findVets() throws DataAccessException {
 		return vetRepository.findAll();
 	}
@@ -268,10 +288,20 @@ public class ClinicServiceImpl implements ClinicService {
 	@Override
 	@Transactional
 	public void saveOwner(Owner owner) throws DataAccessException {
+		evictOwner(owner.getId());
 		ownerRepository.save(owner);
+		evictMissing(owner);
 
 	}
 
+	@Override
+	@Transactional
+	public void saveOwners(Collection<Owner> owners) throws DataAccessException {
+		owners.forEach(owner -> evictOwner(owner.getId()));
+		ownerRepository.saveAll(owners);
+		owners.forEach(this::evictMissing);
+	}
+
 	@Override
 	@Transactional(readOnly = true)
 	public Collection<Owner> findOwnerByLastName(String lastName) throws DataAccessException {
@@ -284,7 +314,53 @@ public class ClinicServiceImpl implements ClinicService {
 		return visitRepository.findByPetId(petId);
 	}
 
+	/**
+	 * Evicts the cached aggregates of the owners the given pets name and, for saved pets, of the owners they are stored
+	 * with. The stored owner is the one whose aggregate holds the pet: a visit posted under another owner's URL, or a
+	 * pet moved to another owner, must not leave it stale. The stored owners are read with one query for all the pets,
+	 * which loads no owner.
+	 */
+	private void evictOwnersOf(Collection<Pet> pets) {
+		List<Integer> petIds = new ArrayList<>();
+		for (Pet pet : pets) {
+			if (pet == null) {
+				continue;
+			}
+			if (pet.getOwner() != null) {
+				evictOwner(pet.getOwner().getId());
+			}
+			if (pet.getId() != null) {
+				petIds.add(pet.getId());
+			}
+		}
+		if (!petIds.isEmpty()) {
+			petRepository.findOwnerIds(petIds).forEach(this::evictOwner);
+		}
+	}
 
+	/**
+	 * Evicts the cached aggregate of the given owner. Called before the write, so that an owner changed in memory is
+	 * not left in the cache when the write fails; the cache evicts again once the transaction commits.
+	 */
+	private void evictOwner(Integer ownerId) {
+		if (ownerId != null) {
+			ownerCache.evict(ownerId);
+		}
+	}
 
+	/**
+	 * Forgets that the ids of a saved owner and its pets were missing. Called after the write, once new rows have their
+	 * generated ids; the cache evicts again once the transaction commits.
+	 */
+	private void evictMissing(Owner owner) {
+		evictMissing(missingOwnerCache, owner.getId());
+		owner.getPets().forEach(pet -> evictMissing(missingPetCache, pet.getId()));
+	}
+
+	private static void evictMissing(Cache missingCache, Integer id) {
+		if (id != null) {
+			missingCache.evict(id);
+		}
+	}
 
 }
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.util;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Measures the heap allocated by each request with the allocation counter of its thread, and records it per route
+ * (<code>uri</code>, the pattern of the handler) as the <code>petclinic.request.allocated</code> histogram, in bytes.
+ * Requests that reach no handler, like the reference data served from stored responses, are not recorded.
+ * <p/>
+ * With <code>header</code> the bytes are also returned in the <code>X-Allocated-Bytes</code> response header; the body
+ * is then held until the request completes, so that the header includes the serialization of the body.
+ * <p/>
+ * The counter is that of <code>com.sun.management.ThreadMXBean</code>; on JVMs without it, and on virtual threads,
+ * nothing is recorded.
+ */
+public class AllocationMetrics extends OncePerRequestFilter implements MeterBinder {
+
+    public static final String HEADER = "X-Allocated-Bytes";
+
+    private static final com.sun.management.ThreadMXBean THREADS = threads();
+
+    private final ConcurrentMap<String, DistributionSummary> summaries = new ConcurrentHashMap<>();
+
+    private final boolean header;
+
+    private volatile MeterRegistry registry;
+
+    public AllocationMetrics(boolean header) {
+        this.header = header;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * @return the bytes allocated by the current thread since it started, or -1 if not measured
+     */
+    public static long currentThreadAllocatedBytes() {
+        return THREADS != null ? THREADS.getThreadAllocatedBytes(Thread.currentThread().getId()) : -1;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        long start = currentThreadAllocatedBytes();
+        if (start < 0) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        ContentCachingResponseWrapper buffered = this.header ? new ContentCachingResponseWrapper(response) : null;
+        try {
+            filterChain.doFilter(request, buffered != null ? buffered : response);
+        } finally {
+            long allocated = currentThreadAllocatedBytes() - start;
+            record(request, allocated);
+            if (buffered != null) {
+                buffered.setHeader(HEADER, Long.toString(allocated));
+            }
+        }
+        if (buffered != null) {
+            buffered.copyBodyToResponse();
+        }
+    }
+
+    private void record(HttpServletRequest request, long allocated) {
+        MeterRegistry registry = this.registry;
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (registry == null || pattern == null) {
+            return;
+        }
+        DistributionSummary summary = this.summaries.get(pattern.toString());
+        if (summary == null) {
+            summary = this.summaries.computeIfAbsent(pattern.toString(), route -> DistributionSummary.builder("petclinic.request.allocated")
+                .tag("uri", route)
+                .baseUnit("bytes")
+                .description("Heap allocated by a request")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(1024.0)
+                .maximumExpectedValue(1024.0 * 1024 * 1024)
+                .register(registry));
+        }
+        summary.record(allocated);
+    }
+
+    private static com.sun.management.ThreadMXBean threads() {
+        try {
+            java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            if (threads instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean hotSpotThreads = (com.sun.management.ThreadMXBean) threads;
+                if (hotSpotThreads.isThreadAllocatedMemorySupported() && hotSpotThreads.isThreadAllocatedMemoryEnabled()) {
+                    return hotSpotThreads;
+                }
+            }
+        } catch (LinkageError ex) {
+            // com.sun.management is not there
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,296 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.util;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Shares cache evictions between application instances that use the same database, through the
+ * <code>cache_invalidations</code> table.
+ * <p/>
+ * The evictions of a transaction are collected, without duplicates, and written as one batch of rows just before it
+ * commits, so other instances only see them once the write is committed, and a rolled back transaction writes
+ * nothing. Evictions outside a transaction are written right away. Every instance polls the table at a fixed interval
+ * and evicts the entries that the other instances wrote, so a peer serves stale data for at most one poll interval
+ * (plus the time the poll takes).
+ * <p/>
+ * Rows are read by increasing id. An id that is skipped may belong to a transaction that wrote its rows but has not
+ * committed yet, so it is polled again until it shows up or until the gap timeout passes. Rows older than the
+ * retention are deleted.
+ */
+@ManagedResource("petclinic:type=CacheInvalidationLog")
+public class CacheInvalidationLog {
+
+    private static final Log logger = LogFactory.getLog(CacheInvalidationLog.class);
+
+    private static final String INSERT = "INSERT INTO cache_invalidations (cache_name, cache_key, node_id, created) "
+        + "VALUES (:cacheName, :cacheKey, :nodeId, :created)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    private final CacheManager cacheManager;
+
+    private final String nodeId;
+
+    private final long pollIntervalMillis;
+
+    private final long gapTimeoutMillis;
+
+    private final long retentionMillis;
+
+    private long lastSeenId;
+
+    /**
+     * Ids skipped while polling, with the time they were first skipped.
+     */
+    private final Map<Long, Long> gaps = new LinkedHashMap<>();
+
+    private long lastCleanup;
+
+    private volatile long appliedInvalidations;
+
+    private ScheduledExecutorService scheduler;
+
+    public CacheInvalidationLog(DataSource dataSource, CacheManager cacheManager, String nodeId,
+                                long pollIntervalMillis, long gapTimeoutMillis, long retentionMillis) {
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        this.cacheManager = cacheManager;
+        this.nodeId = nodeId;
+        this.pollIntervalMillis = pollIntervalMillis;
+        this.gapTimeoutMillis = gapTimeoutMillis;
+        this.retentionMillis = retentionMillis;
+    }
+
+    @ManagedAttribute
+    public String getNodeId() {
+        return this.nodeId;
+    }
+
+    @ManagedAttribute
+    public synchronized long getLastSeenId() {
+        return this.lastSeenId;
+    }
+
+    @ManagedAttribute
+    public long getAppliedInvalidations() {
+        return this.appliedInvalidations;
+    }
+
+    /**
+     * Records the eviction of <code>key</code> from the cache <code>cacheName</code> for the other instances: when the
+     * current transaction commits if there is one, right away otherwise.
+     *
+     * @param key the evicted key, or <code>null</code> when all entries were evicted. Only <code>Integer</code> keys
+     *            are shared; any other key evicts all entries of the cache on the other instances.
+     */
+    public void publish(String cacheName, Object key) {
+        Integer sharedKey = key instanceof Integer ? (Integer) key : null;
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            PendingEvictions evictions = new PendingEvictions();
+            evictions.add(cacheName, sharedKey);
+            evictions.write();
+            return;
+        }
+        PendingEvictions evictions = (PendingEvictions) TransactionSynchronizationManager.getResource(this);
+        if (evictions == null) {
+            evictions = new PendingEvictions();
+            TransactionSynchronizationManager.bindResource(this, evictions);
+            TransactionSynchronizationManager.registerSynchronization(evictions);
+        }
+        evictions.add(cacheName, sharedKey);
+    }
+
+    public synchronized void start() {
+        Long maxId = this.jdbcTemplate.getJdbcTemplate().queryForObject("SELECT MAX(id) FROM cache_invalidations", Long.class);
+        // identity columns start at 0 on HSQLDB
+        this.lastSeenId = maxId != null ? maxId : -1;
+        this.lastCleanup = System.currentTimeMillis();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cache-invalidation");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                poll();
+            } catch (RuntimeException ex) {
+                logger.warn("Could not poll the cache invalidation log", ex);
+            }
+        }, this.pollIntervalMillis, this.pollIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (this.scheduler != null) {
+            this.scheduler.shutdownNow();
+            this.scheduler = null;
+        }
+    }
+
+    /**
+     * Evicts the entries that other instances invalidated since the last poll.
+     */
+    public synchronized void poll() {
+        long now = System.currentTimeMillis();
+        Map<String, Object> params = new HashMap<>();
+        params.put("lastSeenId", this.lastSeenId);
+        List<Map<String, Object>> rows;
+        if (this.gaps.isEmpty()) {
+            rows = this.jdbcTemplate.queryForList(
+                "SELECT id, cache_name, cache_key, node_id FROM cache_invalidations WHERE id > :lastSeenId ORDER BY id", params);
+        } else {
+            params.put("gaps", this.gaps.keySet());
+            rows = this.jdbcTemplate.queryForList(
+                "SELECT id, cache_name, cache_key, node_id FROM cache_invalidations WHERE id > :lastSeenId OR id IN (:gaps) ORDER BY id", params);
+        }
+        for (Map<String, Object> row : rows) {
+            long id = ((Number) row.get("id")).longValue();
+            if (id > this.lastSeenId) {
+                for (long skipped = this.lastSeenId + 1; skipped < id; skipped++) {
+                    this.gaps.put(skipped, now);
+                }
+                this.lastSeenId = id;
+            } else {
+                this.gaps.remove(id);
+            }
+            if (!this.nodeId.equals(row.get("node_id"))) {
+                Number key = (Number) row.get("cache_key");
+                evictLocally((String) row.get("cache_name"), key != null ? key.intValue() : null);
+            }
+        }
+        for (Iterator<Long> firstSkipped = this.gaps.values().iterator(); firstSkipped.hasNext(); ) {
+            if (now - firstSkipped.next() > this.gapTimeoutMillis) {
+                firstSkipped.remove();
+            }
+        }
+        if (now - this.lastCleanup > this.retentionMillis / 10) {
+            this.jdbcTemplate.getJdbcTemplate().update("DELETE FROM cache_invalidations WHERE created < ?",
+                new Timestamp(now - this.retentionMillis));
+            this.lastCleanup = now;
+        }
+    }
+
+    private void evictLocally(String cacheName, Integer key) {
+        Cache cache = this.cacheManager.getCache(cacheName);
+        if (cache == null) {
+            return;
+        }
+        // bypass the decorator, which would publish the eviction again
+        if (cache instanceof TransactionAwareCacheDecorator) {
+            cache = ((TransactionAwareCacheDecorator) cache).getTargetCache();
+        }
+        if (key == null) {
+            cache.clear();
+        } else {
+            cache.evict(key);
+        }
+        this.appliedInvalidations++;
+    }
+
+    /**
+     * The evictions of one transaction, by cache name: the evicted keys, or <code>null</code> when all entries were
+     * evicted.
+     */
+    private final class PendingEvictions implements TransactionSynchronization {
+
+        private final Map<String, Set<Integer>> keys = new LinkedHashMap<>();
+
+        private boolean written;
+
+        void add(String cacheName, Integer key) {
+            if (this.written) {
+                // evicted while the transaction commits, after the rows were written
+                PendingEvictions late = new PendingEvictions();
+                late.add(cacheName, key);
+                late.write();
+                return;
+            }
+            Set<Integer> cacheKeys = this.keys.get(cacheName);
+            if (cacheKeys == null && this.keys.containsKey(cacheName)) {
+                // all entries are evicted already
+                return;
+            }
+            if (key == null) {
+                this.keys.put(cacheName, null);
+            } else {
+                if (cacheKeys == null) {
+                    cacheKeys = new LinkedHashSet<>();
+                    this.keys.put(cacheName, cacheKeys);
+                }
+                cacheKeys.add(key);
+            }
+        }
+
+        void write() {
+            this.written = true;
+            Timestamp created = new Timestamp(System.currentTimeMillis());
+            List<Map<String, Object>> rows = new ArrayList<>();
+            this.keys.forEach((cacheName, cacheKeys) -> {
+                if (cacheKeys == null) {
+                    rows.add(row(cacheName, null, created));
+                } else {
+                    cacheKeys.forEach(key -> rows.add(row(cacheName, key, created)));
+                }
+            });
+            if (!rows.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT, rows.toArray(new Map[0]));
+            }
+        }
+
+        private Map<String, Object> row(String cacheName, Integer key, Timestamp created) {
+            Map<String, Object> params = new HashMap<>();
+            params.put("cacheName", cacheName);
+            params.put("cacheKey", key);
+            params.put("nodeId", nodeId);
+            params.put("created", created);
+            return params;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            write();
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(CacheInvalidationLog.this);
+        }
+    }
+
+}
@@ -15,19 +15,46 @@
  */
 package org.springframework.samples.petclinic.util;
 
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
 import org.springframework.jmx.export.annotation.ManagedAttribute;
 import org.springframework.jmx.export.annotation.ManagedOperation;
 import org.springframework.jmx.export.annotation.ManagedResource;
-import org.springframework.util.StopWatch;
+
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 
 /**
- * Simple aspect that monitors call count and call invocation time. It uses JMX annotations and therefore can be
- * monitored using any JMX console such as the jConsole
+ * Aspect that records the latency of every repository and service method in a histogram per method, and exports
+ * the call count, p50, p99, p99.9 and maximum of each method through JMX and Micrometer
+ * (<code>petclinic.calls</code>, <code>petclinic.calls.percentile</code> and <code>petclinic.calls.max</code>,
+ * tagged with the method).
  * <p/>
- * This is only useful if you use JPA or JDBC.  Spring-data-jpa doesn't have any correctly annotated classes to join on
+ * Recording takes no lock: each method has a few histogram stripes, picked by thread, that are written with atomic
+ * increments (HdrHistogram {@link Recorder}s, two significant digits, microsecond resolution up to an hour), and
+ * striped counters for the count, the total and the exact maximum. Only readers merge the stripes.
+ * <p/>
+ * Spring Data repositories are matched through the repository interfaces they implement, and all implementations of a
+ * method are reported under the name of its interface method (see {@link MethodNames}).
  *
  * @author Rob Harrop
  * @author Juergen Hoeller
@@ -36,13 +63,21 @@ import org.springframework.util.StopWatch;
  */
 @ManagedResource("petclinic:type=CallMonitor")
 @Aspect
-public class CallMonitoringAspect {
+public class CallMonitoringAspect implements MeterBinder, Ordered {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.HOURS.toMicros(1);
 
-    private boolean enabled = true;
+    private static final double[] PERCENTILES = {0.5, 0.99, 0.999};
 
-    private int callCount = 0;
+    private static final int STRIPES = Math.min(Integer.highestOneBit(Runtime.getRuntime().availableProcessors()), 4);
 
-    private long accumulatedCallTime = 0;
+    private volatile boolean enabled = true;
+
+    private final ConcurrentMap<Method, MethodStatistics> statisticsByMethod = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, MethodStatistics> statisticsByName = new ConcurrentHashMap<>();
+
+    private final List<MeterRegistry> registries = new CopyOnWriteArrayList<>();
 
     @ManagedAttribute
     public boolean isEnabled() {
@@ -56,42 +91,189 @@ public class CallMonitoringAspect {
 
     @ManagedOperation
     public void reset() {
-        this.callCount = 0;
-        this.accumulatedCallTime = 0;
+        this.statisticsByName.values().forEach(MethodStatistics::reset);
     }
 
     @ManagedAttribute
-    public int getCallCount() {
-        return callCount;
+    public long getCallCount() {
+        return this.statisticsByName.values().stream().mapToLong(MethodStatistics::getCount).sum();
     }
 
+    /**
+     * Average call time over all methods, in milliseconds.
+     */
     @ManagedAttribute
     public long getCallTime() {
-        if (this.callCount > 0)
-            return this.accumulatedCallTime / this.callCount;
-        else
+        long callCount = getCallCount();
+        if (callCount == 0) {
             return 0;
+        }
+        long totalNanos = this.statisticsByName.values().stream().mapToLong(MethodStatistics::getTotalNanos).sum();
+        return TimeUnit.NANOSECONDS.toMillis(totalNanos / callCount);
     }
 
+    @ManagedAttribute
+    public String[] getMethods() {
+        return this.statisticsByName.keySet().stream().sorted().toArray(String[]::new);
+    }
 
-    @Around("within(@org.springframework.stereotype.Repository *)")
+    /**
+     * @param method     a method as listed in {@link #getMethods()}, like <code>OwnerRepository.findById</code>
+     * @param percentile between 0 and 1
+     * @return the latency of the method at that percentile, in microseconds, or 0 if it was not called
+     */
+    @ManagedOperation
+    public double getPercentile(String method, double percentile) {
+        MethodStatistics statistics = this.statisticsByName.get(method);
+        return statistics != null ? statistics.snapshot().getValueAtPercentile(percentile * 100) : 0;
+    }
+
+    /**
+     * One line per method, with the call count and the p50, p99, p99.9 and maximum latency in microseconds.
+     */
+    @ManagedOperation
+    public String report() {
+        StringBuilder report = new StringBuilder();
+        for (Map.Entry<String, MethodStatistics> entry : new TreeMap<>(this.statisticsByName).entrySet()) {
+            MethodStatistics statistics = entry.getValue();
+            Histogram histogram = statistics.snapshot();
+            report.append(String.format(Locale.ROOT, "%s count=%d p50=%d p99=%d p999=%d max=%d%n", entry.getKey(),
+                statistics.getCount(), histogram.getValueAtPercentile(50), histogram.getValueAtPercentile(99),
+                histogram.getValueAtPercentile(99.9), TimeUnit.NANOSECONDS.toMicros(statistics.getMaxNanos())));
+        }
+        return report.toString();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.registries.add(registry);
+        this.statisticsByName.values().forEach(statistics -> register(statistics, registry));
+    }
+
+    /**
+     * Outside the transactions, so that the recorded time is the one the callers see.
+     */
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 1;
+    }
+
+    @Around("execution(public * org.springframework.samples.petclinic.repository.*Repository.*(..))"
+        + " || execution(public * org.springframework.samples.petclinic.service.*Service.*(..))")
     public Object invoke(ProceedingJoinPoint joinPoint) throws Throwable {
-        if (this.enabled) {
-            StopWatch sw = new StopWatch(joinPoint.toShortString());
-
-            sw.start("invoke");
-            try {
-                return joinPoint.proceed();
-            } finally {
-                sw.stop();
-                synchronized (this) {
-                    this.callCount++;
-                    this.accumulatedCallTime += sw.getTotalTimeMillis();
-                }
-            }
-        } else {
+        if (!this.enabled) {
             return joinPoint.proceed();
         }
+        long start = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            statistics(joinPoint).record(System.nanoTime() - start);
+        }
+    }
+
+    private MethodStatistics statistics(ProceedingJoinPoint joinPoint) {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        MethodStatistics statistics = this.statisticsByMethod.get(method);
+        if (statistics == null) {
+            // overloads, and the implementations of a method, share the statistics of their name
+            String name = MethodNames.of(method);
+            statistics = this.statisticsByMethod.computeIfAbsent(method,
+                key -> this.statisticsByName.computeIfAbsent(name, this::createStatistics));
+        }
+        return statistics;
+    }
+
+    private MethodStatistics createStatistics(String name) {
+        MethodStatistics statistics = new MethodStatistics(name);
+        this.registries.forEach(registry -> register(statistics, registry));
+        return statistics;
+    }
+
+    private static void register(MethodStatistics statistics, MeterRegistry registry) {
+        FunctionTimer.builder("petclinic.calls", statistics, MethodStatistics::getCount,
+                MethodStatistics::getTotalNanos, TimeUnit.NANOSECONDS)
+            .tag("method", statistics.name)
+            .description("Calls of a repository or service method")
+            .register(registry);
+        for (double percentile : PERCENTILES) {
+            Gauge.builder("petclinic.calls.percentile", statistics,
+                    stats -> stats.snapshot().getValueAtPercentile(percentile * 100) / 1_000_000.0)
+                .tags("method", statistics.name, "phi", String.valueOf(percentile))
+                .baseUnit("seconds")
+                .description("Latency percentile of a repository or service method")
+                .register(registry);
+        }
+        Gauge.builder("petclinic.calls.max", statistics, stats -> stats.getMaxNanos() / 1_000_000_000.0)
+            .tag("method", statistics.name)
+            .baseUnit("seconds")
+            .description("Maximum latency of a repository or service method")
+            .register(registry);
+    }
+
+    private static final class MethodStatistics {
+
+        private final String name;
+
+        private final Recorder[] stripes = new Recorder[STRIPES];
+
+        private final LongAdder count = new LongAdder();
+
+        private final LongAdder totalNanos = new LongAdder();
+
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        /**
+         * All values recorded since the last reset, merged by the readers.
+         */
+        private final Histogram merged = new Histogram(HIGHEST_TRACKABLE_MICROS, 2);
+
+        private Histogram interval;
+
+        MethodStatistics(String name) {
+            this.name = name;
+            for (int i = 0; i < STRIPES; i++) {
+                this.stripes[i] = new Recorder(HIGHEST_TRACKABLE_MICROS, 2);
+            }
+        }
+
+        void record(long nanos) {
+            long micros = Math.min(Math.max(TimeUnit.NANOSECONDS.toMicros(nanos), 0), HIGHEST_TRACKABLE_MICROS);
+            this.stripes[(int) Thread.currentThread().getId() & (STRIPES - 1)].recordValue(micros);
+            this.count.increment();
+            this.totalNanos.add(nanos);
+            this.maxNanos.accumulate(nanos);
+        }
+
+        long getCount() {
+            return this.count.sum();
+        }
+
+        long getTotalNanos() {
+            return this.totalNanos.sum();
+        }
+
+        long getMaxNanos() {
+            return this.maxNanos.get();
+        }
+
+        synchronized Histogram snapshot() {
+            for (Recorder stripe : this.stripes) {
+                this.interval = stripe.getIntervalHistogram(this.interval);
+                this.merged.add(this.interval);
+            }
+            return this.merged.copy();
+        }
+
+        synchronized void reset() {
+            for (Recorder stripe : this.stripes) {
+                stripe.reset();
+            }
+            this.merged.reset();
+            this.count.reset();
+            this.totalNanos.reset();
+            this.maxNanos.reset();
+        }
     }
 
 }
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2002-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.util;
+
+import java.util.concurrent.Semaphore;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+/**
+ * Aspect that lets at most a fixed number of threads run service methods at the same time; the others wait in
+ * arrival order.
+ * <p/>
+ * Service methods are where transactions, and so database connections, begin. With one virtual thread per request
+ * there is no worker pool left to bound how many requests reach the connection pool at once, so this aspect is sized
+ * to the connection pool instead. It runs before the transaction advice, so a waiting thread does not hold a
+ * connection. Nested service calls on the same thread reuse the permit of the outermost call.
+ */
+@ManagedResource("petclinic:type=ConcurrencyLimiter")
+@Aspect
+public class ConcurrencyLimitingAspect implements Ordered {
+
+    private final Semaphore permits;
+
+    private final int maxConcurrentCalls;
+
+    private final ThreadLocal<Boolean> holdsPermit = new ThreadLocal<>();
+
+    public ConcurrencyLimitingAspect(int maxConcurrentCalls) {
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.permits = new Semaphore(maxConcurrentCalls, true);
+    }
+
+    @ManagedAttribute
+    public int getMaxConcurrentCalls() {
+        return this.maxConcurrentCalls;
+    }
+
+    @ManagedAttribute
+    public int getActiveCalls() {
+        return this.maxConcurrentCalls - this.permits.availablePermits();
+    }
+
+    @ManagedAttribute
+    public int getWaitingCalls() {
+        return this.permits.getQueueLength();
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    @Around("execution(public * org.springframework.samples.petclinic.service.*Service.*(..))")
+    public Object invoke(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (this.holdsPermit.get() != null) {
+            return joinPoint.proceed();
+        }
+        this.permits.acquire();
+        this.holdsPermit.set(Boolean.TRUE);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            this.holdsPermit.remove();
+            this.permits.release();
+        }
+    }
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.util;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Exports the saturation of the connection pool as <code>petclinic.pool.saturation</code>: the connections in use
+ * plus the threads waiting for one, over the maximum pool size. Below 1 the pool has room, above 1 requests queue
+ * for connections. The pool counts themselves (<code>hikaricp.connections.active</code>, <code>idle</code>,
+ * <code>pending</code>) and the acquire time histogram (<code>hikaricp.connections.acquire</code>) are exported by
+ * Spring Boot.
+ */
+public class ConnectionPoolMetrics implements MeterBinder {
+
+    private final HikariDataSource pool;
+
+    public ConnectionPoolMetrics(HikariDataSource pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("petclinic.pool.saturation", this, ConnectionPoolMetrics::getSaturation)
+            .tag("pool", String.valueOf(this.pool.getPoolName()))
+            .description("Connections in use and awaited over the maximum pool size")
+            .strongReference(true)
+            .register(registry);
+    }
+
+    public double getSaturation() {
+        // null until the pool has started
+        HikariPoolMXBean poolStats = this.pool.getHikariPoolMXBean();
+        if (poolStats == null) {
+            return 0;
+        }
+        return (poolStats.getActiveConnections() + poolStats.getThreadsAwaitingConnection())
+            / (double) this.pool.getMaximumPoolSize();
+    }
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.util;
+
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Names repository and service methods after the interface that declares them, like
+ * <code>OwnerRepository.findById</code>, whether the call went to the JDBC, JPA or Spring Data implementation, so that
+ * the monitoring output is the same for all of them.
+ */
+public abstract class MethodNames {
+
+    private static final String REPOSITORY_PACKAGE = "org.springframework.samples.petclinic.repository";
+
+    private static final String SERVICE_PACKAGE = "org.springframework.samples.petclinic.service";
+
+    private static final ConcurrentMap<Method, String> names = new ConcurrentHashMap<>();
+
+    /**
+     * @return the simple name of the repository or service interface that declares the method, or else of the class of
+     * the method, and the method name
+     */
+    public static String of(Method method) {
+        String name = names.get(method);
+        if (name == null) {
+            name = names.computeIfAbsent(method, MethodNames::resolve);
+        }
+        return name;
+    }
+
+    private static String resolve(Method method) {
+        Deque<Class<?>> types = new ArrayDeque<>();
+        types.add(method.getDeclaringClass());
+        while (!types.isEmpty()) {
+            Class<?> type = types.poll();
+            String packageName = type.getPackage() != null ? type.getPackage().getName() : "";
+            if (type.isInterface() && (packageName.equals(REPOSITORY_PACKAGE) || packageName.equals(SERVICE_PACKAGE))
+                && declares(type, method)) {
+                return type.getSimpleName() + "." + method.getName();
+            }
+            for (Class<?> supertype : type.getInterfaces()) {
+                types.add(supertype);
+            }
+            if (type.getSuperclass() != null) {
+                types.add(type.getSuperclass());
+            }
+        }
+        return method.getDeclaringClass().getSimpleName() + "." + method.getName();
+    }
+
+    private static boolean declares(Class<?> type, Method method) {
+        try {
+            type.getMethod(method.getName(), method.getParameterTypes());
+            return true;
+        } catch (NoSuchMethodException ex) {
+            return false;
+        }
+    }
+
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.util;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Finds N+1 query patterns: within one request, the same statement shape run again and again with different
+ * parameters, typically once per row of a previous query. The statements come from {@link StatementMetrics}, which
+ * opens and closes the request scope.
+ * <p/>
+ * A shape is the SQL with its literals replaced by <code>?</code> and its <code>IN</code> lists collapsed. A shape run
+ * at least <code>threshold</code> times, with at least two different sets of parameters, is a finding for the route of
+ * the request; findings keep the number of requests they were seen in and the largest repetition count.
+ * <p/>
+ * Only a random sample of the requests (<code>sampleRate</code>, between 0 and 1) is tracked, and only those capture
+ * the bound parameters, so that the detector can stay on in production. Findings are read through
+ * {@link NPlusOneDetectorEndpoint}.
+ */
+public class NPlusOneDetector {
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(\\.\\d+)?\\b");
+
+    private static final Pattern LIST = Pattern.compile("\\?(\\s*,\\s*\\?)+");
+
+    private final ThreadLocal<Map<String, Shape>> currentRequest = new ThreadLocal<>();
+
+    private final Cache<List<String>, Finding> findings;
+
+    private final AtomicLong sampledRequests = new AtomicLong();
+
+    private volatile double sampleRate;
+
+    private volatile int threshold;
+
+    public NPlusOneDetector(double sampleRate, int threshold, long maximumFindings) {
+        this.sampleRate = sampleRate;
+        this.threshold = threshold;
+        this.findings = Caffeine.newBuilder().maximumSize(maximumFindings).build();
+    }
+
+    public double getSampleRate() {
+        return this.sampleRate;
+    }
+
+    public void setSampleRate(double sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    public int getThreshold() {
+        return this.threshold;
+    }
+
+    public void setThreshold(int threshold) {
+        this.threshold = threshold;
+    }
+
+    public long getSampledRequests() {
+        return this.sampledRequests.get();
+    }
+
+    /**
+     * @return the findings, the most frequent first
+     */
+    public List<Finding> getFindings() {
+        List<Finding> findings = new ArrayList<>(this.findings.asMap().values());
+        findings.sort(Comparator.comparingLong(Finding::getRequests).thenComparingInt(Finding::getMaxRepetitions).reversed());
+        return findings;
+    }
+
+    public void clear() {
+        this.findings.invalidateAll();
+    }
+
+    /**
+     * @return whether the statements of the current request are tracked, and so their parameters needed
+     */
+    boolean isSampling() {
+        return this.currentRequest.get() != null;
+    }
+
+    void startRequest() {
+        double sampleRate = this.sampleRate;
+        if (sampleRate > 0 && (sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate)) {
+            this.currentRequest.set(new HashMap<>());
+        } else {
+            this.currentRequest.remove();
+        }
+    }
+
+    void statement(String sql, int parametersHash, String repository) {
+        Map<String, Shape> shapes = this.currentRequest.get();
+        if (shapes != null && sql != null) {
+            // literals in the SQL count as parameters, for statements that are merged into one shape later
+            shapes.computeIfAbsent(sql, key -> new Shape(repository)).add(31 * sql.hashCode() + parametersHash);
+        }
+    }
+
+    void endRequest(String route) {
+        Map<String, Shape> shapes = this.currentRequest.get();
+        if (shapes == null) {
+            return;
+        }
+        this.currentRequest.remove();
+        this.sampledRequests.incrementAndGet();
+        Map<String, Shape> normalized = new HashMap<>();
+        for (Map.Entry<String, Shape> entry : shapes.entrySet()) {
+            normalized.merge(shape(entry.getKey()), entry.getValue(), Shape::merge);
+        }
+        for (Map.Entry<String, Shape> entry : normalized.entrySet()) {
+            Shape shape = entry.getValue();
+            if (shape.executions >= this.threshold && shape.parameters.size() > 1) {
+                this.findings.get(Arrays.asList(route, entry.getKey()), key -> new Finding(route, key.get(1), shape.repository))
+                    .seen(shape.executions, shape.parameters.size());
+            }
+        }
+    }
+
+    static String shape(String sql) {
+        String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        return LIST.matcher(shape).replaceAll("?").replaceAll("\\s+", " ").trim();
+    }
+
+    private static final class Shape {
+
+        private final String repository;
+
+        private final Set<Integer> parameters = new HashSet<>();
+
+        private int executions;
+
+        Shape(String repository) {
+            this.repository = repository;
+        }
+
+        void add(int parametersHash) {
+            this.executions++;
+            this.parameters.add(parametersHash);
+        }
+
+        Shape merge(Shape other) {
+            this.executions += other.executions;
+            this.parameters.addAll(other.parameters);
+            return this;
+        }
+    }
+
+    public static final class Finding {
+
+        private final String route;
+
+        private final String shape;
+
+        private final String repository;
+
+        private long requests;
+
+        private int maxRepetitions;
+
+        private int lastRepetitions;
+
+        private int lastDistinctParameters;
+
+        private Instant lastSeen;
+
+        Finding(String route, String shape, String repository) {
+            this.route = route;
+            this.shape = shape;
+            this.repository = repository;
+        }
+
+        synchronized void seen(int repetitions, int distinctParameters) {
+            this.requests++;
+            this.maxRepetitions = Math.max(this.maxRepetitions, repetitions);
+            this.lastRepetitions = repetitions;
+            this.lastDistinctParameters = distinctParameters;
+            this.lastSeen = Instant.now();
+        }
+
+        public String getRoute() {
+            return this.route;
+        }
+
+        public String getShape() {
+            return this.shape;
+        }
+
+        /**
+         * @return the repository method that first ran the statement in a flagged request
+         */
+        public String getRepository() {
+            return this.repository;
+        }
+
+        /**
+         * @return the sampled requests in which the statement was repeated
+         */
+        public synchronized long getRequests() {
+            return this.requests;
+        }
+
+        public synchronized int getMaxRepetitions() {
+            return this.maxRepetitions;
+        }
+
+        public synchronized int getLastRepetitions() {
+            return this.lastRepetitions;
+        }
+
+        public synchronized int getLastDistinctParameters() {
+            return this.lastDistinctParameters;
+        }
+
+        public synchronized Instant getLastSeen() {
+            return this.lastSeen;
+        }
+    }
+
+}
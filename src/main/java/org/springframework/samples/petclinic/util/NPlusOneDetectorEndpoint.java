@@ -0,0 +1,68 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+
+/**
+ * Actuator endpoint (<code>/actuator/nplusone</code>, and the <code>Nplusone</code> JMX endpoint) that lists the
+ * findings of the {@link NPlusOneDetector}, changes its sample rate or threshold (a POST with
+ * <code>{"sampleRate": 0.1, "threshold": 5}</code>) and clears the findings (DELETE). The endpoint is exported over
+ * JMX only, unless it is added to <code>management.endpoints.web.exposure.include</code>.
+ */
+@Endpoint(id = "nplusone")
+public class NPlusOneDetectorEndpoint {
+
+    private final NPlusOneDetector detector;
+
+    public NPlusOneDetectorEndpoint(NPlusOneDetector detector) {
+        this.detector = detector;
+    }
+
+    @ReadOperation
+    public Map<String, Object> findings() {
+        Map<String, Object> findings = new LinkedHashMap<>();
+        findings.put("sampleRate", this.detector.getSampleRate());
+        findings.put("threshold", this.detector.getThreshold());
+        findings.put("sampledRequests", this.detector.getSampledRequests());
+        findings.put("findings", this.detector.getFindings());
+        return findings;
+    }
+
+    @WriteOperation
+    public void configure(@Nullable Double sampleRate, @Nullable Integer threshold) {
+        if (sampleRate != null) {
+            this.detector.setSampleRate(sampleRate);
+        }
+        if (threshold != null) {
+            this.detector.setThreshold(threshold);
+        }
+    }
+
+    @DeleteOperation
+    public void clear() {
+        this.detector.clear();
+    }
+
+}
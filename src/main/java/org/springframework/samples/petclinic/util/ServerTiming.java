@@ -0,0 +1,194 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.util;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Times the parts of a request for the <code>Server-Timing</code> response header, so that the browser developer
+ * tools and the load balancer logs show where the time of a response went:
+ * <ul>
+ * <li><code>db</code>, the time spent running SQL statements, with their count, from {@link StatementMetrics};</li>
+ * <li><code>service</code>, the time spent in <code>ClinicService</code> calls, database time included;</li>
+ * <li><code>mapping</code>, the time spent in the MapStruct mappers;</li>
+ * <li><code>serialization</code>, the time spent writing JSON, from {@link ServerTimingMessageConverter};</li>
+ * <li><code>total</code>, the time from {@link ServerTimingFilter}, which starts the timing and writes the header.</li>
+ * </ul>
+ * Only a random sample of the requests (<code>sampleRate</code>, between 0 and 1) is timed; the others cost one
+ * thread local lookup per advised call.
+ */
+@Aspect
+public class ServerTiming implements HandlerInterceptor, Ordered {
+
+    public static final String HEADER = "Server-Timing";
+
+    private final ThreadLocal<Timing> current = new ThreadLocal<>();
+
+    private final StatementMetrics statementMetrics;
+
+    private volatile double sampleRate;
+
+    /**
+     * @param statementMetrics <code>null</code> to leave out the database time
+     */
+    public ServerTiming(StatementMetrics statementMetrics, double sampleRate) {
+        this.statementMetrics = statementMetrics;
+        this.sampleRate = sampleRate;
+    }
+
+    public double getSampleRate() {
+        return this.sampleRate;
+    }
+
+    public void setSampleRate(double sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * Inside the monitoring aspects, outside the caching and the transactions.
+     */
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 4;
+    }
+
+    @Around("execution(public * org.springframework.samples.petclinic.service.ClinicService.*(..))")
+    public Object timeServiceMethod(ProceedingJoinPoint joinPoint) throws Throwable {
+        Timing timing = this.current.get();
+        if (timing == null || timing.inService) {
+            return joinPoint.proceed();
+        }
+        timing.inService = true;
+        long start = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            timing.serviceNanos += System.nanoTime() - start;
+            timing.inService = false;
+        }
+    }
+
+    @Around("execution(public * org.springframework.samples.petclinic.mapper.*Mapper.*(..))")
+    public Object timeMapper(ProceedingJoinPoint joinPoint) throws Throwable {
+        Timing timing = this.current.get();
+        if (timing == null || timing.inMapper) {
+            // mappers call each other for nested objects
+            return joinPoint.proceed();
+        }
+        timing.inMapper = true;
+        long start = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            timing.mappingNanos += System.nanoTime() - start;
+            timing.inMapper = false;
+        }
+    }
+
+    /**
+     * Reads the database time before {@link StatementMetrics} closes the request, so must be registered after it.
+     */
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Timing timing = this.current.get();
+        if (timing != null && this.statementMetrics != null) {
+            timing.dbNanos = this.statementMetrics.getCurrentNanos();
+            timing.statements = this.statementMetrics.getCurrentStatements();
+        }
+    }
+
+    /**
+     * @return whether the current request is sampled, and so timed
+     */
+    boolean startRequest() {
+        double sampleRate = this.sampleRate;
+        if (sampleRate > 0 && (sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate)) {
+            this.current.set(new Timing());
+            return true;
+        }
+        this.current.remove();
+        return false;
+    }
+
+    boolean isTiming() {
+        return this.current.get() != null;
+    }
+
+    void recordSerialization(long nanos) {
+        Timing timing = this.current.get();
+        if (timing != null) {
+            timing.serializationNanos += nanos;
+        }
+    }
+
+    /**
+     * @return the value of the header, or <code>null</code> if the request was not sampled
+     */
+    String endRequest() {
+        Timing timing = this.current.get();
+        if (timing == null) {
+            return null;
+        }
+        this.current.remove();
+        long total = System.nanoTime() - timing.start;
+        StringBuilder header = new StringBuilder(128);
+        if (timing.statements >= 0) {
+            metric(header, "db", timing.dbNanos).append(";desc=\"").append(timing.statements).append(" statements\", ");
+        }
+        metric(header, "service", timing.serviceNanos).append(", ");
+        metric(header, "mapping", timing.mappingNanos).append(", ");
+        metric(header, "serialization", timing.serializationNanos).append(", ");
+        return metric(header, "total", total).toString();
+    }
+
+    private static StringBuilder metric(StringBuilder header, String name, long nanos) {
+        // milliseconds, to the microsecond
+        return header.append(name).append(";dur=").append(Math.round(nanos / 1000.0) / 1000.0);
+    }
+
+    private static final class Timing {
+
+        private final long start = System.nanoTime();
+
+        private long serviceNanos;
+
+        private long mappingNanos;
+
+        private long serializationNanos;
+
+        private long dbNanos;
+
+        /**
+         * -1 until read from {@link StatementMetrics}
+         */
+        private int statements = -1;
+
+        private boolean inService;
+
+        private boolean inMapper;
+    }
+
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.util;
+
+import java.io.IOException;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.WebUtils;
+
+/**
+ * Adds the <code>Server-Timing</code> header of {@link ServerTiming} to the sampled requests. The body of a sampled
+ * response is held until the request completes, since the header has to go before it and the serialization time is
+ * only known once the body is written; the other responses are streamed as usual. A body that an outer filter already
+ * holds is not copied again.
+ */
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    private final ServerTiming serverTiming;
+
+    public ServerTimingFilter(ServerTiming serverTiming) {
+        this.serverTiming = serverTiming;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        if (!this.serverTiming.startRequest()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        ContentCachingResponseWrapper outer = WebUtils.getNativeResponse(response, ContentCachingResponseWrapper.class);
+        ContentCachingResponseWrapper buffered = outer != null ? outer : new ContentCachingResponseWrapper(response);
+        try {
+            filterChain.doFilter(request, outer != null ? response : buffered);
+        } finally {
+            String header = this.serverTiming.endRequest();
+            if (header != null) {
+                buffered.setHeader(ServerTiming.HEADER, header);
+            }
+        }
+        if (outer == null) {
+            buffered.copyBodyToResponse();
+        }
+    }
+
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.util;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * The JSON converter of the REST controllers, reporting the time it takes to write each body to {@link ServerTiming}.
+ */
+public class ServerTimingMessageConverter extends MappingJackson2HttpMessageConverter {
+
+    private final ServerTiming serverTiming;
+
+    public ServerTimingMessageConverter(ObjectMapper objectMapper, ServerTiming serverTiming) {
+        super(objectMapper);
+        this.serverTiming = serverTiming;
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+        throws IOException, HttpMessageNotWritableException {
+        if (!this.serverTiming.isTiming()) {
+            super.writeInternal(object, type, outputMessage);
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            super.writeInternal(object, type, outputMessage);
+        } finally {
+            this.serverTiming.recordSerialization(System.nanoTime() - start);
+        }
+    }
+
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2002-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Aspect that lets concurrent identical reads share one call: while a call with the same method and arguments is in
+ * flight, other callers wait for it and get its result (or its exception) instead of running the same queries again.
+ * <p/>
+ * It runs outside the transaction advice, so only the first caller opens a transaction and takes a connection. A
+ * caller inside a read-write transaction always runs its own call, because it must see its own uncommitted writes.
+ * As with the caches, the waiting callers get the same instances, so callers that change what they read, like the
+ * update endpoints, must read it in a read-write transaction to get their own copy.
+ */
+@ManagedResource("petclinic:type=SingleFlight")
+@Aspect
+public class SingleFlightAspect implements Ordered {
+
+    private final ConcurrentMap<List<Object>, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong loads = new AtomicLong();
+
+    private final AtomicLong coalescedCalls = new AtomicLong();
+
+    /**
+     * Number of calls that ran, because no identical call was in flight.
+     */
+    @ManagedAttribute
+    public long getLoads() {
+        return this.loads.get();
+    }
+
+    /**
+     * Number of calls that waited for an identical call instead of running.
+     */
+    @ManagedAttribute
+    public long getCoalescedCalls() {
+        return this.coalescedCalls.get();
+    }
+
+    @ManagedAttribute
+    public int getInFlightCalls() {
+        return this.inFlight.size();
+    }
+
+    /**
+     * Runs after {@link ConcurrencyLimitingAspect} and the cache advice, so only cache misses are coalesced, and before
+     * the transaction advice.
+     */
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE - 1;
+    }
+
+    @Around("execution(* org.springframework.samples.petclinic.service.ClinicService.findOwnerById(..))"
+        + " || execution(* org.springframework.samples.petclinic.service.ClinicService.findVets())"
+        + " || execution(* org.springframework.samples.petclinic.service.ClinicService.findPetById(..))"
+        + " || execution(* org.springframework.samples.petclinic.service.ClinicService.findVisitsByPetId(..))")
+    public Object invoke(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+            && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return joinPoint.proceed();
+        }
+        List<Object> key = new ArrayList<>();
+        key.add(((MethodSignature) joinPoint.getSignature()).getMethod());
+        key.addAll(Arrays.asList(joinPoint.getArgs()));
+
+        CompletableFuture<Object> call = new CompletableFuture<>();
+        CompletableFuture<Object> running = this.inFlight.putIfAbsent(key, call);
+        if (running != null) {
+            this.coalescedCalls.incrementAndGet();
+            try {
+                return running.join();
+            } catch (CompletionException ex) {
+                throw ex.getCause();
+            }
+        }
+        this.loads.incrementAndGet();
+        try {
+            Object result = joinPoint.proceed();
+            call.complete(result);
+            return result;
+        } catch (Throwable ex) {
+            call.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            this.inFlight.remove(key, call);
+        }
+    }
+
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.util;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Keeps the most recent SQL statements that took longer than a threshold, with their bound parameters (or only their
+ * types, when parameters are redacted), the rows they read or wrote, and the route, service method and repository
+ * method they ran for. Statements are reported by {@link StatementMetricsDataSource}.
+ * <p/>
+ * Entries go into a fixed size ring buffer: adding one is an increment and an array write, and the oldest entries are
+ * overwritten. A threshold of zero turns the log off, and then parameters are not captured at all. The threshold can be
+ * changed at runtime through {@link SlowStatementLogEndpoint}; the redaction is only set at startup, so that bound
+ * values, which can be personal data or passwords, cannot be exposed by a request to the endpoint.
+ */
+public class SlowStatementLog {
+
+    private final AtomicReferenceArray<SlowStatement> entries;
+
+    private final int mask;
+
+    private final AtomicLong added = new AtomicLong();
+
+    private volatile long thresholdNanos;
+
+    private final boolean redactParameters;
+
+    /**
+     * @param capacity rounded up to a power of two
+     */
+    public SlowStatementLog(int capacity, Duration threshold, boolean redactParameters) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        this.entries = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.thresholdNanos = threshold.toNanos();
+        this.redactParameters = redactParameters;
+    }
+
+    public boolean isEnabled() {
+        return this.thresholdNanos > 0;
+    }
+
+    boolean isSlow(long nanos) {
+        long threshold = this.thresholdNanos;
+        return threshold > 0 && nanos >= threshold;
+    }
+
+    public Duration getThreshold() {
+        return Duration.ofNanos(this.thresholdNanos);
+    }
+
+    public void setThreshold(Duration threshold) {
+        this.thresholdNanos = threshold.toNanos();
+    }
+
+    public boolean isRedactParameters() {
+        return this.redactParameters;
+    }
+
+    public int getCapacity() {
+        return this.mask + 1;
+    }
+
+    /**
+     * @return the statements logged since startup, including those overwritten since
+     */
+    public long getAdded() {
+        return this.added.get();
+    }
+
+    /**
+     * @return the logged statements, most recent first
+     */
+    public List<SlowStatement> getStatements() {
+        long last = this.added.get();
+        List<SlowStatement> statements = new ArrayList<>();
+        for (long i = last - 1; i >= 0 && i >= last - getCapacity(); i--) {
+            SlowStatement statement = this.entries.get((int) i & this.mask);
+            if (statement != null) {
+                statements.add(statement);
+            }
+        }
+        return statements;
+    }
+
+    public void clear() {
+        for (int i = 0; i < this.entries.length(); i++) {
+            this.entries.set(i, null);
+        }
+    }
+
+    /**
+     * @return the new entry, or <code>null</code> if the statement was not slow
+     */
+    SlowStatement add(String sql, Object[] parameters, long nanos, String route, String service, String repository) {
+        if (!isSlow(nanos)) {
+            return null;
+        }
+        SlowStatement statement = new SlowStatement(sql, parameters(parameters), nanos, route, service, repository);
+        this.entries.set((int) this.added.getAndIncrement() & this.mask, statement);
+        return statement;
+    }
+
+    private List<String> parameters(Object[] parameters) {
+        if (parameters == null) {
+            return Collections.emptyList();
+        }
+        String[] values = new String[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            Object value = parameters[i];
+            if (value == null) {
+                values[i] = "null";
+            } else {
+                values[i] = this.redactParameters ? "?:" + value.getClass().getSimpleName() : String.valueOf(value);
+            }
+        }
+        return Arrays.asList(values);
+    }
+
+    public static final class SlowStatement {
+
+        private final Instant time = Instant.now();
+
+        private final String sql;
+
+        private final List<String> parameters;
+
+        private final long nanos;
+
+        private final String route;
+
+        private final String service;
+
+        private final String repository;
+
+        private volatile long rows = -1;
+
+        SlowStatement(String sql, List<String> parameters, long nanos, String route, String service, String repository) {
+            this.sql = sql;
+            this.parameters = parameters;
+            this.nanos = nanos;
+            this.route = route;
+            this.service = service;
+            this.repository = repository;
+        }
+
+        public Instant getTime() {
+            return this.time;
+        }
+
+        public String getSql() {
+            return this.sql;
+        }
+
+        public List<String> getParameters() {
+            return this.parameters;
+        }
+
+        public double getElapsedMillis() {
+            return this.nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        }
+
+        /**
+         * @return the rows updated, or read from the result set so far, or -1 if unknown
+         */
+        public long getRows() {
+            return this.rows;
+        }
+
+        public String getRoute() {
+            return this.route;
+        }
+
+        public String getService() {
+            return this.service;
+        }
+
+        public String getRepository() {
+            return this.repository;
+        }
+
+        void setRows(long rows) {
+            this.rows = rows;
+        }
+    }
+
+}
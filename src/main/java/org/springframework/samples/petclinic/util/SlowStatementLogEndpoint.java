@@ -0,0 +1,65 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.convert.DurationStyle;
+
+/**
+ * Actuator endpoint (<code>/actuator/slowstatements</code>, and the <code>Slowstatements</code> JMX endpoint) that
+ * lists the statements of the {@link SlowStatementLog}, changes its threshold (a POST with
+ * <code>{"threshold": "50ms"}</code>, or <code>"0"</code> to turn the log off) and clears it (DELETE). The parameter
+ * redaction cannot be changed here. The endpoint is exported over JMX only, unless it is added to
+ * <code>management.endpoints.web.exposure.include</code>.
+ */
+@Endpoint(id = "slowstatements")
+public class SlowStatementLogEndpoint {
+
+    private final SlowStatementLog slowStatementLog;
+
+    public SlowStatementLogEndpoint(SlowStatementLog slowStatementLog) {
+        this.slowStatementLog = slowStatementLog;
+    }
+
+    @ReadOperation
+    public Map<String, Object> slowStatements() {
+        Map<String, Object> log = new LinkedHashMap<>();
+        log.put("threshold", this.slowStatementLog.getThreshold().toString());
+        log.put("redactParameters", this.slowStatementLog.isRedactParameters());
+        log.put("capacity", this.slowStatementLog.getCapacity());
+        log.put("added", this.slowStatementLog.getAdded());
+        log.put("statements", this.slowStatementLog.getStatements());
+        return log;
+    }
+
+    @WriteOperation
+    public void configure(String threshold) {
+        this.slowStatementLog.setThreshold(DurationStyle.detectAndParse(threshold));
+    }
+
+    @DeleteOperation
+    public void clear() {
+        this.slowStatementLog.clear();
+    }
+
+}
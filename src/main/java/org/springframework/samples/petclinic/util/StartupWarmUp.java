@@ -0,0 +1,199 @@
+/*
+ * Copyright 2002-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.util;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.Pet;
+import org.springframework.samples.petclinic.model.PetType;
+import org.springframework.samples.petclinic.model.Specialty;
+import org.springframework.samples.petclinic.model.Vet;
+import org.springframework.samples.petclinic.model.Visit;
+import org.springframework.samples.petclinic.service.ClinicService;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+
+/**
+ * Warms the application up after startup, before it reports ready: Spring Boot only switches the readiness state to
+ * accepting traffic once all application runners are done.
+ * <p/>
+ * The warm-up opens the given number of pool connections, reads the first owners, pets, visits and vets by id the
+ * given number of times, and finally loads the cached vets, pet types and specialties. Only when asked, it also runs
+ * the writes of {@link ClinicService} in a transaction that is rolled back, which looks up the insert metadata of the
+ * JDBC repositories and compiles the JPA insert statements, but uses up identity values, takes write locks and evicts
+ * the caches. A failing step is logged and skipped. The total time is exported as the
+ * <code>petclinic.warmup.time</code> metric.
+ */
+public class StartupWarmUp implements ApplicationRunner {
+
+    private static final Log logger = LogFactory.getLog(StartupWarmUp.class);
+
+    private final ClinicService clinicService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final DataSource dataSource;
+
+    private final MeterRegistry meterRegistry;
+
+    private final int connections;
+
+    private final int sampleSize;
+
+    private final int iterations;
+
+    private final boolean writes;
+
+    private volatile long durationNanos;
+
+    public StartupWarmUp(ClinicService clinicService, TransactionTemplate transactionTemplate, DataSource dataSource,
+                         MeterRegistry meterRegistry, int connections, int sampleSize, int iterations,
+                         boolean writes) {
+        this.clinicService = clinicService;
+        this.transactionTemplate = transactionTemplate;
+        this.dataSource = dataSource;
+        this.meterRegistry = meterRegistry;
+        this.connections = connections;
+        this.sampleSize = sampleSize;
+        this.iterations = iterations;
+        this.writes = writes;
+    }
+
+    public long getDuration(TimeUnit unit) {
+        return unit.convert(this.durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.nanoTime();
+        step("fill the connection pool", this::openConnections);
+        if (this.writes) {
+            step("run the writes", this::writeAndRollBack);
+        }
+        step("run the reads", this::read);
+        // last, because the writes evict the caches
+        step("load the cached reference data", this::loadReferenceData);
+        this.durationNanos = System.nanoTime() - start;
+        TimeGauge.builder("petclinic.warmup.time", this, TimeUnit.MILLISECONDS, warmUp -> warmUp.getDuration(TimeUnit.MILLISECONDS))
+            .description("Time taken by the startup warm-up")
+            .register(this.meterRegistry);
+        logger.info("Warmed up in " + getDuration(TimeUnit.MILLISECONDS) + " ms");
+    }
+
+    private void step(String name, Runnable step) {
+        long start = System.nanoTime();
+        try {
+            step.run();
+            logger.debug("Warm-up: " + name + " took " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+        } catch (RuntimeException ex) {
+            logger.warn("Warm-up: could not " + name, ex);
+        }
+    }
+
+    private void openConnections() {
+        List<Connection> opened = new ArrayList<>();
+        try {
+            for (int i = 0; i < this.connections; i++) {
+                Connection connection = this.dataSource.getConnection();
+                opened.add(connection);
+                connection.isValid(1);
+            }
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Could not open connection " + (opened.size() + 1), ex);
+        } finally {
+            for (Connection connection : opened) {
+                try {
+                    connection.close();
+                } catch (SQLException ex) {
+                    logger.debug("Could not close a warm-up connection", ex);
+                }
+            }
+        }
+    }
+
+    private void writeAndRollBack() {
+        this.transactionTemplate.executeWithoutResult(status -> {
+            status.setRollbackOnly();
+            Owner owner = new Owner();
+            owner.setFirstName("Warm");
+            owner.setLastName("Up");
+            owner.setAddress("1 Warm-up Street");
+            owner.setCity("Madison");
+            owner.setTelephone("6085550000");
+            this.clinicService.saveOwner(owner);
+
+            Pet pet = new Pet();
+            pet.setName("warm-up");
+            pet.setBirthDate(LocalDate.now());
+            pet.setType(this.clinicService.findPetTypes().iterator().next());
+            owner.addPet(pet);
+            this.clinicService.savePet(pet);
+
+            Visit visit = new Visit();
+            visit.setDescription("warm-up");
+            pet.addVisit(visit);
+            this.clinicService.saveVisit(visit);
+
+            Vet vet = new Vet();
+            vet.setFirstName("Warm");
+            vet.setLastName("Up");
+            this.clinicService.saveVet(vet);
+
+            PetType petType = new PetType();
+            petType.setName("warm-up");
+            this.clinicService.savePetType(petType);
+
+            Specialty specialty = new Specialty();
+            specialty.setName("warm-up");
+            this.clinicService.saveSpecialty(specialty);
+        });
+    }
+
+    private void read() {
+        for (int i = 0; i < this.iterations; i++) {
+            for (int id = 1; id <= this.sampleSize; id++) {
+                Owner owner = this.clinicService.findOwnerById(id);
+                if (owner != null) {
+                    this.clinicService.findOwnerByLastName(owner.getLastName());
+                }
+                this.clinicService.findPetById(id);
+                this.clinicService.findVisitsByPetId(id);
+                this.clinicService.findVetById(id);
+            }
+        }
+    }
+
+    private void loadReferenceData() {
+        this.clinicService.findVets();
+        this.clinicService.findAllPetTypes();
+        this.clinicService.findAllSpecialties();
+    }
+
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Attributes the SQL statements run through a {@link StatementMetricsDataSource} to the HTTP route and the
+ * <code>ClinicService</code> method they ran for, so that the database share of a slow endpoint, and N+1 query
+ * patterns, show up in the metrics:
+ * <ul>
+ * <li><code>petclinic.db.statements</code>, <code>petclinic.db.rows</code> (rows fetched) and
+ * <code>petclinic.db.time</code>, tagged with the route (<code>uri</code>) and the service method
+ * (<code>service</code>);</li>
+ * <li><code>petclinic.db.request.statements</code> and <code>petclinic.db.request.time</code>, the statements and
+ * database time of each request, tagged with the route.</li>
+ * </ul>
+ * The route is the pattern of the handler (<code>/api/owners/{ownerId}</code>), set by this class as a
+ * {@link HandlerInterceptor}; the service method, and the repository method used by the {@link SlowStatementLog}, are
+ * set by this class as an aspect. Statements outside a request, or outside a service call (like lazy loading while the
+ * response is written), are tagged <code>none</code>.
+ * <p/>
+ * The statements of each request are also passed to the {@link NPlusOneDetector}.
+ */
+@Aspect
+public class StatementMetrics implements HandlerInterceptor, MeterBinder, Ordered {
+
+    static final String NONE = "none";
+
+    private final ThreadLocal<Attribution> attribution = ThreadLocal.withInitial(Attribution::new);
+
+    private final ConcurrentMap<String, ConcurrentMap<String, StatementMeters>> meters = new ConcurrentHashMap<>();
+
+    private final NPlusOneDetector nPlusOneDetector;
+
+    private volatile MeterRegistry registry;
+
+    public StatementMetrics(NPlusOneDetector nPlusOneDetector) {
+        this.nPlusOneDetector = nPlusOneDetector;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Inside {@link CallMonitoringAspect}, outside the transactions.
+     */
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 2;
+    }
+
+    @Around("execution(public * org.springframework.samples.petclinic.service.ClinicService.*(..))")
+    public Object attributeToServiceMethod(ProceedingJoinPoint joinPoint) throws Throwable {
+        Attribution current = this.attribution.get();
+        String outer = current.service;
+        if (!NONE.equals(outer)) {
+            // nested calls stay with the method that was called first
+            return joinPoint.proceed();
+        }
+        current.service = joinPoint.getSignature().getName();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            current.service = outer;
+        }
+    }
+
+    @Around("execution(public * org.springframework.samples.petclinic.repository.*Repository.*(..))")
+    public Object attributeToRepositoryMethod(ProceedingJoinPoint joinPoint) throws Throwable {
+        Attribution current = this.attribution.get();
+        String outer = current.repository;
+        if (!NONE.equals(outer)) {
+            return joinPoint.proceed();
+        }
+        current.repository = MethodNames.of(((MethodSignature) joinPoint.getSignature()).getMethod());
+        try {
+            return joinPoint.proceed();
+        } finally {
+            current.repository = outer;
+        }
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        Attribution current = this.attribution.get();
+        current.route = pattern != null ? pattern.toString() : NONE;
+        current.statements = 0;
+        current.nanos = 0;
+        this.nPlusOneDetector.startRequest();
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Attribution current = this.attribution.get();
+        MeterRegistry registry = this.registry;
+        if (registry != null && !NONE.equals(current.route)) {
+            DistributionSummary.builder("petclinic.db.request.statements")
+                .tag("uri", current.route)
+                .description("SQL statements run by a request")
+                .register(registry)
+                .record(current.statements);
+            Timer.builder("petclinic.db.request.time")
+                .tag("uri", current.route)
+                .description("Time a request spent running SQL statements")
+                .register(registry)
+                .record(current.nanos, TimeUnit.NANOSECONDS);
+        }
+        this.nPlusOneDetector.endRequest(current.route);
+        this.attribution.remove();
+    }
+
+    /**
+     * @return the statements run by the current request so far, or since the last request on this thread
+     */
+    public int getCurrentStatements() {
+        return this.attribution.get().statements;
+    }
+
+    /**
+     * @return the time the current request spent running statements so far, in nanoseconds
+     */
+    public long getCurrentNanos() {
+        return this.attribution.get().nanos;
+    }
+
+    String currentRoute() {
+        return this.attribution.get().route;
+    }
+
+    String currentService() {
+        return this.attribution.get().service;
+    }
+
+    String currentRepository() {
+        return this.attribution.get().repository;
+    }
+
+    /**
+     * @return whether the parameters of the statements run now are needed
+     */
+    boolean isCapturingParameters() {
+        return this.nPlusOneDetector.isSampling();
+    }
+
+    /**
+     * @param parametersHash the hash of the bound parameters, if {@link #isCapturingParameters()}
+     */
+    void recordStatement(String sql, int parametersHash, long nanos) {
+        Attribution current = this.attribution.get();
+        this.nPlusOneDetector.statement(sql, parametersHash, current.repository);
+        current.statements++;
+        current.nanos += nanos;
+        StatementMeters meters = meters(current);
+        if (meters != null) {
+            meters.statements.increment();
+            meters.time.record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    void recordRows(long rows) {
+        StatementMeters meters = meters(this.attribution.get());
+        if (meters != null) {
+            meters.rows.increment(rows);
+        }
+    }
+
+    private StatementMeters meters(Attribution attribution) {
+        MeterRegistry registry = this.registry;
+        if (registry == null) {
+            return null;
+        }
+        ConcurrentMap<String, StatementMeters> byService = this.meters.get(attribution.route);
+        if (byService == null) {
+            byService = this.meters.computeIfAbsent(attribution.route, route -> new ConcurrentHashMap<>());
+        }
+        StatementMeters meters = byService.get(attribution.service);
+        if (meters == null) {
+            String route = attribution.route;
+            meters = byService.computeIfAbsent(attribution.service, service -> new StatementMeters(registry, route, service));
+        }
+        return meters;
+    }
+
+    private static final class Attribution {
+
+        private String route = NONE;
+
+        private String service = NONE;
+
+        private String repository = NONE;
+
+        private int statements;
+
+        private long nanos;
+    }
+
+    private static final class StatementMeters {
+
+        private final Counter statements;
+
+        private final Counter rows;
+
+        private final Timer time;
+
+        StatementMeters(MeterRegistry registry, String route, String service) {
+            this.statements = Counter.builder("petclinic.db.statements")
+                .tags("uri", route, "service", service)
+                .description("SQL statements run")
+                .register(registry);
+            this.rows = Counter.builder("petclinic.db.rows")
+                .tags("uri", route, "service", service)
+                .description("Rows fetched from SQL queries")
+                .register(registry);
+            this.time = Timer.builder("petclinic.db.time")
+                .tags("uri", route, "service", service)
+                .description("Time spent running SQL statements")
+                .register(registry);
+        }
+    }
+
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Objects;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Data source that reports every SQL statement run on its connections, with its duration, and the rows read from its
+ * result sets, to {@link StatementMetrics}, and the slow ones, with their SQL and bound parameters, to the
+ * {@link SlowStatementLog}. Connections and statements are wrapped in JDK proxies, which see a few calls per
+ * statement; result sets, whose methods are called for every row and column, are wrapped in a
+ * {@link DelegatingResultSet} that only counts the calls to <code>next</code>. Pools and Spring Boot still find the
+ * target data source through {@link #unwrap}.
+ */
+public class StatementMetricsDataSource extends DelegatingDataSource {
+
+    private final StatementMetrics statementMetrics;
+
+    private final SlowStatementLog slowStatementLog;
+
+    public StatementMetricsDataSource(DataSource targetDataSource, StatementMetrics statementMetrics,
+                                      SlowStatementLog slowStatementLog) {
+        super(targetDataSource);
+        this.statementMetrics = statementMetrics;
+        this.slowStatementLog = slowStatementLog;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(Connection.class, obtainTargetDataSource().getConnection(), new ConnectionHandler());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(Connection.class, obtainTargetDataSource().getConnection(username, password), new ConnectionHandler());
+    }
+
+    private static <T> T wrap(Class<T> type, T target, TargetHandler handler) {
+        handler.target = target;
+        return type.cast(Proxy.newProxyInstance(StatementMetricsDataSource.class.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    private abstract static class TargetHandler implements InvocationHandler {
+
+        Object target;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getName().equals("equals") && method.getParameterCount() == 1) {
+                return proxy == args[0];
+            }
+            if (method.getName().equals("hashCode") && method.getParameterCount() == 0) {
+                return System.identityHashCode(proxy);
+            }
+            return handle(method, args);
+        }
+
+        abstract Object handle(Method method, Object[] args) throws Throwable;
+
+        Object proceed(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(this.target, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getTargetException();
+            }
+        }
+    }
+
+    private class ConnectionHandler extends TargetHandler {
+
+        @Override
+        Object handle(Method method, Object[] args) throws Throwable {
+            Object result = proceed(method, args);
+            // prepareStatement and prepareCall take the SQL first
+            String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+            if (result instanceof CallableStatement) {
+                return wrap(CallableStatement.class, (CallableStatement) result, new StatementHandler(sql));
+            }
+            if (result instanceof PreparedStatement) {
+                return wrap(PreparedStatement.class, (PreparedStatement) result, new StatementHandler(sql));
+            }
+            if (result instanceof Statement) {
+                return wrap(Statement.class, (Statement) result, new StatementHandler(sql));
+            }
+            return result;
+        }
+    }
+
+    private class StatementHandler extends TargetHandler {
+
+        private final String sql;
+
+        private Object[] parameters;
+
+        private int parameterCount;
+
+        /**
+         * The entry of the last execution, if it was slow, to count the rows of its result set.
+         */
+        private SlowStatementLog.SlowStatement slowStatement;
+
+        StatementHandler(String sql) {
+            this.sql = sql;
+        }
+
+        @Override
+        Object handle(Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (!name.startsWith("execute")) {
+                if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                    bind((Integer) args[0], name.equals("setNull") ? null : args[1]);
+                } else if (name.equals("clearParameters")) {
+                    this.parameterCount = 0;
+                }
+                return wrapResultSet(proceed(method, args));
+            }
+            long start = System.nanoTime();
+            Object result = null;
+            try {
+                result = proceed(method, args);
+            } finally {
+                long nanos = System.nanoTime() - start;
+                String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : this.sql;
+                statementMetrics.recordStatement(sql, parametersHash(), nanos);
+                logIfSlow(sql, nanos, result);
+            }
+            return wrapResultSet(result);
+        }
+
+        private void bind(int index, Object value) {
+            if (!slowStatementLog.isEnabled() && !statementMetrics.isCapturingParameters()) {
+                return;
+            }
+            if (this.parameters == null) {
+                this.parameters = new Object[Math.max(index, 8)];
+            } else if (this.parameters.length < index) {
+                this.parameters = Arrays.copyOf(this.parameters, Math.max(index, this.parameters.length * 2));
+            }
+            this.parameters[index - 1] = value;
+            this.parameterCount = Math.max(this.parameterCount, index);
+        }
+
+        private int parametersHash() {
+            int hash = 1;
+            for (int i = 0; i < this.parameterCount; i++) {
+                hash = 31 * hash + Objects.hashCode(this.parameters[i]);
+            }
+            return hash;
+        }
+
+        private void logIfSlow(String sql, long nanos, Object result) {
+            this.slowStatement = null;
+            if (!slowStatementLog.isSlow(nanos)) {
+                return;
+            }
+            Object[] parameters = this.parameterCount > 0 ? Arrays.copyOf(this.parameters, this.parameterCount) : null;
+            this.slowStatement = slowStatementLog.add(sql, parameters, nanos, statementMetrics.currentRoute(),
+                statementMetrics.currentService(), statementMetrics.currentRepository());
+            if (this.slowStatement != null && (result instanceof Integer || result instanceof Long)) {
+                this.slowStatement.setRows(((Number) result).longValue());
+                // the rows of the generated keys are not the rows of the statement
+                this.slowStatement = null;
+            }
+        }
+
+        private Object wrapResultSet(Object result) {
+            // from executeQuery, getResultSet or getGeneratedKeys
+            return result instanceof ResultSet ? new RowCountingResultSet((ResultSet) result, this.slowStatement) : result;
+        }
+    }
+
+    private class RowCountingResultSet extends DelegatingResultSet {
+
+        private final SlowStatementLog.SlowStatement slowStatement;
+
+        private long rows;
+
+        private long totalRows;
+
+        RowCountingResultSet(ResultSet target, SlowStatementLog.SlowStatement slowStatement) {
+            super(target);
+            this.slowStatement = slowStatement;
+        }
+
+        @Override
+        public boolean next() throws SQLException {
+            boolean next = this.target.next();
+            if (next) {
+                this.rows++;
+            } else {
+                flushRows();
+            }
+            return next;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            try {
+                this.target.close();
+            } finally {
+                flushRows();
+            }
+        }
+
+        private void flushRows() {
+            if (this.rows > 0) {
+                statementMetrics.recordRows(this.rows);
+                this.totalRows += this.rows;
+                this.rows = 0;
+            }
+            if (this.slowStatement != null) {
+                this.slowStatement.setRows(this.totalRows);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.util.jfr;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.http.ResponseEntity;
+import org.springframework.samples.petclinic.model.BaseEntity;
+import org.springframework.samples.petclinic.util.MethodNames;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import jdk.jfr.EventType;
+
+/**
+ * Aspect that emits Java Flight Recorder events for REST controller invocations ({@link RequestEvent}),
+ * <code>ClinicService</code> methods ({@link ServiceCallEvent}) and repository methods ({@link RepositoryCallEvent}),
+ * with the entity type, the entity id and the number of entities returned.
+ * <p/>
+ * While no recording has an event enabled, the advice only reads the enabled flag of its event type and calls the
+ * method: nothing is allocated. The events are enabled by the <code>petclinic.jfc</code> settings, for example with
+ * <code>-XX:StartFlightRecording:settings=/path/to/petclinic.jfc</code>, or by any recording that enables them.
+ */
+@Aspect
+public class FlightRecorderAspect implements Ordered {
+
+    private static final EventType REQUEST = EventType.getEventType(RequestEvent.class);
+
+    private static final EventType SERVICE_CALL = EventType.getEventType(ServiceCallEvent.class);
+
+    private static final EventType REPOSITORY_CALL = EventType.getEventType(RepositoryCallEvent.class);
+
+    private static final int NO_ID = -1;
+
+    private final ConcurrentMap<Method, String> entityTypes = new ConcurrentHashMap<>();
+
+    /**
+     * Inside the other monitoring aspects, outside the transactions.
+     */
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 3;
+    }
+
+    @Around("execution(public * org.springframework.samples.petclinic.rest.controller.*RestController.*(..))")
+    public Object recordRequest(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!REQUEST.isEnabled()) {
+            return joinPoint.proceed();
+        }
+        RequestEvent event = new RequestEvent();
+        event.begin();
+        Object result = null;
+        try {
+            result = joinPoint.proceed();
+            return result;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                String controller = joinPoint.getSignature().getDeclaringType().getSimpleName();
+                event.handler = controller + "." + joinPoint.getSignature().getName();
+                event.entityType = controller.replace("RestController", "");
+                event.entityId = idArgument(joinPoint.getArgs());
+                RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+                if (attributes instanceof ServletRequestAttributes) {
+                    HttpServletRequest request = ((ServletRequestAttributes) attributes).getRequest();
+                    event.httpMethod = request.getMethod();
+                    Object route = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                    event.route = route != null ? route.toString() : null;
+                }
+                if (result instanceof ResponseEntity) {
+                    ResponseEntity<?> response = (ResponseEntity<?>) result;
+                    event.status = response.getStatusCodeValue();
+                    event.rows = rows(response.getBody());
+                }
+                event.commit();
+            }
+        }
+    }
+
+    @Around("execution(public * org.springframework.samples.petclinic.service.ClinicService.*(..))")
+    public Object recordServiceCall(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!SERVICE_CALL.isEnabled()) {
+            return joinPoint.proceed();
+        }
+        ServiceCallEvent event = new ServiceCallEvent();
+        event.begin();
+        Object result = null;
+        boolean failed = true;
+        try {
+            result = joinPoint.proceed();
+            failed = false;
+            return result;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.method = joinPoint.getSignature().getName();
+                event.entityType = entityType(joinPoint);
+                event.entityId = entityId(joinPoint.getArgs(), result);
+                event.rows = rows(joinPoint.getArgs(), result);
+                event.failed = failed;
+                event.commit();
+            }
+        }
+    }
+
+    @Around("execution(public * org.springframework.samples.petclinic.repository.*Repository.*(..))")
+    public Object recordRepositoryCall(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!REPOSITORY_CALL.isEnabled()) {
+            return joinPoint.proceed();
+        }
+        RepositoryCallEvent event = new RepositoryCallEvent();
+        event.begin();
+        Object result = null;
+        boolean failed = true;
+        try {
+            result = joinPoint.proceed();
+            failed = false;
+            return result;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.method = MethodNames.of(((MethodSignature) joinPoint.getSignature()).getMethod());
+                event.entityType = entityType(joinPoint);
+                event.entityId = entityId(joinPoint.getArgs(), result);
+                event.rows = rows(joinPoint.getArgs(), result);
+                event.failed = failed;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * The entity class in the return type, or else in the parameter types, like <code>Owner</code> for
+     * <code>Optional&lt;Owner&gt; findById(int)</code> and <code>void saveAll(Collection&lt;Owner&gt;)</code>.
+     */
+    private String entityType(ProceedingJoinPoint joinPoint) {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        String entityType = this.entityTypes.get(method);
+        if (entityType == null) {
+            entityType = this.entityTypes.computeIfAbsent(method, key -> {
+                Class<?> type = entityClass(key.getGenericReturnType());
+                for (Type parameterType : key.getGenericParameterTypes()) {
+                    if (type == null) {
+                        type = entityClass(parameterType);
+                    }
+                }
+                return type != null ? type.getSimpleName() : "";
+            });
+        }
+        return entityType;
+    }
+
+    private static Class<?> entityClass(Type type) {
+        if (type instanceof Class && BaseEntity.class.isAssignableFrom((Class<?>) type)) {
+            return (Class<?>) type;
+        }
+        if (type instanceof ParameterizedType) {
+            Type[] arguments = ((ParameterizedType) type).getActualTypeArguments();
+            return arguments.length == 1 ? entityClass(arguments[0]) : null;
+        }
+        return null;
+    }
+
+    /**
+     * The first int argument, or else the id of the entity passed or returned (after a save, the generated one).
+     */
+    private static int entityId(Object[] args, Object result) {
+        int id = idArgument(args);
+        if (id != NO_ID) {
+            return id;
+        }
+        if (args.length > 0 && args[0] instanceof BaseEntity) {
+            return id((BaseEntity) args[0]);
+        }
+        if (result instanceof Optional) {
+            result = ((Optional<?>) result).orElse(null);
+        }
+        return result instanceof BaseEntity ? id((BaseEntity) result) : NO_ID;
+    }
+
+    private static int idArgument(Object[] args) {
+        for (Object arg : args) {
+            if (arg instanceof Integer) {
+                return (Integer) arg;
+            }
+        }
+        return NO_ID;
+    }
+
+    private static int id(BaseEntity entity) {
+        return entity.getId() != null ? entity.getId() : NO_ID;
+    }
+
+    /**
+     * The entities returned, or else the entities passed to a method that returns nothing, like a save.
+     */
+    private static int rows(Object[] args, Object result) {
+        if (result == null && args.length > 0 && (args[0] instanceof BaseEntity || args[0] instanceof Collection)) {
+            return rows(args[0]);
+        }
+        return rows(result);
+    }
+
+    private static int rows(Object result) {
+        if (result == null) {
+            return 0;
+        }
+        if (result instanceof Optional) {
+            return ((Optional<?>) result).isPresent() ? 1 : 0;
+        }
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        return 1;
+    }
+
+}
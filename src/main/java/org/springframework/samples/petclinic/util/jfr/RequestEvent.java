@@ -0,0 +1,61 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.util.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Invocation of a REST controller method.
+ */
+@Name(RequestEvent.NAME)
+@Label("Request")
+@Category({"Petclinic"})
+@Description("Invocation of a REST controller method")
+@StackTrace(false)
+class RequestEvent extends Event {
+
+    static final String NAME = "org.springframework.samples.petclinic.Request";
+
+    @Label("HTTP Method")
+    String httpMethod;
+
+    @Label("Route")
+    String route;
+
+    @Label("Handler")
+    String handler;
+
+    @Label("Entity Type")
+    String entityType;
+
+    @Label("Entity Id")
+    @Description("Id of the entity the request is about, or -1")
+    int entityId;
+
+    @Label("Rows")
+    @Description("Entities in the response body")
+    int rows;
+
+    @Label("Status")
+    int status;
+
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.util.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Call of a <code>ClinicService</code> method.
+ */
+@Name(ServiceCallEvent.NAME)
+@Label("Service Call")
+@Category({"Petclinic"})
+@Description("Call of a ClinicService method")
+@StackTrace(false)
+class ServiceCallEvent extends Event {
+
+    static final String NAME = "org.springframework.samples.petclinic.ServiceCall";
+
+    @Label("Method")
+    String method;
+
+    @Label("Entity Type")
+    String entityType;
+
+    @Label("Entity Id")
+    @Description("Id of the entity read or written, or -1")
+    int entityId;
+
+    @Label("Rows")
+    @Description("Entities returned")
+    int rows;
+
+    @Label("Failed")
+    boolean failed;
+
+}
@@ -0,0 +1,4 @@
+/**
+ * Java Flight Recorder events for the requests, service calls and repository calls of the application.
+ */
+package org.springframework.samples.petclinic.util.jfr;
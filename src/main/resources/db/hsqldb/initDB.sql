@@ -7,6 +7,7 @@ DROP TABLE types IF EXISTS;
 DROP TABLE owners IF EXISTS;
 DROP TABLE roles IF EXISTS;
 DROP TABLE users IF EXISTS;
+DROP TABLE cache_invalidations IF EXISTS;
 
 
 CREATE TABLE vets (
@@ -80,3 +81,11 @@ CREATE TABLE roles (
 ALTER TABLE roles ADD CONSTRAINT fk_username FOREIGN KEY (username) REFERENCES users (username);
 CREATE INDEX fk_username_idx ON roles (username);
 
+CREATE TABLE cache_invalidations (
+  id         BIGINT IDENTITY PRIMARY KEY,
+  cache_name VARCHAR(30) NOT NULL,
+  cache_key  INTEGER,
+  node_id    VARCHAR(36) NOT NULL,
+  created    TIMESTAMP NOT NULL
+);
+CREATE INDEX cache_invalidations_created ON cache_invalidations (created);
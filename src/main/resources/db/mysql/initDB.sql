@@ -80,3 +80,12 @@ CREATE TABLE IF NOT EXISTS roles (
   KEY fk_username_idx (username),
   CONSTRAINT fk_username FOREIGN KEY (username) REFERENCES users (username)
 ) engine=InnoDB;
+
+CREATE TABLE IF NOT EXISTS cache_invalidations (
+  id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+  cache_name VARCHAR(30) NOT NULL,
+  cache_key INT(4) UNSIGNED,
+  node_id VARCHAR(36) NOT NULL,
+  created TIMESTAMP NOT NULL,
+  INDEX(created)
+) engine=InnoDB;
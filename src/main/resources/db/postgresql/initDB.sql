@@ -100,3 +100,13 @@ CREATE TABLE IF NOT EXISTS roles (
 
 ALTER TABLE roles ADD CONSTRAINT uni_username_role UNIQUE (role,username);
 ALTER SEQUENCE roles_id_seq RESTART WITH 100;
+
+CREATE TABLE IF NOT EXISTS cache_invalidations (
+  id BIGSERIAL,
+  cache_name VARCHAR(30) NOT NULL,
+  cache_key INTEGER,
+  node_id VARCHAR(36) NOT NULL,
+  created TIMESTAMP NOT NULL,
+  CONSTRAINT pk_cache_invalidations PRIMARY KEY (id)
+);
+CREATE INDEX IF NOT EXISTS idx_cache_invalidations_created ON cache_invalidations (created);
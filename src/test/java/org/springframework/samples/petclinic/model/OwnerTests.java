@@ -0,0 +1,102 @@
+package org.springframework.samples.petclinic.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the sorted associations of {@link Owner} and {@link Pet}
+ */
+class OwnerTests {
+
+    @Test
+    void shouldKeepPetsSortedByName() {
+        Owner owner = new Owner();
+        owner.addPet(pet("Leo"));
+        owner.addPet(pet("basil"));
+        owner.addPet(pet("Max"));
+        owner.addPet(pet("Max"));
+
+        List<Pet> pets = owner.getPets();
+        assertThat(pets).extracting(Pet::getName).containsExactly("basil", "Leo", "Max", "Max");
+
+        pets.get(0).setName("Rosy");
+        assertThat(pets).extracting(Pet::getName).containsExactly("Leo", "Max", "Max", "Rosy");
+        assertThatThrownBy(() -> pets.remove(0)).isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    void shouldKeepVisitsSortedByDateMostRecentFirst() {
+        Pet pet = pet("Leo");
+        pet.addVisit(visit(LocalDate.of(2013, 1, 2)));
+        pet.addVisit(visit(LocalDate.of(2013, 1, 4)));
+        pet.addVisit(visit(LocalDate.of(2013, 1, 3)));
+
+        assertThat(pet.getVisits()).extracting(Visit::getDate)
+            .containsExactly(LocalDate.of(2013, 1, 4), LocalDate.of(2013, 1, 3), LocalDate.of(2013, 1, 2));
+
+        pet.getVisits().get(0).setDate(LocalDate.of(2013, 1, 1));
+        assertThat(pet.getVisits()).extracting(Visit::getDate)
+            .containsExactly(LocalDate.of(2013, 1, 3), LocalDate.of(2013, 1, 2), LocalDate.of(2013, 1, 1));
+    }
+
+    @Test
+    void shouldKeepPetsWithTheSameNameAndVisitsOnTheSameDate() {
+        Owner owner = new Owner();
+        Pet pet = pet("Max");
+        pet.setId(2);
+        owner.addPet(pet);
+        for (int i = 0; i < 1000; i++) {
+            owner.addPet(pet("Max"));
+        }
+        Pet saved = pet("Max");
+        saved.setId(1);
+        owner.addPet(saved);
+
+        assertThat(owner.getPets()).hasSize(1002);
+        assertThat(owner.getPets().get(0)).isSameAs(pet);
+        assertThat(owner.getPets().get(1001)).isSameAs(saved);
+
+        for (int i = 0; i < 1000; i++) {
+            Visit visit = visit(LocalDate.of(2013, 1, 2));
+            visit.setId(i % 2 == 0 ? i : null);
+            pet.addVisit(visit);
+        }
+        assertThat(pet.getVisits()).hasSize(1000);
+    }
+
+    @Test
+    void shouldRenameAPetWithTheSameNameAsAnotherAfterItIsSaved() {
+        Owner owner = new Owner();
+        Pet first = pet("Max");
+        Pet second = pet("Max");
+        owner.addPet(first);
+        owner.addPet(second);
+
+        // as the repositories do on insert, while the pet is sorted in its owner's pets
+        second.setId(1);
+        first.setId(2);
+        second.setName("Basil");
+
+        assertThat(owner.getPets()).containsExactly(second, first);
+        second.setName("Max");
+        assertThat(owner.getPets()).containsExactly(first, second);
+    }
+
+    private static Pet pet(String name) {
+        Pet pet = new Pet();
+        pet.setName(name);
+        return pet;
+    }
+
+    private static Visit visit(LocalDate date) {
+        Visit visit = new Visit();
+        visit.setDate(date);
+        return visit;
+    }
+
+}
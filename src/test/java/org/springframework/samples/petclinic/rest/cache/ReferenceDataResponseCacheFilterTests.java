@@ -0,0 +1,160 @@
+package org.springframework.samples.petclinic.rest.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.StreamUtils;
+
+/**
+ * Test class for {@link ReferenceDataResponseCacheFilter}
+ */
+class ReferenceDataResponseCacheFilterTests {
+
+    private static final String VETS_JSON = "[{\"id\":1,\"firstName\":\"James\",\"lastName\":\"Carter\",\"specialties\":[]}]";
+
+    private ConcurrentMapCacheManager cacheManager;
+
+    private Cache vets;
+
+    private ReferenceDataResponseCacheFilter filter;
+
+    private final AtomicInteger rendered = new AtomicInteger();
+
+    private int renderedStatus = HttpServletResponse.SC_OK;
+
+    @BeforeEach
+    void createFilter() {
+        this.cacheManager = new ConcurrentMapCacheManager("vets");
+        this.vets = this.cacheManager.getCache("vets");
+        this.vets.put(SimpleKey.EMPTY, new ArrayList<>());
+        this.filter = new ReferenceDataResponseCacheFilter(this.cacheManager, Collections.singletonMap("/api/vets", "vets"), 100);
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("admin", "admin", "ROLE_VET_ADMIN"));
+    }
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void shouldServeStoredResponseWithoutRendering() throws Exception {
+        MockHttpServletResponse first = get(request());
+        MockHttpServletResponse second = get(request());
+
+        assertThat(this.rendered).hasValue(1);
+        assertThat(second.getStatus()).isEqualTo(200);
+        assertThat(second.getContentType()).isEqualTo("application/json");
+        assertThat(second.getContentAsString()).isEqualTo(VETS_JSON).isEqualTo(first.getContentAsString());
+        assertThat(second.getHeader(HttpHeaders.ETAG)).isNotNull().isEqualTo(first.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void shouldAnswerNotModifiedForMatchingETag() throws Exception {
+        String etag = get(request()).getHeader(HttpHeaders.ETAG);
+        MockHttpServletRequest request = request();
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, etag);
+
+        MockHttpServletResponse response = get(request);
+
+        assertThat(response.getStatus()).isEqualTo(304);
+        assertThat(response.getContentLength()).isZero();
+        assertThat(this.rendered).hasValue(1);
+    }
+
+    @Test
+    void shouldStoreGzipEncodingSeparately() throws Exception {
+        String identityETag = get(request()).getHeader(HttpHeaders.ETAG);
+        MockHttpServletRequest request = request();
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate");
+        get(request);
+        MockHttpServletResponse response = get(request);
+
+        assertThat(this.rendered).hasValue(2);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isNotEqualTo(identityETag);
+        assertThat(gunzip(response.getContentAsByteArray())).isEqualTo(VETS_JSON);
+    }
+
+    @Test
+    void shouldRenderAgainWhenServiceCacheChanged() throws Exception {
+        get(request());
+        this.vets.evict(SimpleKey.EMPTY);
+        get(request());
+        this.vets.put(SimpleKey.EMPTY, new ArrayList<>());
+        get(request());
+        get(request());
+
+        assertThat(this.rendered).hasValue(3);
+    }
+
+    @Test
+    void shouldStoreResponsesPerAuthorities() throws Exception {
+        get(request());
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("owner", "owner", "ROLE_OWNER_ADMIN"));
+        this.renderedStatus = HttpServletResponse.SC_FORBIDDEN;
+
+        assertThat(get(request()).getStatus()).isEqualTo(403);
+        assertThat(get(request()).getStatus()).isEqualTo(403);
+        assertThat(this.rendered).hasValue(3);
+    }
+
+    @Test
+    void shouldNotStoreCrossOriginResponses() throws Exception {
+        MockHttpServletRequest request = request();
+        request.addHeader(HttpHeaders.ORIGIN, "http://localhost:4200");
+        get(request);
+        get(request);
+
+        assertThat(this.rendered).hasValue(2);
+    }
+
+    private static MockHttpServletRequest request() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/vets");
+        request.addHeader(HttpHeaders.ACCEPT, "application/json");
+        return request;
+    }
+
+    private MockHttpServletResponse get(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        this.filter.doFilter(request, response, new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                rendered.incrementAndGet();
+                resp.setStatus(renderedStatus);
+                resp.setContentType("application/json");
+                resp.getOutputStream().write(VETS_JSON.getBytes(StandardCharsets.UTF_8));
+            }
+        }));
+        return response;
+    }
+
+    private static String gunzip(byte[] body) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return StreamUtils.copyToString(in, StandardCharsets.UTF_8);
+        }
+    }
+
+}
@@ -30,6 +30,7 @@ import org.springframework.samples.petclinic.mapper.VisitMapper;
 import org.springframework.samples.petclinic.model.Owner;
 import org.springframework.samples.petclinic.rest.advice.ExceptionControllerAdvice;
 import org.springframework.samples.petclinic.rest.dto.OwnerDto;
+import org.springframework.samples.petclinic.rest.dto.OwnerFieldsDto;
 import org.springframework.samples.petclinic.rest.dto.PetDto;
 import org.springframework.samples.petclinic.rest.dto.PetTypeDto;
 import org.springframework.samples.petclinic.rest.dto.VisitDto;
@@ -45,6 +46,7 @@ import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import java.text.SimpleDateFormat;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.mockito.BDDMockito.given;
@@ -85,7 +87,7 @@ class OwnerRestControllerTests {
     @BeforeEach
     void initOwners() {
         this.mockMvc = MockMvcBuilders.standaloneSetup(ownerRestController)
-            .setControllerAdvice(new ExceptionControllerAdvice())
+            .setControllerAdvice(new ExceptionControllerAdvice(new ObjectMapper()))
             .build();
         owners = new ArrayList<>();
 
@@ -180,6 +182,20 @@ class OwnerRestControllerTests {
             .andExpect(jsonPath("$.[1].firstName").value("Harold"));
     }
 
+    @Test
+    @WithMockUser(roles = "OWNER_ADMIN")
+    void testGetOwnersByIdsSuccess() throws Exception {
+        owners.remove(0);
+        owners.remove(1);
+        given(this.clinicService.findOwnersByIds(Arrays.asList(2, 4, 999))).willReturn(ownerMapper.toOwners(owners));
+        this.mockMvc.perform(get("/api/owners?ids=2,4,999")
+                .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("application/json"))
+            .andExpect(jsonPath("$.[0].id").value(2))
+            .andExpect(jsonPath("$.[1].id").value(4));
+    }
+
     @Test
     @WithMockUser(roles = "OWNER_ADMIN")
     void testGetOwnersListNotFound() throws Exception {
@@ -242,7 +258,40 @@ class OwnerRestControllerTests {
         String newOwnerAsJSON = mapper.writeValueAsString(newOwnerDto);
         this.mockMvc.perform(post("/api/owners/")
                 .content(newOwnerAsJSON).accept(MediaType.APPLICATION_JSON_VALUE).contentType(MediaType.APPLICATION_JSON_VALUE))
-            .andExpect(status().isBadRequest());
+            .andExpect(status().isBadRequest())
+            .andExpect(header().string("errors",
+                "[{\"objectName\":\"ownerFieldsDto\",\"fieldName\":\"firstName\",\"fieldValue\":\"null\",\"errorMessage\":\"must not be null\"}]"));
+    }
+
+    @Test
+    @WithMockUser(roles = "OWNER_ADMIN")
+    void testCreateOwnersSuccess() throws Exception {
+        List<OwnerFieldsDto> newOwners = new ArrayList<>();
+        newOwners.add(new OwnerFieldsDto().firstName("George").lastName("Franklin").address("110 W. Liberty St.").city("Madison").telephone("6085551023"));
+        newOwners.add(new OwnerFieldsDto().firstName("Betty").lastName("Davis").address("638 Cardinal Ave.").city("Sun Prairie").telephone("6085551749"));
+        ObjectMapper mapper = new ObjectMapper();
+        String newOwnersAsJSON = mapper.writeValueAsString(newOwners);
+        this.mockMvc.perform(post("/api/owners/batch")
+                .content(newOwnersAsJSON).accept(MediaType.APPLICATION_JSON_VALUE).contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$[1].status").value(201));
+    }
+
+    @Test
+    @WithMockUser(roles = "OWNER_ADMIN")
+    void testCreateOwnersError() throws Exception {
+        List<OwnerFieldsDto> newOwners = new ArrayList<>();
+        newOwners.add(new OwnerFieldsDto().firstName("George").lastName("Franklin").address("110 W. Liberty St.").city("Madison").telephone("6085551023"));
+        newOwners.add(new OwnerFieldsDto().firstName("Betty").lastName("Davis").address("638 Cardinal Ave.").city("Sun Prairie").telephone("not a number"));
+        ObjectMapper mapper = new ObjectMapper();
+        String newOwnersAsJSON = mapper.writeValueAsString(newOwners);
+        this.mockMvc.perform(post("/api/owners/batch")
+                .content(newOwnersAsJSON).accept(MediaType.APPLICATION_JSON_VALUE).contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$[0].index").value(1))
+            .andExpect(jsonPath("$[0].errors[0].field").value("telephone"));
     }
 
     @Test
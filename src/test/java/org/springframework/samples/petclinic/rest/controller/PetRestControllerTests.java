@@ -29,6 +29,7 @@ import org.springframework.samples.petclinic.mapper.PetMapper;
 import org.springframework.samples.petclinic.model.Pet;
 import org.springframework.samples.petclinic.rest.advice.ExceptionControllerAdvice;
 import org.springframework.samples.petclinic.rest.dto.OwnerDto;
+import org.springframework.samples.petclinic.rest.dto.PetBatchItemDto;
 import org.springframework.samples.petclinic.rest.dto.PetDto;
 import org.springframework.samples.petclinic.rest.dto.PetTypeDto;
 import org.springframework.samples.petclinic.service.ClinicService;
@@ -38,13 +39,16 @@ import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.web.WebAppConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.text.SimpleDateFormat;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -75,7 +79,7 @@ class PetRestControllerTests {
     @BeforeEach
     void initPets() {
         this.mockMvc = MockMvcBuilders.standaloneSetup(petRestController)
-            .setControllerAdvice(new ExceptionControllerAdvice())
+            .setControllerAdvice(new ExceptionControllerAdvice(new ObjectMapper()))
             .build();
         pets = new ArrayList<>();
 
@@ -141,6 +145,19 @@ class PetRestControllerTests {
             .andExpect(jsonPath("$.[1].name").value("Jewel"));
     }
 
+    @Test
+    @WithMockUser(roles = "OWNER_ADMIN")
+    void testGetPetsByIdsSuccess() throws Exception {
+        final Collection<Pet> pets = petMapper.toPets(this.pets);
+        when(this.clinicService.findPetsByIds(Arrays.asList(3, 4))).thenReturn(pets);
+        this.mockMvc.perform(get("/api/pets?ids=3,4")
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("application/json"))
+            .andExpect(jsonPath("$.[0].id").value(3))
+            .andExpect(jsonPath("$.[1].id").value(4));
+    }
+
     @Test
     @WithMockUser(roles = "OWNER_ADMIN")
     void testGetAllPetsNotFound() throws Exception {
@@ -177,6 +194,25 @@ class PetRestControllerTests {
 
     }
 
+    @Test
+    @WithMockUser(roles = "OWNER_ADMIN")
+    void testUpdatePetReadsPetInReadWriteTransaction() throws Exception {
+        List<Boolean> readWrite = new ArrayList<>();
+        given(this.clinicService.findPetById(3)).willAnswer(invocation -> {
+            readWrite.add(TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+            return petMapper.toPet(pets.get(0));
+        });
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        this.mockMvc.perform(put("/api/pets/3")
+            .content(mapper.writeValueAsString(pets.get(0))).accept(MediaType.APPLICATION_JSON_VALUE).contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(status().isNoContent());
+        assertThat(readWrite).containsExactly(true);
+    }
+
     @Test
     @WithMockUser(roles = "OWNER_ADMIN")
     void testUpdatePetError() throws Exception {
@@ -193,6 +229,43 @@ class PetRestControllerTests {
             .andExpect(status().isBadRequest());
     }
 
+    @Test
+    @WithMockUser(roles = "OWNER_ADMIN")
+    void testCreatePetsSuccess() throws Exception {
+        PetTypeDto petType = pets.get(0).getType();
+        List<PetBatchItemDto> newPets = new ArrayList<>();
+        newPets.add(new PetBatchItemDto().ownerId(1).name("Rosy").birthDate(LocalDate.now()).type(petType));
+        newPets.add(new PetBatchItemDto().ownerId(1).name("Jewel").birthDate(LocalDate.now()).type(petType));
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        String newPetsAsJSON = mapper.writeValueAsString(newPets);
+        this.mockMvc.perform(post("/api/pets/batch")
+                .content(newPetsAsJSON).accept(MediaType.APPLICATION_JSON_VALUE).contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$[0].status").value(201));
+    }
+
+    @Test
+    @WithMockUser(roles = "OWNER_ADMIN")
+    void testCreatePetsError() throws Exception {
+        PetTypeDto petType = pets.get(0).getType();
+        List<PetBatchItemDto> newPets = new ArrayList<>();
+        newPets.add(new PetBatchItemDto().ownerId(1).name(null).birthDate(LocalDate.now()).type(petType));
+        newPets.add(new PetBatchItemDto().ownerId(1).name("Jewel").birthDate(LocalDate.now()).type(petType));
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        String newPetsAsJSON = mapper.writeValueAsString(newPets);
+        this.mockMvc.perform(post("/api/pets/batch")
+                .content(newPetsAsJSON).accept(MediaType.APPLICATION_JSON_VALUE).contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$[0].index").value(0))
+            .andExpect(jsonPath("$[0].errors[0].field").value("name"));
+    }
+
     @Test
     @WithMockUser(roles = "OWNER_ADMIN")
     void testDeletePetSuccess() throws Exception {
@@ -69,7 +69,7 @@ class PetTypeRestControllerTests {
     @BeforeEach
     void initPetTypes(){
     	this.mockMvc = MockMvcBuilders.standaloneSetup(petTypeRestController)
-    			.setControllerAdvice(new ExceptionControllerAdvice())
+    			.setControllerAdvice(new ExceptionControllerAdvice(new ObjectMapper()))
     			.build();
     	petTypes = new ArrayList<PetType>();
 
@@ -68,7 +68,7 @@ class SpecialtyRestControllerTests {
     @BeforeEach
     void initSpecialtys(){
     	this.mockMvc = MockMvcBuilders.standaloneSetup(specialtyRestController)
-    			.setControllerAdvice(new ExceptionControllerAdvice())
+    			.setControllerAdvice(new ExceptionControllerAdvice(new ObjectMapper()))
     			.build();
     	specialties = new ArrayList<Specialty>();
 
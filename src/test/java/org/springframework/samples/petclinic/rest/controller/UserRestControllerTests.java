@@ -41,7 +41,7 @@ class UserRestControllerTests {
     @BeforeEach
     void initVets() {
         this.mockMvc = MockMvcBuilders.standaloneSetup(userRestController)
-            .setControllerAdvice(new ExceptionControllerAdvice()).build();
+            .setControllerAdvice(new ExceptionControllerAdvice(new ObjectMapper())).build();
     }
 
     @Test
@@ -68,7 +68,7 @@ class VetRestControllerTests {
     @BeforeEach
     void initVets(){
     	this.mockMvc = MockMvcBuilders.standaloneSetup(vetRestController)
-    			.setControllerAdvice(new ExceptionControllerAdvice())
+    			.setControllerAdvice(new ExceptionControllerAdvice(new ObjectMapper()))
     			.build();
     	vets = new ArrayList<Vet>();
 
@@ -31,6 +31,7 @@ import org.springframework.samples.petclinic.model.Pet;
 import org.springframework.samples.petclinic.model.PetType;
 import org.springframework.samples.petclinic.model.Visit;
 import org.springframework.samples.petclinic.rest.advice.ExceptionControllerAdvice;
+import org.springframework.samples.petclinic.rest.dto.VisitBatchItemDto;
 import org.springframework.samples.petclinic.service.ClinicService;
 import org.springframework.samples.petclinic.service.clinicService.ApplicationTestConfig;
 import org.springframework.security.test.context.support.WithMockUser;
@@ -43,7 +44,10 @@ import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -73,7 +77,7 @@ class VisitRestControllerTests {
     @BeforeEach
     void initVisits(){
     	this.mockMvc = MockMvcBuilders.standaloneSetup(visitRestController)
-    			.setControllerAdvice(new ExceptionControllerAdvice())
+    			.setControllerAdvice(new ExceptionControllerAdvice(new ObjectMapper()))
     			.build();
 
         visits = new ArrayList<>();
@@ -189,6 +193,43 @@ class VisitRestControllerTests {
         		.andExpect(status().isBadRequest());
      }
 
+    @Test
+    @WithMockUser(roles="OWNER_ADMIN")
+    void testCreateVisitsSuccess() throws Exception {
+        List<VisitBatchItemDto> newVisits = new ArrayList<>();
+        newVisits.add(new VisitBatchItemDto().petId(8).date(LocalDate.now()).description("rabies shot"));
+        newVisits.add(new VisitBatchItemDto().petId(8).date(LocalDate.now()).description("neutered"));
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        String newVisitsAsJSON = mapper.writeValueAsString(newVisits);
+        this.mockMvc.perform(post("/api/visits/batch")
+                .content(newVisitsAsJSON).accept(MediaType.APPLICATION_JSON_VALUE).contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$[1].index").value(1))
+            .andExpect(jsonPath("$[1].status").value(201));
+    }
+
+    @Test
+    @WithMockUser(roles="OWNER_ADMIN")
+    void testCreateVisitsError() throws Exception {
+        List<VisitBatchItemDto> newVisits = new ArrayList<>();
+        newVisits.add(new VisitBatchItemDto().petId(8).date(LocalDate.now()).description("rabies shot"));
+        newVisits.add(new VisitBatchItemDto().petId(8).date(LocalDate.now()).description(null));
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        String newVisitsAsJSON = mapper.writeValueAsString(newVisits);
+        this.mockMvc.perform(post("/api/visits/batch")
+                .content(newVisitsAsJSON).accept(MediaType.APPLICATION_JSON_VALUE).contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$[0].index").value(1))
+            .andExpect(jsonPath("$[0].errors[0].field").value("description"));
+        verify(this.clinicService, never()).saveVisits(anyCollection());
+    }
+
     @Test
     @WithMockUser(roles="OWNER_ADMIN")
     void testUpdateVisitSuccess() throws Exception {
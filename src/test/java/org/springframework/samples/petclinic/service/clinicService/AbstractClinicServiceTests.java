@@ -18,13 +18,18 @@ package org.springframework.samples.petclinic.service.clinicService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.samples.petclinic.model.*;
+import org.springframework.samples.petclinic.repository.PetRepository;
 import org.springframework.samples.petclinic.service.ClinicService;
 import org.springframework.samples.petclinic.util.EntityUtils;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -53,6 +58,9 @@ abstract class AbstractClinicServiceTests {
     @Autowired
     protected ClinicService clinicService;
 
+    @Autowired
+    protected PetRepository petRepository;
+
     @Test
     void shouldFindOwnersByLastName() {
         Collection<Owner> owners = this.clinicService.findOwnerByLastName("Davis");
@@ -71,6 +79,17 @@ abstract class AbstractClinicServiceTests {
         assertThat(owner.getPets().get(0).getType().getName()).isEqualTo("cat");
     }
 
+    @Test
+    void shouldFindOwnersByIds() {
+        Collection<Owner> owners = this.clinicService.findOwnersByIds(Arrays.asList(3, 1, 999));
+        assertThat(owners).extracting(Owner::getId).containsExactly(1, 3);
+        Owner owner3 = EntityUtils.getById(owners, Owner.class, 3);
+        assertThat(owner3.getPets().size()).isEqualTo(2);
+        assertThat(owner3.getPets().get(0).getType()).isNotNull();
+
+        assertThat(this.clinicService.findOwnersByIds(Collections.emptyList())).isEmpty();
+    }
+
     @Test
     @Transactional
     void shouldInsertOwner() {
@@ -113,6 +132,24 @@ abstract class AbstractClinicServiceTests {
 
     }
 
+    @Test
+    void shouldFindPetsByIds() {
+        Collection<Pet> pets = this.clinicService.findPetsByIds(Arrays.asList(8, 7, 999));
+        assertThat(pets).extracting(Pet::getId).containsExactly(7, 8);
+        Pet pet8 = EntityUtils.getById(pets, Pet.class, 8);
+        assertThat(pet8.getName()).isEqualTo("Max");
+        assertThat(pet8.getOwner().getFirstName()).isEqualTo("Jean");
+        assertThat(pet8.getVisits().size()).isEqualTo(2);
+
+        assertThat(this.clinicService.findPetsByIds(Collections.emptyList())).isEmpty();
+    }
+
+    @Test
+    void shouldFindOwnerIdsOfPets() {
+        assertThat(this.petRepository.findOwnerIds(Arrays.asList(7, 8, 1, 999))).containsExactlyInAnyOrder(6, 1);
+        assertThat(this.petRepository.findOwnerIds(Collections.emptyList())).isEmpty();
+    }
+
 //    @Test
 //    void shouldFindAllPetTypes() {
 //        Collection<PetType> petTypes = this.clinicService.findPetTypes();
@@ -256,6 +293,72 @@ abstract class AbstractClinicServiceTests {
         assertThat(visits.size()).isEqualTo(found + 1);
     }
 
+    @Test
+    @Transactional
+    void shouldInsertVisitsInBatch() {
+        int found = this.clinicService.findVisitsByPetId(7).size();
+        Pet pet = this.clinicService.findPetById(7);
+
+        List<Visit> visits = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Visit visit = new Visit();
+            visit.setPet(pet);
+            visit.setDate(LocalDate.now());
+            visit.setDescription("batch visit " + i);
+            visits.add(visit);
+        }
+        this.clinicService.saveVisits(visits);
+
+        assertThat(visits).extracting(Visit::getId).doesNotContainNull().doesNotHaveDuplicates();
+        assertThat(this.clinicService.findVisitsByPetId(7).size()).isEqualTo(found + 3);
+        assertThat(this.clinicService.findVisitById(visits.get(2).getId()).getDescription()).isEqualTo("batch visit 2");
+    }
+
+    @Test
+    @Transactional
+    void shouldInsertPetsInBatch() {
+        Collection<PetType> types = this.clinicService.findPetTypes();
+        Owner owner6 = this.clinicService.findOwnerById(6);
+        int found = owner6.getPets().size();
+
+        List<Pet> pets = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Pet pet = new Pet();
+            pet.setName("batch" + i);
+            pet.setType(EntityUtils.getById(types, PetType.class, 2));
+            pet.setBirthDate(LocalDate.now());
+            owner6.addPet(pet);
+            pets.add(pet);
+        }
+        this.clinicService.savePets(pets);
+
+        assertThat(pets).extracting(Pet::getId).doesNotContainNull().doesNotHaveDuplicates();
+        assertThat(this.clinicService.findPetById(pets.get(1).getId()).getName()).isEqualTo("batch1");
+        owner6 = this.clinicService.findOwnerById(6);
+        assertThat(owner6.getPets().size()).isEqualTo(found + 3);
+    }
+
+    @Test
+    @Transactional
+    void shouldInsertOwnersInBatch() {
+        int found = this.clinicService.findOwnerByLastName("Schultz").size();
+
+        List<Owner> owners = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Owner owner = new Owner();
+            owner.setFirstName("Sam" + i);
+            owner.setLastName("Schultz");
+            owner.setAddress("4, Evans Street");
+            owner.setCity("Wollongong");
+            owner.setTelephone("4444444444");
+            owners.add(owner);
+        }
+        this.clinicService.saveOwners(owners);
+
+        assertThat(owners).extracting(Owner::getId).doesNotContainNull().doesNotHaveDuplicates();
+        assertThat(this.clinicService.findOwnerByLastName("Schultz").size()).isEqualTo(found + 3);
+    }
+
     @Test
     @Transactional
     void shouldUpdateVisit(){
@@ -414,6 +517,16 @@ abstract class AbstractClinicServiceTests {
     	assertThat(specialty.getName()).isEqualTo("radiology");
     }
 
+    @Test
+    void shouldReturnNullForUnknownIds(){
+        assertThat(this.clinicService.findOwnerById(9999)).isNull();
+        assertThat(this.clinicService.findPetById(9999)).isNull();
+        assertThat(this.clinicService.findVisitById(9999)).isNull();
+        assertThat(this.clinicService.findVetById(9999)).isNull();
+        assertThat(this.clinicService.findPetTypeById(9999)).isNull();
+        assertThat(this.clinicService.findSpecialtyById(9999)).isNull();
+    }
+
     @Test
     void shouldFindAllSpecialtys(){
         Collection<Specialty> specialties = this.clinicService.findAllSpecialties();
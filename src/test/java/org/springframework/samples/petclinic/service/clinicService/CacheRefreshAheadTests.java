@@ -0,0 +1,92 @@
+package org.springframework.samples.petclinic.service.clinicService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.config.CacheConfig;
+import org.springframework.samples.petclinic.model.Vet;
+import org.springframework.samples.petclinic.service.ClinicService;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.github.benmanes.caffeine.cache.Cache;
+
+/**
+ * Integration tests for the refresh ahead and the expire jitter of the caches configured by {@link CacheConfig}. The
+ * refresh ahead window is as long as the time to live, so that every read of a vets entry reloads it.
+ */
+@SpringBootTest(properties = {
+    "petclinic.cache.vets.refresh-ahead=10m",
+    "petclinic.cache.owners.expire-jitter=0.5"})
+@ActiveProfiles({"jdbc", "hsqldb"})
+@DirtiesContext
+class CacheRefreshAheadTests {
+
+    @Autowired
+    private ClinicService clinicService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ThreadPoolTaskExecutor cacheRefreshExecutor;
+
+    @Test
+    void shouldServeCachedVetsWhileReloadingThem() throws InterruptedException {
+        Collection<Vet> vets = this.clinicService.findVets();
+        this.jdbcTemplate.update("INSERT INTO vets (first_name, last_name) VALUES ('John', 'Dow')");
+        try {
+            assertThat(this.clinicService.findVets()).isSameAs(vets);
+            assertThat(within(() -> this.clinicService.findVets().size() == vets.size() + 1)).isTrue();
+            assertThat(this.cacheRefreshExecutor.getThreadPoolExecutor().getCompletedTaskCount()).isPositive();
+        } finally {
+            this.jdbcTemplate.update("DELETE FROM vets WHERE last_name = 'Dow'");
+            this.cacheManager.getCache(CacheConfig.VETS).clear();
+        }
+    }
+
+    @Test
+    void shouldSpreadTheExpiryOfOwners() {
+        Cache<Object, Object> owners = nativeCache(CacheConfig.OWNERS);
+        Set<Long> expiries = new HashSet<>();
+        for (int id = 1; id <= 10; id++) {
+            this.clinicService.findOwnerById(id);
+            long expiresAfter = owners.policy().expireVariably().get().getExpiresAfter(id, TimeUnit.SECONDS).getAsLong();
+            assertThat(expiresAfter).isBetween(TimeUnit.MINUTES.toSeconds(5) - 1, TimeUnit.MINUTES.toSeconds(10));
+            expiries.add(expiresAfter);
+        }
+        assertThat(expiries).hasSizeGreaterThan(1);
+    }
+
+    private Cache<Object, Object> nativeCache(String name) {
+        TransactionAwareCacheDecorator cache = (TransactionAwareCacheDecorator) this.cacheManager.getCache(name);
+        return ((CaffeineCache) cache.getTargetCache()).getNativeCache();
+    }
+
+    private static boolean within(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+            Thread.sleep(50);
+        }
+        return false;
+    }
+
+}
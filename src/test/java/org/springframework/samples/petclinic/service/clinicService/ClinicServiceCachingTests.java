@@ -0,0 +1,238 @@
+package org.springframework.samples.petclinic.service.clinicService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.Pet;
+import org.springframework.samples.petclinic.model.PetType;
+import org.springframework.samples.petclinic.model.Specialty;
+import org.springframework.samples.petclinic.model.Vet;
+import org.springframework.samples.petclinic.model.Visit;
+import org.springframework.samples.petclinic.service.ClinicService;
+import org.springframework.samples.petclinic.util.EntityUtils;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Integration tests for the vet, pet type, specialty and owner caches of {@link ClinicService}. Unlike
+ * {@link AbstractClinicServiceTests}, the test methods do not run in a transaction, so that writes are committed
+ * (and undone by the tests themselves) as they would be in the application.
+ */
+@SpringBootTest
+@ActiveProfiles({"jdbc", "hsqldb"})
+@DirtiesContext
+class ClinicServiceCachingTests {
+
+    @Autowired
+    private ClinicService clinicService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void shouldCacheVets() {
+        Collection<Vet> vets = this.clinicService.findVets();
+        assertThat(this.clinicService.findVets()).isSameAs(vets);
+        assertThat(this.clinicService.findAllVets()).isSameAs(vets);
+    }
+
+    @Test
+    void shouldNotReturnStaleVetsAfterSaveAndDelete() {
+        int found = this.clinicService.findAllVets().size();
+        Vet vet = new Vet();
+        vet.setFirstName("John");
+        vet.setLastName("Dow");
+
+        this.clinicService.saveVet(vet);
+        assertThat(this.clinicService.findAllVets()).hasSize(found + 1);
+
+        this.clinicService.deleteVet(vet);
+        assertThat(this.clinicService.findAllVets()).hasSize(found);
+    }
+
+    @Test
+    void shouldNotReturnStaleSpecialtiesOfVetsAfterSaveSpecialty() {
+        assertThat(EntityUtils.getById(this.clinicService.findVets(), Vet.class, 2).getSpecialties().get(0).getName())
+            .isEqualTo("radiology");
+        assertThat(this.clinicService.findAllSpecialties()).extracting(Specialty::getName).contains("radiology");
+        Specialty specialty = this.clinicService.findSpecialtyById(1);
+        specialty.setName("x-ray");
+        this.clinicService.saveSpecialty(specialty);
+        try {
+            assertThat(EntityUtils.getById(this.clinicService.findVets(), Vet.class, 2).getSpecialties().get(0).getName())
+                .isEqualTo("x-ray");
+            assertThat(this.clinicService.findAllSpecialties()).extracting(Specialty::getName)
+                .contains("x-ray").doesNotContain("radiology");
+        } finally {
+            specialty.setName("radiology");
+            this.clinicService.saveSpecialty(specialty);
+        }
+    }
+
+    @Test
+    void shouldNotReturnStalePetTypesAfterSaveAndDelete() {
+        int found = this.clinicService.findAllPetTypes().size();
+        PetType petType = new PetType();
+        petType.setName("tiger");
+
+        this.clinicService.savePetType(petType);
+        assertThat(this.clinicService.findAllPetTypes()).extracting(PetType::getName).contains("tiger");
+
+        this.clinicService.deletePetType(petType);
+        assertThat(this.clinicService.findAllPetTypes()).hasSize(found);
+    }
+
+    @Test
+    void shouldCacheOwners() {
+        Owner owner = this.clinicService.findOwnerById(1);
+        assertThat(this.clinicService.findOwnerById(1)).isSameAs(owner);
+        assertThat(this.clinicService.findOwnerById(9999)).isNull();
+    }
+
+    @Test
+    void shouldExportOwnerCacheHitRatio() {
+        this.clinicService.findOwnerById(4);
+        this.clinicService.findOwnerById(4);
+        assertThat(this.meterRegistry.get("cache.hit.ratio").tag("cache", "owners").gauge().value()).isGreaterThan(0);
+    }
+
+    @Test
+    void shouldNotReturnStaleOwnerAfterSaveOwner() {
+        Owner owner = this.clinicService.findOwnerById(2);
+        String oldCity = owner.getCity();
+        owner.setCity("Sun Prairie");
+        this.clinicService.saveOwner(owner);
+        try {
+            Owner found = this.clinicService.findOwnerById(2);
+            assertThat(found).isNotSameAs(owner);
+            assertThat(found.getCity()).isEqualTo("Sun Prairie");
+        } finally {
+            owner.setCity(oldCity);
+            this.clinicService.saveOwner(owner);
+        }
+    }
+
+    @Test
+    void shouldNotReturnStaleOwnerAfterSaveAndDeletePet() {
+        Owner owner = this.clinicService.findOwnerById(3);
+        int found = owner.getPets().size();
+        Pet pet = new Pet();
+        pet.setName("Bowser");
+        pet.setBirthDate(LocalDate.now());
+        pet.setType(this.clinicService.findPetTypeById(2));
+        pet.setOwner(owner);
+
+        this.clinicService.savePet(pet);
+        assertThat(this.clinicService.findOwnerById(3).getPets()).hasSize(found + 1);
+
+        this.clinicService.deletePet(this.clinicService.findPetById(pet.getId()));
+        assertThat(this.clinicService.findOwnerById(3).getPets()).hasSize(found);
+    }
+
+    @Test
+    void shouldNotReturnStaleOwnerAfterSaveAndDeleteVisitOfPetReferencedById() {
+        int found = this.clinicService.findOwnerById(6).getPet("Samantha").getVisits().size();
+        Pet pet = new Pet();
+        pet.setId(7);
+        Visit visit = new Visit();
+        visit.setDescription("rabies shot");
+        visit.setPet(pet);
+
+        this.clinicService.saveVisit(visit);
+        assertThat(this.clinicService.findOwnerById(6).getPet("Samantha").getVisits()).hasSize(found + 1);
+
+        this.clinicService.deleteVisit(this.clinicService.findVisitById(visit.getId()));
+        assertThat(this.clinicService.findOwnerById(6).getPet("Samantha").getVisits()).hasSize(found);
+    }
+
+    @Test
+    void shouldNotReturnStaleOwnerAfterSaveVisitUnderAnotherOwner() {
+        int found = this.clinicService.findOwnerById(6).getPet("Samantha").getVisits().size();
+        this.clinicService.findOwnerById(1);
+        // as POST /api/owners/1/pets/7/visits builds it, while pet 7 belongs to owner 6
+        Owner owner = new Owner();
+        owner.setId(1);
+        Pet pet = new Pet();
+        pet.setId(7);
+        pet.setOwner(owner);
+        Visit visit = new Visit();
+        visit.setDescription("rabies shot");
+        visit.setPet(pet);
+
+        this.clinicService.saveVisit(visit);
+        try {
+            assertThat(this.clinicService.findOwnerById(6).getPet("Samantha").getVisits()).hasSize(found + 1);
+        } finally {
+            this.clinicService.deleteVisit(this.clinicService.findVisitById(visit.getId()));
+        }
+    }
+
+    @Test
+    void shouldNotReturnStaleOwnersAfterSaveVisits() {
+        int samantha = this.clinicService.findOwnerById(6).getPet("Samantha").getVisits().size();
+        int leo = this.clinicService.findOwnerById(1).getPet("Leo").getVisits().size();
+        // as POST /api/visits/batch builds them, with the pet ids only
+        List<Visit> visits = new ArrayList<>();
+        for (int petId : new int[]{7, 1}) {
+            Pet pet = new Pet();
+            pet.setId(petId);
+            Visit visit = new Visit();
+            visit.setDescription("rabies shot");
+            visit.setPet(pet);
+            visits.add(visit);
+        }
+
+        this.clinicService.saveVisits(visits);
+        try {
+            assertThat(this.clinicService.findOwnerById(6).getPet("Samantha").getVisits()).hasSize(samantha + 1);
+            assertThat(this.clinicService.findOwnerById(1).getPet("Leo").getVisits()).hasSize(leo + 1);
+        } finally {
+            for (Visit visit : visits) {
+                this.clinicService.deleteVisit(this.clinicService.findVisitById(visit.getId()));
+            }
+        }
+    }
+
+    @Test
+    void shouldNotShareCachedOwnerWithReadWriteTransaction() {
+        Owner cached = this.clinicService.findOwnerById(5);
+        String city = cached.getCity();
+        this.transactionTemplate.executeWithoutResult(status -> {
+            Owner owner = this.clinicService.findOwnerById(5);
+            assertThat(owner).isNotSameAs(cached);
+            owner.setCity("Sun Prairie");
+            assertThat(this.clinicService.findOwnerById(5).getCity()).isEqualTo(city);
+            status.setRollbackOnly();
+        });
+        assertThat(this.clinicService.findOwnerById(5)).isSameAs(cached);
+        assertThat(cached.getCity()).isEqualTo(city);
+    }
+
+    @Test
+    void shouldNotCacheReadsOfRolledBackTransaction() {
+        int found = this.clinicService.findAllPetTypes().size();
+        this.transactionTemplate.executeWithoutResult(status -> {
+            PetType petType = new PetType();
+            petType.setName("tiger");
+            this.clinicService.savePetType(petType);
+            assertThat(this.clinicService.findAllPetTypes()).hasSize(found + 1);
+            status.setRollbackOnly();
+        });
+        assertThat(this.clinicService.findAllPetTypes()).hasSize(found);
+    }
+
+}
@@ -0,0 +1,91 @@
+package org.springframework.samples.petclinic.service.clinicService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.config.CacheConfig;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.Pet;
+import org.springframework.samples.petclinic.service.ClinicService;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Integration tests for the caches of owner and pet ids that were not found. They use a database of their own, so that
+ * the next generated id is one more than the highest id.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:hsqldb:mem:missingids")
+@ActiveProfiles({"jdbc", "hsqldb"})
+@DirtiesContext
+class ClinicServiceMissingIdCachingTests {
+
+    @Autowired
+    private ClinicService clinicService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void shouldCacheMissingOwnerUntilInserted() {
+        int nextId = this.jdbcTemplate.queryForObject("SELECT MAX(id) FROM owners", Integer.class) + 1;
+        Cache missingOwners = this.cacheManager.getCache(CacheConfig.MISSING_OWNERS);
+
+        assertThat(this.clinicService.findOwnerById(nextId)).isNull();
+        assertThat(missingOwners.get(nextId)).isNotNull();
+        assertThat(this.clinicService.findOwnerById(nextId)).isNull();
+
+        Owner owner = new Owner();
+        owner.setFirstName("Sam");
+        owner.setLastName("Schultz");
+        owner.setAddress("4, Evans Street");
+        owner.setCity("Wollongong");
+        owner.setTelephone("4444444444");
+        this.clinicService.saveOwner(owner);
+
+        assertThat(owner.getId()).isEqualTo(nextId);
+        assertThat(missingOwners.get(nextId)).isNull();
+        assertThat(this.clinicService.findOwnerById(nextId)).isNotNull();
+        this.clinicService.deleteOwner(owner);
+    }
+
+    @Test
+    void shouldCacheMissingPetUntilInserted() {
+        int nextId = this.jdbcTemplate.queryForObject("SELECT MAX(id) FROM pets", Integer.class) + 1;
+        Cache missingPets = this.cacheManager.getCache(CacheConfig.MISSING_PETS);
+
+        assertThat(this.clinicService.findPetById(nextId)).isNull();
+        assertThat(missingPets.get(nextId)).isNotNull();
+
+        Pet pet = new Pet();
+        pet.setName("bowser");
+        pet.setBirthDate(LocalDate.now());
+        pet.setType(this.clinicService.findPetTypeById(2));
+        this.clinicService.findOwnerById(6).addPet(pet);
+        this.clinicService.savePet(pet);
+
+        assertThat(pet.getId()).isEqualTo(nextId);
+        assertThat(missingPets.get(nextId)).isNull();
+        assertThat(this.clinicService.findPetById(nextId)).isNotNull();
+        this.clinicService.deletePet(pet);
+    }
+
+    @Test
+    void shouldNotCacheFoundIdsAsMissing() {
+        assertThat(this.clinicService.findPetById(1)).isNotNull();
+        assertThat(this.clinicService.findOwnerById(1)).isNotNull();
+
+        assertThat(this.cacheManager.getCache(CacheConfig.MISSING_PETS).get(1)).isNull();
+        assertThat(this.cacheManager.getCache(CacheConfig.MISSING_OWNERS).get(1)).isNull();
+    }
+
+}
@@ -0,0 +1,49 @@
+package org.springframework.samples.petclinic.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Asserts that an action allocates at most a budget of heap bytes, so that allocation regressions fail the build.
+ * The action runs a number of times before it is measured, so that the JIT compiler and the caches settle, and the
+ * budget is checked against the fewest bytes of the measured runs, which leaves out the one-off allocations. Budgets
+ * should leave some headroom over the measured value, since it moves with the library and JDK versions.
+ */
+public final class AllocationBudget {
+
+    private static final int WARM_UP_RUNS = 50;
+
+    private static final int MEASURED_RUNS = 10;
+
+    private AllocationBudget() {
+    }
+
+    public static void assertAllocatesAtMost(long budget, Action action) throws Exception {
+        long allocated = measure(action);
+        assertThat(allocated).as("bytes allocated").isLessThanOrEqualTo(budget);
+    }
+
+    /**
+     * @return the fewest bytes allocated by one run of the action, once warmed up
+     */
+    public static long measure(Action action) throws Exception {
+        assumeTrue(AllocationMetrics.currentThreadAllocatedBytes() >= 0, "thread allocation counters not supported");
+        for (int i = 0; i < WARM_UP_RUNS; i++) {
+            action.run();
+        }
+        long fewest = Long.MAX_VALUE;
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            long start = AllocationMetrics.currentThreadAllocatedBytes();
+            action.run();
+            fewest = Math.min(fewest, AllocationMetrics.currentThreadAllocatedBytes() - start);
+        }
+        return fewest;
+    }
+
+    @FunctionalInterface
+    public interface Action {
+
+        void run() throws Exception;
+    }
+
+}
@@ -0,0 +1,75 @@
+package org.springframework.samples.petclinic.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.samples.petclinic.util.AllocationBudget.assertAllocatesAtMost;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Integration tests for {@link AllocationMetrics}, and allocation budgets of the main endpoints. The budgets are about
+ * 1.5 times the bytes measured through <code>MockMvc</code> on JDK 17, with the response held for the header.
+ */
+@SpringBootTest(properties = "petclinic.allocation-metrics.header=true")
+@AutoConfigureMockMvc
+@ActiveProfiles({"jdbc", "hsqldb"})
+class AllocationMetricsTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    @WithMockUser(roles = "OWNER_ADMIN")
+    void shouldRecordTheBytesAllocatedPerRoute() throws Exception {
+        long requests = requests("/api/pets/{petId}");
+
+        MvcResult result = this.mockMvc.perform(get("/api/pets/1"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+        assertThat(requests("/api/pets/{petId}")).isEqualTo(requests + 1);
+        assertThat(Long.parseLong(result.getResponse().getHeader(AllocationMetrics.HEADER))).isGreaterThan(0);
+        assertThat(result.getResponse().getContentAsString()).contains("\"name\":\"Leo\"");
+    }
+
+    @Test
+    @WithMockUser(roles = "OWNER_ADMIN")
+    void listOwnersShouldStayWithinItsAllocationBudget() throws Exception {
+        // measured 940 KB
+        assertAllocatesAtMost(1_400_000, () -> this.mockMvc.perform(get("/api/owners")).andExpect(status().isOk()));
+    }
+
+    @Test
+    @WithMockUser(roles = "OWNER_ADMIN")
+    void listVisitsShouldStayWithinItsAllocationBudget() throws Exception {
+        // measured 410 KB
+        assertAllocatesAtMost(620_000, () -> this.mockMvc.perform(get("/api/visits")).andExpect(status().isOk()));
+    }
+
+    @Test
+    @WithMockUser(roles = "OWNER_ADMIN")
+    void getOwnerShouldStayWithinItsAllocationBudget() throws Exception {
+        // measured 145 KB
+        assertAllocatesAtMost(220_000, () -> this.mockMvc.perform(get("/api/owners/1")).andExpect(status().isOk()));
+    }
+
+    private long requests(String route) {
+        DistributionSummary summary = this.meterRegistry.find("petclinic.request.allocated").tag("uri", route).summary();
+        return summary != null ? summary.count() : 0;
+    }
+
+}
@@ -0,0 +1,129 @@
+package org.springframework.samples.petclinic.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.PetClinicApplication;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.Vet;
+import org.springframework.samples.petclinic.service.ClinicService;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Test class for {@link CacheInvalidationLog}, with two application instances sharing one database.
+ */
+class CacheInvalidationLogTests {
+
+    private ConfigurableApplicationContext node1;
+
+    private ConfigurableApplicationContext node2;
+
+    @BeforeEach
+    void startNodes() {
+        // the nodes share the database, so only the first one creates it
+        this.node1 = startNode("always");
+        this.node2 = startNode("never");
+    }
+
+    @AfterEach
+    void stopNodes() {
+        this.node2.close();
+        this.node1.close();
+    }
+
+    @Test
+    void shouldEvictVetsOnOtherNode() throws InterruptedException {
+        ClinicService clinicService1 = this.node1.getBean(ClinicService.class);
+        ClinicService clinicService2 = this.node2.getBean(ClinicService.class);
+        int found = clinicService2.findVets().size();
+        assertThat(clinicService2.findVets()).hasSize(found);
+
+        Vet vet = new Vet();
+        vet.setFirstName("John");
+        vet.setLastName("Dow");
+        clinicService1.saveVet(vet);
+
+        assertThat(within(() -> clinicService2.findVets().size() == found + 1)).isTrue();
+    }
+
+    @Test
+    void shouldEvictOwnerOnOtherNode() throws InterruptedException {
+        ClinicService clinicService1 = this.node1.getBean(ClinicService.class);
+        ClinicService clinicService2 = this.node2.getBean(ClinicService.class);
+        Owner cached = clinicService2.findOwnerById(1);
+        assertThat(clinicService2.findOwnerById(1)).isSameAs(cached);
+
+        Owner owner = clinicService1.findOwnerById(1);
+        owner.setCity("Sun Prairie");
+        clinicService1.saveOwner(owner);
+
+        assertThat(within(() -> "Sun Prairie".equals(clinicService2.findOwnerById(1).getCity()))).isTrue();
+        assertThat(this.node1.getBean(CacheInvalidationLog.class).getAppliedInvalidations()).isZero();
+        assertThat(this.node2.getBean(CacheInvalidationLog.class).getAppliedInvalidations()).isPositive();
+    }
+
+    @Test
+    void shouldWriteEachEvictionOnceWhenTheTransactionCommits() {
+        ClinicService clinicService1 = this.node1.getBean(ClinicService.class);
+        TransactionTemplate transactionTemplate = this.node1.getBean(TransactionTemplate.class);
+        Owner owner = clinicService1.findOwnerById(1);
+
+        int before = invalidations();
+        transactionTemplate.executeWithoutResult(status -> clinicService1.saveOwner(owner));
+        int once = invalidations() - before;
+        transactionTemplate.executeWithoutResult(status -> {
+            clinicService1.saveOwner(owner);
+            clinicService1.saveOwner(owner);
+        });
+
+        assertThat(once).isPositive();
+        assertThat(invalidations() - before).isEqualTo(2 * once);
+    }
+
+    @Test
+    void shouldWriteNothingForARolledBackTransaction() {
+        ClinicService clinicService1 = this.node1.getBean(ClinicService.class);
+        Owner owner = clinicService1.findOwnerById(1);
+        int before = invalidations();
+
+        this.node1.getBean(TransactionTemplate.class).executeWithoutResult(status -> {
+            clinicService1.saveOwner(owner);
+            status.setRollbackOnly();
+        });
+
+        assertThat(invalidations()).isEqualTo(before);
+    }
+
+    private int invalidations() {
+        return this.node1.getBean(JdbcTemplate.class).queryForObject("SELECT COUNT(*) FROM cache_invalidations",
+            Integer.class);
+    }
+
+    private static ConfigurableApplicationContext startNode(String sqlInitMode) {
+        return new SpringApplicationBuilder(PetClinicApplication.class)
+            .run("--spring.profiles.active=hsqldb,jdbc", "--server.port=0",
+                "--spring.datasource.url=jdbc:hsqldb:mem:invalidation",
+                "--spring.sql.init.mode=" + sqlInitMode,
+                "--spring.jmx.enabled=false",
+                "--petclinic.cache.invalidation.enable=true",
+                "--petclinic.cache.invalidation.poll-interval=50");
+    }
+
+    private static boolean within(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+            Thread.sleep(50);
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,117 @@
+package org.springframework.samples.petclinic.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.repository.OwnerRepository;
+
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Test class for {@link CallMonitoringAspect}
+ */
+class CallMonitoringAspectTests {
+
+    private OwnerRepository target;
+
+    private CallMonitoringAspect aspect;
+
+    private OwnerRepository ownerRepository;
+
+    @BeforeEach
+    void createProxy() {
+        this.target = mock(OwnerRepository.class);
+        when(this.target.findById(anyInt())).thenReturn(Optional.of(new Owner()));
+        this.aspect = new CallMonitoringAspect();
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(this.target);
+        proxyFactory.addInterface(OwnerRepository.class);
+        proxyFactory.addAspect(this.aspect);
+        this.ownerRepository = proxyFactory.getProxy();
+    }
+
+    @Test
+    void shouldCountConcurrentCallsPerMethod() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> callers = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                callers.add(executor.submit(() -> {
+                    for (int call = 0; call < 1000; call++) {
+                        this.ownerRepository.findById(call);
+                    }
+                }));
+            }
+            for (Future<?> caller : callers) {
+                caller.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        this.ownerRepository.findAll();
+
+        assertThat(this.aspect.getCallCount()).isEqualTo(8001);
+        assertThat(this.aspect.getMethods()).containsExactly("OwnerRepository.findAll", "OwnerRepository.findById");
+        assertThat(this.aspect.report()).contains("OwnerRepository.findById count=8000 ");
+    }
+
+    @Test
+    void shouldRecordPercentilesAndMaximum() {
+        when(this.target.findAll()).thenAnswer(invocation -> {
+            Thread.sleep(50);
+            return new ArrayList<>();
+        });
+        for (int i = 0; i < 99; i++) {
+            this.ownerRepository.findById(i);
+        }
+        this.ownerRepository.findAll();
+
+        assertThat(this.aspect.getPercentile("OwnerRepository.findById", 0.99)).isLessThan(50_000);
+        assertThat(this.aspect.getPercentile("OwnerRepository.findAll", 0.5)).isGreaterThanOrEqualTo(49_000);
+        assertThat(this.aspect.getPercentile("OwnerRepository.delete", 0.5)).isZero();
+        assertThat(this.aspect.getCallTime()).isGreaterThanOrEqualTo(0);
+    }
+
+    @Test
+    void shouldStopRecordingWhenDisabledAndForgetOnReset() {
+        this.ownerRepository.findById(1);
+        this.aspect.setEnabled(false);
+        this.ownerRepository.findById(1);
+        assertThat(this.aspect.getCallCount()).isEqualTo(1);
+
+        this.aspect.reset();
+
+        assertThat(this.aspect.getCallCount()).isZero();
+        assertThat(this.aspect.getPercentile("OwnerRepository.findById", 0.5)).isZero();
+    }
+
+    @Test
+    void shouldExportMethodsCalledBeforeAndAfterBinding() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        this.ownerRepository.findById(1);
+        this.aspect.bindTo(registry);
+        this.ownerRepository.findById(2);
+        this.ownerRepository.findAll();
+
+        FunctionTimer findById = registry.get("petclinic.calls").tag("method", "OwnerRepository.findById").functionTimer();
+        assertThat(findById.count()).isEqualTo(2);
+        assertThat(registry.get("petclinic.calls").tag("method", "OwnerRepository.findAll").functionTimer().count()).isEqualTo(1);
+        assertThat(registry.get("petclinic.calls.percentile").tag("method", "OwnerRepository.findById").gauges()).hasSize(3);
+        assertThat(registry.get("petclinic.calls.max").tag("method", "OwnerRepository.findById").gauge().value()).isGreaterThan(0);
+    }
+
+}
@@ -0,0 +1,66 @@
+package org.springframework.samples.petclinic.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.samples.petclinic.model.User;
+import org.springframework.samples.petclinic.service.UserService;
+
+/**
+ * Test class for {@link ConcurrencyLimitingAspect}
+ */
+class ConcurrencyLimitingAspectTests {
+
+    @Test
+    void shouldLimitConcurrentServiceCalls() throws Exception {
+        SlowUserService target = new SlowUserService();
+        ConcurrencyLimitingAspect aspect = new ConcurrencyLimitingAspect(2);
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(target);
+        proxyFactory.addInterface(UserService.class);
+        proxyFactory.addAspect(aspect);
+        UserService userService = proxyFactory.getProxy();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> calls = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                calls.add(executor.submit(() -> userService.saveUser(null)));
+            }
+            for (Future<?> call : calls) {
+                call.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(target.maxActive.get()).isEqualTo(2);
+        assertThat(aspect.getActiveCalls()).isZero();
+    }
+
+    private static class SlowUserService implements UserService {
+
+        private final AtomicInteger active = new AtomicInteger();
+
+        private final AtomicInteger maxActive = new AtomicInteger();
+
+        @Override
+        public void saveUser(User user) {
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            active.decrementAndGet();
+        }
+    }
+
+}
@@ -0,0 +1,55 @@
+package org.springframework.samples.petclinic.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Test class for {@link ConnectionPoolMetrics}
+ */
+class ConnectionPoolMetricsTests {
+
+    private HikariDataSource pool;
+
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void createPool() {
+        this.pool = new HikariDataSource();
+        this.pool.setJdbcUrl("jdbc:hsqldb:mem:connectionpool");
+        this.pool.setUsername("sa");
+        this.pool.setPoolName("test");
+        this.pool.setMaximumPoolSize(4);
+        this.registry = new SimpleMeterRegistry();
+        new ConnectionPoolMetrics(this.pool).bindTo(this.registry);
+    }
+
+    @AfterEach
+    void closePool() {
+        this.pool.close();
+    }
+
+    @Test
+    void shouldReportTheConnectionsInUseOverThePoolSize() throws SQLException {
+        assertThat(saturation()).isEqualTo(0);
+
+        try (Connection first = this.pool.getConnection(); Connection second = this.pool.getConnection()) {
+            assertThat(saturation()).isEqualTo(0.5);
+        }
+        assertThat(saturation()).isEqualTo(0);
+    }
+
+    private double saturation() {
+        return this.registry.get("petclinic.pool.saturation").tag("pool", "test").gauge().value();
+    }
+
+}
@@ -0,0 +1,417 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.util;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Generates owners with their pets and visits, and vets with their specialties, in volumes well beyond the sample data
+ * of <code>populateDB.sql</code>, for benchmarks and integration tests. The same seed and sizes always give the same
+ * rows, whichever way they are written:
+ * <ul>
+ * <li>{@link #insert(DataSource)} adds them to a database through batched JDBC inserts, after the rows already there;</li>
+ * <li>{@link #writeCsv(Path, int)} writes one CSV file per table, with the scripts that bulk load them into MySQL
+ * (<code>LOAD DATA</code>) and PostgreSQL (<code>\copy</code>); {@link #main} does the same from the command line.</li>
+ * </ul>
+ * The distributions are skewed like real data: last names and cities follow a Zipf distribution, most owners have one
+ * or two pets and a few up to five, dogs and cats make up most pets, visits per pet follow a geometric distribution
+ * with a mean of {@value #MEAN_VISITS_PER_PET}, and a vet has no, one or two specialties. Pets and specialties
+ * refer to the pet types (1-6) and specialties (1-3) of the sample data, which must be loaded first.
+ * <p/>
+ * Rows are generated and written in chunks of {@value #CHUNK} owners, so millions of rows take little memory.
+ */
+public class DataGenerator {
+
+    static final double MEAN_VISITS_PER_PET = 2.5;
+
+    private static final int CHUNK = 1000;
+
+    private static final int MAX_VISITS_PER_PET = 50;
+
+    /**
+     * Birth and visit dates are before this date, rather than today, so that every run gives the same rows.
+     */
+    private static final LocalDate END = LocalDate.of(2024, 1, 1);
+
+    private static final String[] LAST_NAMES = {"Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller",
+        "Davis", "Rodriguez", "Martinez", "Hernandez", "Lopez", "Gonzalez", "Wilson", "Anderson", "Thomas", "Taylor",
+        "Moore", "Jackson", "Martin", "Lee", "Perez", "Thompson", "White", "Harris", "Sanchez", "Clark", "Ramirez",
+        "Lewis", "Robinson", "Walker", "Young", "Allen", "King", "Wright", "Scott", "Torres", "Nguyen", "Hill",
+        "Flores", "Green", "Adams", "Nelson", "Baker", "Hall", "Rivera", "Campbell", "Mitchell", "Carter", "Roberts",
+        "Franklin", "Black", "Coleman", "Escobito", "Estaban", "McTavish", "Schroeder", "Rodriquez", "Leary", "Ortega"};
+
+    private static final String[] FIRST_NAMES = {"James", "Mary", "Robert", "Patricia", "John", "Jennifer", "Michael",
+        "Linda", "David", "Elizabeth", "William", "Barbara", "Richard", "Susan", "Joseph", "Jessica", "Thomas", "Sarah",
+        "Charles", "Karen", "George", "Betty", "Harold", "Maria", "Peter", "Jean", "Carlos", "Eduardo", "Helen", "Sharon"};
+
+    private static final String[] STREETS = {"Main St.", "Oak St.", "Pine St.", "Maple Ave.", "Cedar Ave.", "Elm St.",
+        "Washington Blvd.", "Lake St.", "Hill St.", "Park Ave.", "Sunset Blvd.", "River Rd.", "Church St.", "Spring St."};
+
+    private static final String[] CITIES = {"Madison", "Sun Prairie", "McFarland", "Windsor", "Monona", "Waunakee",
+        "Middleton", "Verona", "Fitchburg", "Stoughton", "Oregon", "Cottage Grove", "Deforest", "Mount Horeb"};
+
+    private static final String[] PET_NAMES = {"Leo", "Basil", "Rosy", "Jewel", "Iggy", "George", "Samantha", "Max",
+        "Lucky", "Mulligan", "Freddy", "Sly", "Bella", "Luna", "Charlie", "Lucy", "Cooper", "Daisy", "Milo", "Bailey",
+        "Coco", "Rocky", "Bear", "Molly", "Tucker", "Oliver", "Loki", "Nala", "Simba", "Pepper"};
+
+    private static final String[] DESCRIPTIONS = {"rabies shot", "neutered", "spayed", "checkup", "vaccination",
+        "dental cleaning", "skin allergy", "ear infection", "limping", "upset stomach", "weight check", "microchip"};
+
+    /**
+     * cat, dog, lizard, snake, bird and hamster
+     */
+    private static final double[] PET_TYPE_WEIGHTS = {35, 45, 2, 2, 9, 7};
+
+    private static final double[] PETS_PER_OWNER_WEIGHTS = {0, 55, 25, 12, 5, 3};
+
+    private static final double[] SPECIALTIES_PER_VET_WEIGHTS = {40, 45, 15};
+
+    private static final int SPECIALTIES = 3;
+
+    private final long seed;
+
+    private final int owners;
+
+    private final int vets;
+
+    /**
+     * @param owners the owners to add, with their pets and visits
+     * @param vets   the vets to add, with their specialties
+     */
+    public DataGenerator(long seed, int owners, int vets) {
+        this.seed = seed;
+        this.owners = owners;
+        this.vets = vets;
+    }
+
+    /**
+     * Adds the rows to the database, with ids after the largest id of the tables, and moves the PostgreSQL sequences
+     * past them. HSQLDB and MySQL move their identity counters themselves.
+     *
+     * @return the rows added per table
+     */
+    public Map<String, Long> insert(DataSource dataSource) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        int firstId = 1;
+        for (Table table : Table.values()) {
+            if (table.sequence != null) {
+                Integer max = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table.name, Integer.class);
+                firstId = Math.max(firstId, max != null ? max + 1 : 1);
+            }
+        }
+        JdbcSink sink = new JdbcSink(jdbcTemplate);
+        Map<String, Long> rows = generate(firstId, sink);
+        String database = jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        if (database.contains("PostgreSQL")) {
+            for (Table table : Table.values()) {
+                if (table.sequence != null) {
+                    jdbcTemplate.queryForObject("SELECT setval('" + table.sequence + "', (SELECT MAX(id) FROM "
+                        + table.name + "))", Long.class);
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Writes one CSV file per table into the directory, without a header line, and the <code>load-mysql.sql</code>
+     * and <code>load-postgresql.sql</code> scripts that load them, to be run from the directory.
+     *
+     * @param firstId the first id of the owners, pets, visits and vets, past the ids of the data already loaded
+     * @return the rows written per table
+     */
+    public Map<String, Long> writeCsv(Path directory, int firstId) throws IOException {
+        Files.createDirectories(directory);
+        Map<String, Long> rows;
+        try (CsvSink sink = new CsvSink(directory)) {
+            rows = generate(firstId, sink);
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+        try (Writer mysql = Files.newBufferedWriter(directory.resolve("load-mysql.sql"), StandardCharsets.UTF_8);
+             Writer postgresql = Files.newBufferedWriter(directory.resolve("load-postgresql.sql"), StandardCharsets.UTF_8)) {
+            for (Table table : Table.values()) {
+                String columns = String.join(", ", table.columns);
+                mysql.write("LOAD DATA LOCAL INFILE '" + table.name + ".csv' INTO TABLE " + table.name
+                    + " FIELDS TERMINATED BY ',' OPTIONALLY ENCLOSED BY '\"' LINES TERMINATED BY '\\n' (" + columns + ");\n");
+                postgresql.write("\\copy " + table.name + " (" + columns + ") FROM '" + table.name + ".csv' WITH (FORMAT csv)\n");
+            }
+            for (Table table : Table.values()) {
+                if (table.sequence != null) {
+                    postgresql.write("SELECT setval('" + table.sequence + "', (SELECT MAX(id) FROM " + table.name + "));\n");
+                }
+            }
+        }
+        return rows;
+    }
+
+    private Map<String, Long> generate(int firstId, Sink sink) {
+        Random random = new Random(this.seed);
+        Weighted lastNames = Weighted.zipf(LAST_NAMES.length);
+        Weighted cities = Weighted.zipf(CITIES.length);
+        Weighted petTypes = new Weighted(PET_TYPE_WEIGHTS);
+        Weighted petsPerOwner = new Weighted(PETS_PER_OWNER_WEIGHTS);
+        Weighted specialtiesPerVet = new Weighted(SPECIALTIES_PER_VET_WEIGHTS);
+        Map<Table, Long> rows = new EnumMap<>(Table.class);
+        for (Table table : Table.values()) {
+            rows.put(table, 0L);
+        }
+
+        int vetId = firstId;
+        for (int i = 0; i < this.vets; i++, vetId++) {
+            sink.row(Table.VETS, vetId, pick(random, FIRST_NAMES), LAST_NAMES[lastNames.next(random)]);
+            int specialties = specialtiesPerVet.next(random);
+            int first = random.nextInt(SPECIALTIES);
+            for (int s = 0; s < specialties; s++) {
+                sink.row(Table.VET_SPECIALTIES, vetId, 1 + (first + s) % SPECIALTIES);
+            }
+            rows.merge(Table.VET_SPECIALTIES, (long) specialties, Long::sum);
+        }
+        rows.put(Table.VETS, (long) this.vets);
+        sink.endChunk();
+
+        int ownerId = firstId;
+        int petId = firstId;
+        int visitId = firstId;
+        for (int i = 0; i < this.owners; i++, ownerId++) {
+            sink.row(Table.OWNERS, ownerId, pick(random, FIRST_NAMES), LAST_NAMES[lastNames.next(random)],
+                (1 + random.nextInt(9999)) + " " + pick(random, STREETS), CITIES[cities.next(random)],
+                "608555" + String.valueOf(10000 + random.nextInt(10000)).substring(1));
+            int pets = petsPerOwner.next(random);
+            for (int p = 0; p < pets; p++, petId++) {
+                LocalDate birthDate = END.minusDays(1 + random.nextInt(15 * 365));
+                sink.row(Table.PETS, petId, pick(random, PET_NAMES), birthDate, 1 + petTypes.next(random), ownerId);
+                int visits = geometric(random, MEAN_VISITS_PER_PET);
+                long days = END.toEpochDay() - birthDate.toEpochDay();
+                for (int v = 0; v < visits; v++, visitId++) {
+                    sink.row(Table.VISITS, visitId, petId, birthDate.plusDays((long) (random.nextDouble() * days)),
+                        pick(random, DESCRIPTIONS));
+                }
+                rows.merge(Table.VISITS, (long) visits, Long::sum);
+            }
+            rows.merge(Table.PETS, (long) pets, Long::sum);
+            if ((i + 1) % CHUNK == 0) {
+                sink.endChunk();
+            }
+        }
+        rows.put(Table.OWNERS, (long) this.owners);
+        sink.endChunk();
+
+        Map<String, Long> rowsByName = new LinkedHashMap<>();
+        rows.forEach((table, count) -> rowsByName.put(table.name, count));
+        return rowsByName;
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static int geometric(Random random, double mean) {
+        double p = 1 / (mean + 1);
+        int value = (int) (Math.log(1 - random.nextDouble()) / Math.log(1 - p));
+        return Math.min(value, MAX_VISITS_PER_PET);
+    }
+
+    /**
+     * Writes CSV files for MySQL and PostgreSQL into a directory: <code>DataGenerator owners directory [vets] [seed]
+     * [first id]</code>.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: DataGenerator <owners> <directory> [vets] [seed] [first id]");
+            System.exit(1);
+        }
+        int owners = Integer.parseInt(args[0]);
+        int vets = args.length > 2 ? Integer.parseInt(args[2]) : Math.max(1, owners / 500);
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 1;
+        int firstId = args.length > 4 ? Integer.parseInt(args[4]) : 1000;
+        Map<String, Long> rows = new DataGenerator(seed, owners, vets).writeCsv(Paths.get(args[1]), firstId);
+        System.out.println(rows);
+    }
+
+    /**
+     * In the order they are loaded, so that the foreign keys always refer to rows already there.
+     */
+    private enum Table {
+
+        VETS("vets", "vets_id_seq", "id", "first_name", "last_name"),
+        VET_SPECIALTIES("vet_specialties", null, "vet_id", "specialty_id"),
+        OWNERS("owners", "owners_id_seq", "id", "first_name", "last_name", "address", "city", "telephone"),
+        PETS("pets", "pets_id_seq", "id", "name", "birth_date", "type_id", "owner_id"),
+        VISITS("visits", "visits_id_seq", "id", "pet_id", "visit_date", "description");
+
+        private final String name;
+
+        /**
+         * The PostgreSQL sequence of the id, if any.
+         */
+        private final String sequence;
+
+        private final List<String> columns;
+
+        Table(String name, String sequence, String... columns) {
+            this.name = name;
+            this.sequence = sequence;
+            this.columns = Arrays.asList(columns);
+        }
+    }
+
+    /**
+     * Picks indexes with the given weights.
+     */
+    private static final class Weighted {
+
+        private final double[] cumulative;
+
+        Weighted(double[] weights) {
+            this.cumulative = new double[weights.length];
+            double sum = 0;
+            for (int i = 0; i < weights.length; i++) {
+                sum += weights[i];
+                this.cumulative[i] = sum;
+            }
+        }
+
+        static Weighted zipf(int size) {
+            double[] weights = new double[size];
+            for (int i = 0; i < size; i++) {
+                weights[i] = 1.0 / (i + 1);
+            }
+            return new Weighted(weights);
+        }
+
+        int next(Random random) {
+            double value = random.nextDouble() * this.cumulative[this.cumulative.length - 1];
+            int index = Arrays.binarySearch(this.cumulative, value);
+            // the insertion point is the first cumulative weight above the value
+            return index >= 0 ? index + 1 : -index - 1;
+        }
+    }
+
+    private interface Sink {
+
+        void row(Table table, Object... values);
+
+        /**
+         * Called when the rows so far can be written, owners before their pets and pets before their visits.
+         */
+        void endChunk();
+    }
+
+    private static final class JdbcSink implements Sink {
+
+        private final JdbcTemplate jdbcTemplate;
+
+        private final Map<Table, List<Object[]>> rows = new EnumMap<>(Table.class);
+
+        JdbcSink(JdbcTemplate jdbcTemplate) {
+            this.jdbcTemplate = jdbcTemplate;
+        }
+
+        @Override
+        public void row(Table table, Object... values) {
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] instanceof LocalDate) {
+                    values[i] = Date.valueOf((LocalDate) values[i]);
+                }
+            }
+            this.rows.computeIfAbsent(table, key -> new ArrayList<>(CHUNK * 4)).add(values);
+        }
+
+        @Override
+        public void endChunk() {
+            for (Map.Entry<Table, List<Object[]>> entry : this.rows.entrySet()) {
+                Table table = entry.getKey();
+                if (entry.getValue().isEmpty()) {
+                    continue;
+                }
+                String[] parameters = new String[table.columns.size()];
+                Arrays.fill(parameters, "?");
+                this.jdbcTemplate.batchUpdate("INSERT INTO " + table.name + " (" + String.join(", ", table.columns)
+                    + ") VALUES (" + String.join(", ", parameters) + ")", entry.getValue());
+                entry.getValue().clear();
+            }
+        }
+    }
+
+    private static final class CsvSink implements Sink, AutoCloseable {
+
+        private final Map<Table, BufferedWriter> writers = new EnumMap<>(Table.class);
+
+        CsvSink(Path directory) throws IOException {
+            for (Table table : Table.values()) {
+                this.writers.put(table, Files.newBufferedWriter(directory.resolve(table.name + ".csv"), StandardCharsets.UTF_8));
+            }
+        }
+
+        @Override
+        public void row(Table table, Object... values) {
+            try {
+                BufferedWriter writer = this.writers.get(table);
+                for (int i = 0; i < values.length; i++) {
+                    if (i > 0) {
+                        writer.write(',');
+                    }
+                    writer.write(csv(String.valueOf(values[i])));
+                }
+                writer.write('\n');
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        private static String csv(String value) {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+
+        @Override
+        public void endChunk() {
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (BufferedWriter writer : this.writers.values()) {
+                writer.close();
+            }
+        }
+    }
+
+}
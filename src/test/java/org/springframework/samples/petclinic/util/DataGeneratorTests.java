@@ -0,0 +1,92 @@
+package org.springframework.samples.petclinic.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+/**
+ * Test class for {@link DataGenerator}
+ */
+class DataGeneratorTests {
+
+    private DriverManagerDataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void createDatabase() {
+        this.dataSource = new DriverManagerDataSource("jdbc:hsqldb:mem:datagenerator", "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("db/hsqldb/initDB.sql"),
+            new ClassPathResource("db/hsqldb/populateDB.sql")).execute(this.dataSource);
+        this.jdbcTemplate = new JdbcTemplate(this.dataSource);
+    }
+
+    @Test
+    void shouldInsertSkewedDataAfterTheSampleData() {
+        Map<String, Long> rows = new DataGenerator(1, 5000, 20).insert(this.dataSource);
+
+        assertThat(count("owners")).isEqualTo(10 + rows.get("owners")).isEqualTo(5010);
+        assertThat(count("pets")).isEqualTo(13 + rows.get("pets"));
+        assertThat(count("visits")).isEqualTo(4 + rows.get("visits"));
+        assertThat(count("vets")).isEqualTo(6 + rows.get("vets")).isEqualTo(26);
+        assertThat(count("vet_specialties")).isEqualTo(5 + rows.get("vet_specialties"));
+        // one or two pets for most owners, and about 2.5 visits per pet
+        assertThat(rows.get("pets") / 5000.0).isBetween(1.5, 2.0);
+        assertThat(rows.get("visits") / (double) rows.get("pets")).isBetween(2.2, 2.8);
+        // the most common last name is far more common than with uniform names
+        assertThat(this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM owners WHERE last_name = 'Smith'", Long.class))
+            .isGreaterThan(5000 / 10);
+        assertThat(this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pets WHERE type_id IN (1, 2)", Long.class))
+            .isGreaterThan(rows.get("pets") * 3 / 4);
+
+        this.jdbcTemplate.update("INSERT INTO owners (first_name, last_name) VALUES ('Sam', 'Schultz')");
+        assertThat(this.jdbcTemplate.queryForObject("SELECT MAX(id) FROM owners WHERE last_name = 'Schultz'", Integer.class))
+            .isGreaterThan(5010);
+    }
+
+    @Test
+    void shouldWriteTheSameRowsForTheSameSeed(@TempDir Path directory) throws Exception {
+        Map<String, Long> rows = new DataGenerator(7, 1000, 5).writeCsv(directory.resolve("first"), 1000);
+        new DataGenerator(7, 1000, 5).writeCsv(directory.resolve("second"), 1000);
+        new DataGenerator(8, 1000, 5).writeCsv(directory.resolve("other"), 1000);
+
+        for (String table : rows.keySet()) {
+            Path csv = directory.resolve("first").resolve(table + ".csv");
+            assertThat(Files.readAllLines(csv)).hasSize(rows.get(table).intValue());
+            assertThat(csv).hasSameTextualContentAs(directory.resolve("second").resolve(table + ".csv"));
+        }
+        assertThat(Files.readAllLines(directory.resolve("first").resolve("owners.csv")).get(0)).startsWith("1000,");
+        assertThat(Files.readAllLines(directory.resolve("first").resolve("owners.csv")))
+            .isNotEqualTo(Files.readAllLines(directory.resolve("other").resolve("owners.csv")));
+        assertThat(Files.readAllLines(directory.resolve("first").resolve("load-postgresql.sql")))
+            .contains("\\copy owners (id, first_name, last_name, address, city, telephone) FROM 'owners.csv' WITH (FORMAT csv)");
+    }
+
+    @Test
+    void shouldInsertTheRowsItWritesToCsv(@TempDir Path directory) throws Exception {
+        new DataGenerator(3, 100, 2).insert(this.dataSource);
+        // after the largest id of the sample data, pet 13
+        new DataGenerator(3, 100, 2).writeCsv(directory, 14);
+
+        String firstOwner = Files.readAllLines(directory.resolve("owners.csv")).get(0);
+        Map<String, Object> owner = this.jdbcTemplate.queryForMap("SELECT * FROM owners WHERE id = 14");
+        assertThat(firstOwner).isEqualTo(String.join(",", owner.get("ID").toString(), owner.get("FIRST_NAME").toString(),
+            owner.get("LAST_NAME").toString(), owner.get("ADDRESS").toString(), owner.get("CITY").toString(),
+            owner.get("TELEPHONE").toString()));
+    }
+
+    private long count(String table) {
+        return this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+    }
+
+}
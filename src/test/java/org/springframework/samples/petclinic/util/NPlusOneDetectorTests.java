@@ -0,0 +1,99 @@
+package org.springframework.samples.petclinic.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.samples.petclinic.util.NPlusOneDetector.Finding;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Integration tests for {@link NPlusOneDetector} and {@link NPlusOneDetectorEndpoint}, on the JDBC repositories,
+ * whose <code>OwnerRepository.findAll</code> loads the pets of each owner with one query per owner.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles({"jdbc", "hsqldb"})
+class NPlusOneDetectorTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private NPlusOneDetector detector;
+
+    @Autowired
+    private NPlusOneDetectorEndpoint endpoint;
+
+    @BeforeEach
+    void clearFindings() {
+        this.endpoint.clear();
+    }
+
+    @AfterEach
+    void sampleAllRequests() {
+        this.endpoint.configure(1.0, 3);
+    }
+
+    @Test
+    @WithMockUser(roles = "OWNER_ADMIN")
+    void shouldFindStatementRepeatedPerOwner() throws Exception {
+        this.mockMvc.perform(get("/api/owners")).andExpect(status().isOk());
+        this.mockMvc.perform(get("/api/owners")).andExpect(status().isOk());
+
+        List<Finding> findings = this.detector.getFindings();
+        assertThat(findings).hasSize(1);
+        Finding finding = findings.get(0);
+        assertThat(finding.getRoute()).isEqualTo("/api/owners");
+        assertThat(finding.getShape()).startsWith("SELECT pets.id as pets_id").endsWith("WHERE owner_id=? ORDER BY pets.id");
+        assertThat(finding.getRepository()).isEqualTo("OwnerRepository.findAll");
+        assertThat(finding.getRequests()).isEqualTo(2);
+        assertThat(finding.getMaxRepetitions()).isEqualTo(10);
+        assertThat(finding.getLastDistinctParameters()).isEqualTo(10);
+    }
+
+    @Test
+    @WithMockUser(roles = "OWNER_ADMIN")
+    void shouldNotFlagRequestsWithoutRepeatedStatements() throws Exception {
+        long sampled = this.detector.getSampledRequests();
+
+        this.mockMvc.perform(get("/api/owners").param("lastName", "Davis")).andExpect(status().isOk());
+
+        assertThat(this.detector.getSampledRequests()).isEqualTo(sampled + 1);
+        assertThat(this.detector.getFindings()).isEmpty();
+    }
+
+    @Test
+    @WithMockUser(roles = "OWNER_ADMIN")
+    void shouldOnlyTrackSampledRequests() throws Exception {
+        this.endpoint.configure(0.0, null);
+        long sampled = this.detector.getSampledRequests();
+
+        this.mockMvc.perform(get("/api/owners")).andExpect(status().isOk());
+
+        Map<String, Object> findings = this.endpoint.findings();
+        assertThat(findings).containsEntry("sampleRate", 0.0).containsEntry("sampledRequests", sampled);
+        assertThat((List<?>) findings.get("findings")).isEmpty();
+    }
+
+    @Test
+    void shouldNormalizeLiteralsAndInLists() {
+        assertThat(NPlusOneDetector.shape("SELECT * FROM pets  WHERE owner_id = 12 AND name = 'O''Leo'"))
+            .isEqualTo("SELECT * FROM pets WHERE owner_id = ? AND name = ?");
+        assertThat(NPlusOneDetector.shape("SELECT * FROM visits WHERE pet_id IN (?, ?,?)"))
+            .isEqualTo(NPlusOneDetector.shape("SELECT * FROM visits WHERE pet_id IN (1)"));
+        assertThat(NPlusOneDetector.shape("SELECT id FROM vets1")).isEqualTo("SELECT id FROM vets1");
+    }
+
+}
@@ -0,0 +1,82 @@
+package org.springframework.samples.petclinic.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+/**
+ * Integration tests for {@link ServerTiming}, {@link ServerTimingFilter} and {@link ServerTimingMessageConverter}
+ */
+@SpringBootTest(properties = {"petclinic.server-timing.sample-rate=1", "petclinic.allocation-metrics.header=true"})
+@AutoConfigureMockMvc
+@ActiveProfiles({"jdbc", "hsqldb"})
+class ServerTimingTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ServerTiming serverTiming;
+
+    @AfterEach
+    void sampleAllRequests() {
+        this.serverTiming.setSampleRate(1);
+    }
+
+    @Test
+    @WithMockUser(roles = "OWNER_ADMIN")
+    void shouldBreakDownTheTimeOfAResponse() throws Exception {
+        // owners are cached, pets are read from the database
+        MvcResult result = this.mockMvc.perform(get("/api/pets/1"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+        String serverTiming = result.getResponse().getHeader(ServerTiming.HEADER);
+        assertThat(serverTiming).matches("db;dur=[0-9.]+;desc=\"[1-9][0-9]* statements\", service;dur=[0-9.]+, "
+            + "mapping;dur=[0-9.]+, serialization;dur=[0-9.]+, total;dur=[0-9.]+");
+        assertThat(result.getResponse().getContentAsString()).contains("\"name\":\"Leo\"");
+    }
+
+    @Test
+    @WithMockUser(roles = "OWNER_ADMIN")
+    void shouldShareTheBodyHeldForTheAllocationHeader() throws Exception {
+        MvcResult result = this.mockMvc.perform(get("/api/pets/1"))
+            .andExpect(status().isOk())
+            .andExpect(header().exists(ServerTiming.HEADER))
+            .andExpect(header().exists(AllocationMetrics.HEADER))
+            .andReturn();
+
+        assertThat(result.getResponse().getContentAsString()).startsWith("{").contains("\"name\":\"Leo\"").endsWith("}");
+    }
+
+    @Test
+    @WithMockUser(roles = "OWNER_ADMIN")
+    void shouldTimeResponsesWithoutBody() throws Exception {
+        this.mockMvc.perform(get("/api/owners/999"))
+            .andExpect(status().isNotFound())
+            .andExpect(header().string(ServerTiming.HEADER, containsString("serialization;dur=0.0")));
+    }
+
+    @Test
+    @WithMockUser(roles = "OWNER_ADMIN")
+    void shouldLeaveOutRequestsThatAreNotSampled() throws Exception {
+        this.serverTiming.setSampleRate(0);
+
+        this.mockMvc.perform(get("/api/owners/1"))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist(ServerTiming.HEADER));
+    }
+
+}
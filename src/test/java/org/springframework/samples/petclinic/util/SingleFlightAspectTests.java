@@ -0,0 +1,165 @@
+package org.springframework.samples.petclinic.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.service.ClinicService;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Test class for {@link SingleFlightAspect}
+ */
+class SingleFlightAspectTests {
+
+    private static final int CALLERS = 16;
+
+    private ClinicService target;
+
+    private SingleFlightAspect aspect;
+
+    private ClinicService clinicService;
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void createProxy() {
+        this.target = mock(ClinicService.class);
+        this.aspect = new SingleFlightAspect();
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(this.target);
+        proxyFactory.addInterface(ClinicService.class);
+        proxyFactory.addAspect(this.aspect);
+        this.clinicService = proxyFactory.getProxy();
+        this.executor = Executors.newFixedThreadPool(CALLERS);
+    }
+
+    @AfterEach
+    void shutdown() {
+        this.executor.shutdownNow();
+    }
+
+    @Test
+    void shouldShareOneLoadBetweenConcurrentCalls() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(this.target.findOwnerById(1)).thenAnswer(invocation -> {
+            release.await();
+            return owner(1);
+        });
+
+        List<Future<Owner>> calls = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            calls.add(this.executor.submit(() -> this.clinicService.findOwnerById(1)));
+        }
+        assertThat(within(() -> this.aspect.getCoalescedCalls() == CALLERS - 1)).isTrue();
+        release.countDown();
+
+        Owner first = calls.get(0).get(5, TimeUnit.SECONDS);
+        for (Future<Owner> call : calls) {
+            assertThat(call.get(5, TimeUnit.SECONDS)).isSameAs(first);
+        }
+        verify(this.target, times(1)).findOwnerById(1);
+        assertThat(this.aspect.getLoads()).isEqualTo(1);
+        assertThat(this.aspect.getInFlightCalls()).isZero();
+    }
+
+    @Test
+    void shouldPassTheExceptionToEveryWaitingCall() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(this.target.findPetById(1)).thenAnswer(invocation -> {
+            release.await();
+            throw new DataRetrievalFailureException("connection lost");
+        });
+
+        List<Future<?>> calls = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            calls.add(this.executor.submit(() -> this.clinicService.findPetById(1)));
+        }
+        assertThat(within(() -> this.aspect.getCoalescedCalls() == CALLERS - 1)).isTrue();
+        release.countDown();
+
+        for (Future<?> call : calls) {
+            assertThatThrownBy(() -> call.get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(DataRetrievalFailureException.class);
+        }
+        verify(this.target, times(1)).findPetById(1);
+        assertThat(this.aspect.getInFlightCalls()).isZero();
+    }
+
+    @Test
+    void shouldNotCoalesceCallsInReadWriteTransaction() {
+        when(this.target.findOwnerById(1)).thenAnswer(invocation -> owner(1));
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            this.clinicService.findOwnerById(1);
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+        assertThat(this.aspect.getLoads()).isZero();
+        verify(this.target, times(1)).findOwnerById(1);
+    }
+
+    @Test
+    void shouldReturnTheResultOfTheSameArgumentsUnderContention() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        when(this.target.findOwnerById(anyInt())).thenAnswer(invocation -> {
+            loads.incrementAndGet();
+            Thread.yield();
+            return owner(invocation.getArgument(0));
+        });
+
+        List<Future<?>> callers = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            callers.add(this.executor.submit(() -> {
+                for (int j = 0; j < 2000; j++) {
+                    int id = ThreadLocalRandom.current().nextInt(4);
+                    assertThat(this.clinicService.findOwnerById(id).getId()).isEqualTo(id);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> caller : callers) {
+            caller.get(30, TimeUnit.SECONDS);
+        }
+        assertThat(this.aspect.getLoads() + this.aspect.getCoalescedCalls()).isEqualTo(CALLERS * 2000);
+        assertThat(this.aspect.getLoads()).isEqualTo(loads.get());
+        assertThat(this.aspect.getInFlightCalls()).isZero();
+    }
+
+    private static Owner owner(int id) {
+        Owner owner = new Owner();
+        owner.setId(id);
+        return owner;
+    }
+
+    private static boolean within(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+            Thread.sleep(50);
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,105 @@
+package org.springframework.samples.petclinic.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.samples.petclinic.util.SlowStatementLog.SlowStatement;
+
+/**
+ * Test class for {@link SlowStatementLog}, fed by a {@link StatementMetricsDataSource}
+ */
+class SlowStatementLogTests {
+
+    private SlowStatementLog slowStatementLog;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void createDataSource() {
+        createLog(new SlowStatementLog(4, Duration.ZERO, false));
+        this.jdbcTemplate.execute("DROP TABLE names IF EXISTS");
+        this.jdbcTemplate.execute("CREATE TABLE names (id INTEGER, name VARCHAR(30))");
+        this.jdbcTemplate.update("INSERT INTO names VALUES (1, 'Leo'), (2, 'Basil'), (3, 'Rosy')");
+    }
+
+    @Test
+    void shouldLogNothingWhenTurnedOff() {
+        this.jdbcTemplate.queryForList("SELECT name FROM names WHERE id > ?", String.class, 1);
+
+        assertThat(this.slowStatementLog.getStatements()).isEmpty();
+    }
+
+    @Test
+    void shouldLogSqlParametersAndRows() {
+        this.slowStatementLog.setThreshold(Duration.ofNanos(1));
+
+        this.jdbcTemplate.queryForList("SELECT name FROM names WHERE id > ? AND name <> ?", String.class, 1, "Rex");
+        this.jdbcTemplate.update("UPDATE names SET name = ? WHERE id < ?", null, 3);
+
+        List<SlowStatement> statements = this.slowStatementLog.getStatements();
+        assertThat(statements).hasSize(2);
+        SlowStatement update = statements.get(0);
+        assertThat(update.getSql()).isEqualTo("UPDATE names SET name = ? WHERE id < ?");
+        assertThat(update.getParameters()).containsExactly("null", "3");
+        assertThat(update.getRows()).isEqualTo(2);
+        SlowStatement query = statements.get(1);
+        assertThat(query.getSql()).isEqualTo("SELECT name FROM names WHERE id > ? AND name <> ?");
+        assertThat(query.getParameters()).containsExactly("1", "Rex");
+        assertThat(query.getRows()).isEqualTo(2);
+        assertThat(query.getElapsedMillis()).isGreaterThan(0);
+        assertThat(query.getRoute()).isEqualTo(StatementMetrics.NONE);
+    }
+
+    @Test
+    void shouldRedactParameters() {
+        createLog(new SlowStatementLog(4, Duration.ofNanos(1), true));
+
+        this.jdbcTemplate.queryForList("SELECT name FROM names WHERE id = ? AND name = ?", String.class, 1, "Leo");
+
+        assertThat(this.slowStatementLog.getStatements().get(0).getParameters()).containsExactly("?:Integer", "?:String");
+    }
+
+    @Test
+    void shouldKeepOnlyTheMostRecentStatements() {
+        this.slowStatementLog.setThreshold(Duration.ofNanos(1));
+
+        for (int id = 1; id <= 6; id++) {
+            this.jdbcTemplate.queryForList("SELECT name FROM names WHERE id = " + id, String.class);
+        }
+
+        assertThat(this.slowStatementLog.getAdded()).isEqualTo(6);
+        assertThat(this.slowStatementLog.getStatements()).extracting(SlowStatement::getSql)
+            .containsExactly("SELECT name FROM names WHERE id = 6", "SELECT name FROM names WHERE id = 5",
+                "SELECT name FROM names WHERE id = 4", "SELECT name FROM names WHERE id = 3");
+    }
+
+    @Test
+    void shouldBeConfiguredThroughTheEndpoint() {
+        SlowStatementLogEndpoint endpoint = new SlowStatementLogEndpoint(this.slowStatementLog);
+
+        endpoint.configure("1ns");
+        this.jdbcTemplate.queryForList("SELECT name FROM names", String.class);
+        Map<String, Object> log = endpoint.slowStatements();
+
+        assertThat(log).containsEntry("threshold", "PT0.000000001S").containsEntry("redactParameters", false);
+        assertThat((List<?>) log.get("statements")).hasSize(1);
+        endpoint.clear();
+        assertThat(this.slowStatementLog.getStatements()).isEmpty();
+        endpoint.configure("0");
+        assertThat(this.slowStatementLog.isEnabled()).isFalse();
+    }
+
+    private void createLog(SlowStatementLog slowStatementLog) {
+        this.slowStatementLog = slowStatementLog;
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:hsqldb:mem:slowstatements", "sa", "");
+        this.jdbcTemplate = new JdbcTemplate(new StatementMetricsDataSource(dataSource, new StatementMetrics(new NPlusOneDetector(0, 3, 10)), this.slowStatementLog));
+    }
+
+}
@@ -0,0 +1,65 @@
+package org.springframework.samples.petclinic.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.config.CacheConfig;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Test class for {@link StartupWarmUp}
+ */
+@SpringBootTest(properties = {"petclinic.warm-up.enable=true", "petclinic.warm-up.writes=true"})
+@ActiveProfiles({"jdbc", "hsqldb"})
+@DirtiesContext
+class StartupWarmUpTests {
+
+    @Autowired
+    private StartupWarmUp startupWarmUp;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ApplicationAvailability applicationAvailability;
+
+    @Test
+    void shouldLoadReferenceDataBeforeReady() {
+        assertThat(this.applicationAvailability.getReadinessState()).isEqualTo(ReadinessState.ACCEPTING_TRAFFIC);
+        assertThat(this.cacheManager.getCache(CacheConfig.VETS).get(SimpleKey.EMPTY)).isNotNull();
+        assertThat(this.cacheManager.getCache(CacheConfig.PET_TYPES).get(SimpleKey.EMPTY)).isNotNull();
+        assertThat(this.cacheManager.getCache(CacheConfig.SPECIALTIES).get(SimpleKey.EMPTY)).isNotNull();
+    }
+
+    @Test
+    void shouldRollBackTheWrites() {
+        assertThat(this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM owners WHERE last_name = 'Up'", Integer.class)).isZero();
+        assertThat(this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM vets WHERE last_name = 'Up'", Integer.class)).isZero();
+        assertThat(this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM types WHERE name = 'warm-up'", Integer.class)).isZero();
+    }
+
+    @Test
+    void shouldReportWarmUpTime() {
+        assertThat(this.startupWarmUp.getDuration(TimeUnit.NANOSECONDS)).isPositive();
+        assertThat(this.meterRegistry.get("petclinic.warmup.time").timeGauge().value(TimeUnit.NANOSECONDS)).isPositive();
+    }
+
+}
@@ -0,0 +1,109 @@
+package org.springframework.samples.petclinic.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Integration tests for {@link StatementMetrics} and {@link StatementMetricsDataSource}
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles({"jdbc", "hsqldb"})
+class StatementMetricsTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void shouldWrapThePool() throws Exception {
+        assertThat(this.dataSource).isInstanceOf(StatementMetricsDataSource.class);
+        assertThat(this.dataSource.unwrap(HikariDataSource.class)).isNotNull();
+    }
+
+    @Test
+    @WithMockUser(roles = "OWNER_ADMIN")
+    void shouldAttributeStatementsToRouteAndServiceMethod() throws Exception {
+        double statements = count("petclinic.db.statements", "/api/owners", "findAllOwners");
+        double rows = count("petclinic.db.rows", "/api/owners", "findAllOwners");
+        long requests = requests("/api/owners");
+
+        this.mockMvc.perform(get("/api/owners")).andExpect(status().isOk());
+
+        assertThat(count("petclinic.db.statements", "/api/owners", "findAllOwners")).isGreaterThan(statements);
+        assertThat(count("petclinic.db.rows", "/api/owners", "findAllOwners")).isGreaterThanOrEqualTo(rows + 10);
+        assertThat(this.meterRegistry.get("petclinic.db.time").tags("uri", "/api/owners", "service", "findAllOwners")
+            .timer().count()).isGreaterThan(0);
+        assertThat(requests("/api/owners")).isEqualTo(requests + 1);
+        assertThat(this.meterRegistry.get("petclinic.db.request.statements").tag("uri", "/api/owners").summary().max())
+            .isGreaterThan(0);
+    }
+
+    @Test
+    void shouldTagStatementsOutsideRequestsWithNone() {
+        double rows = count("petclinic.db.rows", StatementMetrics.NONE, StatementMetrics.NONE);
+
+        new JdbcTemplate(this.dataSource).queryForList("SELECT id FROM owners");
+
+        assertThat(count("petclinic.db.rows", StatementMetrics.NONE, StatementMetrics.NONE)).isGreaterThanOrEqualTo(rows + 10);
+    }
+
+    @Test
+    void shouldCountRowsReadBeforeTheResultSetIsClosed() {
+        double rows = count("petclinic.db.rows", StatementMetrics.NONE, StatementMetrics.NONE);
+
+        new JdbcTemplate(this.dataSource).execute((ConnectionCallback<Void>) connection -> {
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery("SELECT id FROM owners ORDER BY id")) {
+                assertThat(Proxy.isProxyClass(resultSet.getClass())).isFalse();
+                assertThat(resultSet.unwrap(ResultSet.class)).isSameAs(resultSet);
+                for (int i = 0; i < 3; i++) {
+                    assertThat(resultSet.next()).isTrue();
+                }
+            }
+            return null;
+        });
+
+        assertThat(count("petclinic.db.rows", StatementMetrics.NONE, StatementMetrics.NONE)).isGreaterThanOrEqualTo(rows + 3);
+    }
+
+    private double count(String name, String uri, String service) {
+        Counter counter = this.meterRegistry.find(name).tags("uri", uri, "service", service).counter();
+        return counter != null ? counter.count() : 0;
+    }
+
+    private long requests(String uri) {
+        DistributionSummary summary =
+            this.meterRegistry.find("petclinic.db.request.statements").tag("uri", uri).summary();
+        return summary != null ? summary.count() : 0;
+    }
+
+}
@@ -0,0 +1,95 @@
+package org.springframework.samples.petclinic.util.jfr;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Integration test for {@link FlightRecorderAspect}: records a few requests with the <code>petclinic.jfc</code>
+ * settings, and analyses the recording file the way a profiling session would.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles({"jdbc", "hsqldb"})
+class FlightRecorderAspectTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @TempDir
+    Path recordings;
+
+    @Test
+    @WithMockUser(roles = "OWNER_ADMIN")
+    void shouldRecordRequestServiceAndRepositoryEvents() throws Exception {
+        Path file = this.recordings.resolve("petclinic.jfr");
+        try (Recording recording = new Recording(petclinicSettings())) {
+            recording.enable(RepositoryCallEvent.NAME).withThreshold(Duration.ZERO);
+            recording.start();
+            this.mockMvc.perform(get("/api/owners/1")).andExpect(status().isOk());
+            this.mockMvc.perform(get("/api/owners").param("lastName", "Davis")).andExpect(status().isOk());
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+
+        RecordedEvent getOwner = only(events, RequestEvent.NAME, "handler", "OwnerRestController.getOwner");
+        assertThat(getOwner.getString("httpMethod")).isEqualTo("GET");
+        assertThat(getOwner.getString("route")).isEqualTo("/api/owners/{ownerId}");
+        assertThat(getOwner.getString("entityType")).isEqualTo("Owner");
+        assertThat(getOwner.getInt("entityId")).isEqualTo(1);
+        assertThat(getOwner.getInt("rows")).isEqualTo(1);
+        assertThat(getOwner.getInt("status")).isEqualTo(200);
+
+        RecordedEvent findOwnerById = only(events, ServiceCallEvent.NAME, "method", "findOwnerById");
+        assertThat(findOwnerById.getString("entityType")).isEqualTo("Owner");
+        assertThat(findOwnerById.getInt("entityId")).isEqualTo(1);
+        assertThat(findOwnerById.getInt("rows")).isEqualTo(1);
+        assertThat(findOwnerById.getBoolean("failed")).isFalse();
+
+        RecordedEvent findByLastName = only(events, RepositoryCallEvent.NAME, "method", "OwnerRepository.findByLastName");
+        assertThat(findByLastName.getString("entityType")).isEqualTo("Owner");
+        assertThat(findByLastName.getInt("entityId")).isEqualTo(-1);
+        assertThat(findByLastName.getInt("rows")).isEqualTo(2);
+        assertThat(findByLastName.getDuration().toNanos()).isGreaterThan(0);
+        // the repository call runs inside the service call, inside the request
+        RecordedEvent listOwners = only(events, RequestEvent.NAME, "handler", "OwnerRestController.listOwners");
+        assertThat(findByLastName.getStartTime()).isAfterOrEqualTo(listOwners.getStartTime());
+        assertThat(findByLastName.getEndTime()).isBeforeOrEqualTo(listOwners.getEndTime());
+    }
+
+    private static Configuration petclinicSettings() throws Exception {
+        return Configuration.create(Paths.get(new ClassPathResource("jfr/petclinic.jfc").getURI()));
+    }
+
+    private static RecordedEvent only(List<RecordedEvent> events, String type, String field, String value) {
+        List<RecordedEvent> matching = events.stream()
+            .filter(event -> event.getEventType().getName().equals(type) && value.equals(event.getString(field)))
+            .collect(Collectors.toList());
+        assertThat(matching).as(type + " " + value).hasSize(1);
+        return matching.get(0);
+    }
+
+}